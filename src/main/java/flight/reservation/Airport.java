@@ -9,21 +9,41 @@ public class Airport {
     private final String name;
     private final String code;
     private final String location;
+    private final double latitude;
+    private final double longitude;
     private List<Flight> flights;
     private String[] allowedAircrafts;
 
     public Airport(String name, String code, String location) {
-        this.name = name;
-        this.code = code;
-        this.location = location;
-        this.allowedAircrafts = new String[]{"A380", "A350", "Embraer 190", "Antonov AN2", "H1", "H2", "HypaHype"};
+        this(name, code, location, Double.NaN, Double.NaN);
     }
 
     public Airport(String name, String code, String location, String[] allowedAircrafts) {
+        this(name, code, location, allowedAircrafts, Double.NaN, Double.NaN);
+    }
+
+    public Airport(String name, String code, String location, double latitude, double longitude) {
+        this(name, code, location, new String[]{"A380", "A350", "Embraer 190", "Antonov AN2", "H1", "H2", "HypaHype"},
+                latitude, longitude);
+    }
+
+    /**
+     * @param latitude  in degrees, NaN if unknown
+     * @param longitude in degrees, NaN if unknown
+     */
+    public Airport(String name, String code, String location, String[] allowedAircrafts, double latitude, double longitude) {
+        if (Double.isNaN(latitude) != Double.isNaN(longitude)) {
+            throw new IllegalArgumentException("Latitude and longitude must both be known or both be unknown");
+        }
+        if (Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+            throw new IllegalArgumentException("Invalid coordinates: " + latitude + ", " + longitude);
+        }
         this.name = name;
         this.code = code;
         this.location = location;
         this.allowedAircrafts = allowedAircrafts;
+        this.latitude = latitude;
+        this.longitude = longitude;
     }
 
     public String getName() {
@@ -38,6 +58,18 @@ public class Airport {
         return location;
     }
 
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public boolean hasCoordinates() {
+        return !Double.isNaN(latitude);
+    }
+
     public List<Flight> getFlights() {
         return flights;
     }
@@ -1,41 +1,54 @@
 package flight.reservation;
 
 import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.observer.FlightNotification;
 import flight.reservation.observer.FlightObserver;
+import flight.reservation.observer.NotificationInbox;
+import flight.reservation.observer.NotificationRecord;
 import flight.reservation.order.FlightOrder;
 import flight.reservation.order.Order;
 
-import java.util.ArrayList;
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 public class Customer implements FlightObserver {
 
+    private static final int DEFAULT_INBOX_CAPACITY = 100;
+    private static final Duration DEFAULT_INBOX_MAX_AGE = Duration.ofDays(30);
+
     private String email;
     private String name;
     private List<Order> orders;
-    private List<String> notifications = new ArrayList<>();
+    private final NotificationInbox inbox;
+    private final List<String> notifications = new NotificationView();
 
     public Customer(String name, String email) {
+        this(name, email, new NotificationInbox(DEFAULT_INBOX_CAPACITY, DEFAULT_INBOX_MAX_AGE));
+    }
+
+    public Customer(String name, String email, NotificationInbox inbox) {
         this.name = name;
         this.email = email;
-        this.orders = new ArrayList<>();
+        this.orders = new CopyOnWriteArrayList<>();
+        this.inbox = inbox;
     }
 
     @Override
     public void update(ScheduledFlight flight, String message) {
-        String notification = "Notification for flight " + flight.getNumber() +
-                " from " + flight.getDeparture().getCode() +
-                " to " + flight.getArrival().getCode() + ": " + message;
+        inbox.add(NotificationRecord.message(flight, message));
+    }
 
-        notifications.add(notification);
-        System.out.println("Customer " + name + " received: " + notification);
+    @Override
+    public void update(FlightNotification notification) {
+        inbox.add(NotificationRecord.of(notification));
     }
 
     public FlightOrder createOrder(List<String> passengerNames, List<ScheduledFlight> flights, double price) {
-        if (!isOrderValid(passengerNames, flights)) {
-            throw new IllegalStateException("Order is not valid");
-        }
         FlightOrder order = new FlightOrder(flights);
         order.setCustomer(this);
         order.setPrice(price);
@@ -44,20 +57,24 @@ public class Customer implements FlightObserver {
                 .map(Passenger::new)
                 .collect(Collectors.toList());
         order.setPassengers(passengers);
-        order.getScheduledFlights().forEach(scheduledFlight -> {
-            scheduledFlight.addPassengers(passengers);
-            scheduledFlight.registerObserver(this); // Register as observer for flight updates
+        // the screening result is kept on the order and reused when the order is processed
+        if (!order.passesScreening() || !isOrderValid(passengerNames, flights)) {
+            throw new IllegalStateException("Order is not valid");
+        }
+        Order.applyBooking(Collections.singletonList(order), () -> {
+            // capacity is checked again here since other orders may have taken the seats after isOrderValid
+            if (!order.bookSeats().isSuccess()) {
+                throw new IllegalStateException("Order is not valid");
+            }
+            order.getScheduledFlights().forEach(scheduledFlight -> scheduledFlight.registerObserver(this)); // Register as observer for flight updates
+            orders.add(order);
         });
-        orders.add(order);
         return order;
     }
 
     // Rest of the original methods remain the same
     private boolean isOrderValid(List<String> passengerNames, List<ScheduledFlight> flights) {
-        boolean valid = true;
-        valid = valid && !FlightOrder.getNoFlyList().contains(this.getName());
-        valid = valid && passengerNames.stream().noneMatch(passenger -> FlightOrder.getNoFlyList().contains(passenger));
-        valid = valid && flights.stream().allMatch(scheduledFlight -> {
+        return flights.stream().allMatch(scheduledFlight -> {
             try {
                 return scheduledFlight.getAvailableCapacity() >= passengerNames.size();
             } catch (NoSuchFieldException e) {
@@ -65,13 +82,29 @@ public class Customer implements FlightObserver {
                 return false;
             }
         });
-        return valid;
     }
 
+    /**
+     * @return read-only view of the inbox, the text of a notification is built when it is read
+     */
     public List<String> getNotifications() {
         return notifications;
     }
 
+    public List<String> getNotifications(int offset, int limit) {
+        return inbox.getPage(offset, limit).stream().map(Customer::format).collect(Collectors.toList());
+    }
+
+    public NotificationInbox getInbox() {
+        return inbox;
+    }
+
+    private static String format(NotificationRecord record) {
+        return "Notification for flight " + record.getFlightNumber() +
+                " from " + record.getDepartureCode() +
+                " to " + record.getArrivalCode() + ": " + record.getMessage();
+    }
+
     public String getEmail() {
         return email;
     }
@@ -95,4 +128,22 @@ public class Customer implements FlightObserver {
     public void setOrders(List<Order> orders) {
         this.orders = orders;
     }
-}
\ No newline at end of file
+
+    private final class NotificationView extends AbstractList<String> {
+        @Override
+        public String get(int index) {
+            return format(inbox.get(index));
+        }
+
+        @Override
+        public int size() {
+            return inbox.size();
+        }
+
+        // iterates a snapshot, records may be evicted while the caller iterates
+        @Override
+        public Iterator<String> iterator() {
+            return getNotifications(0, Integer.MAX_VALUE).iterator();
+        }
+    }
+}
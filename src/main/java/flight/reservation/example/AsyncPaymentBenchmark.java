@@ -0,0 +1,100 @@
+package flight.reservation.example;
+
+import flight.reservation.Airport;
+import flight.reservation.Customer;
+import flight.reservation.Passenger;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.order.FlightOrder;
+import flight.reservation.payment.PaymentGateway;
+import flight.reservation.payment.PaypalPaymentStrategy;
+import flight.reservation.payment.SimulatedPaymentGateway;
+import flight.reservation.plane.PassengerPlane;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Processes orders against a payment gateway with 100 ms latency, once blocking a thread per order and once
+ * asynchronously from a single thread with a growing number of payments in flight. Blocking throughput is
+ * bound by the number of threads, asynchronous throughput by the number of payments in flight.
+ */
+public class AsyncPaymentBenchmark {
+
+    private static final Duration LATENCY = Duration.ofMillis(100);
+    private static final long RUN_MILLIS = 2000;
+
+    private static ScheduledFlight flight;
+    private static Customer customer;
+
+    public static void main(String[] args) throws Exception {
+        Airport berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        Airport frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        flight = new ScheduledFlight(1, berlin, frankfurt, new PassengerPlane("A380"), new Date());
+        customer = new Customer("Amanda", "amanda@ya.com");
+
+        // the payment strategies print every payment
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        for (int threads = 4; threads <= 64; threads *= 4) {
+            out.printf("blocking, %3d threads:            %,8.0f orders/s%n", threads, runBlocking(threads));
+        }
+        for (int inFlight = 16; inFlight <= 4096; inFlight *= 4) {
+            out.printf("async, 1 thread, %,5d in flight: %,8.0f orders/s%n", inFlight, runAsync(inFlight));
+        }
+        System.setOut(out);
+    }
+
+    private static FlightOrder createOrder(PaymentGateway gateway) {
+        FlightOrder order = new FlightOrder(Collections.singletonList(flight));
+        order.setCustomer(customer);
+        order.setPrice(100);
+        order.setPassengers(Collections.singletonList(new Passenger("Max")));
+        order.setPaymentStrategy(new PaypalPaymentStrategy("amanda@ya.com", "amanda1985", gateway));
+        return order;
+    }
+
+    private static double runBlocking(int threads) throws InterruptedException {
+        PaymentGateway gateway = new SimulatedPaymentGateway(LATENCY);
+        LongAdder processed = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RUN_MILLIS);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    createOrder(gateway).processOrder();
+                    processed.increment();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return processed.sum() * 1000.0 / RUN_MILLIS;
+    }
+
+    private static double runAsync(int maxInFlight) throws InterruptedException {
+        PaymentGateway gateway = new SimulatedPaymentGateway(LATENCY);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        LongAdder processed = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RUN_MILLIS);
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            createOrder(gateway).processOrderAsync().whenComplete((paid, failure) -> {
+                processed.increment();
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(maxInFlight);
+        return processed.sum() * 1000.0 / RUN_MILLIS;
+    }
+}
@@ -0,0 +1,101 @@
+package flight.reservation.example;
+
+import flight.reservation.Airport;
+import flight.reservation.Passenger;
+import flight.reservation.flight.Schedule;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.plane.Aircraft;
+import flight.reservation.plane.AircraftFactory;
+import flight.reservation.search.AvailabilityCache;
+import flight.reservation.search.ItinerarySearch;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a promotion: most availability searches ask for a few popular routes, and every tenth search is
+ * followed by a booking on a random flight. Compares searching through the cache with searching directly
+ * and prints the cache metrics.
+ */
+public class AvailabilityCacheBenchmark {
+
+    private static final int AIRPORTS = 100;
+    private static final int FLIGHTS_PER_DAY = 5_000;
+    private static final int DAYS = 7;
+    private static final int POPULAR_SEARCHES = 50;
+    private static final int SEARCHES = 50_000;
+
+    public static void main(String[] args) {
+        Random random = new Random(3);
+        Airport[] airports = new Airport[AIRPORTS];
+        for (int i = 0; i < AIRPORTS; i++) {
+            airports[i] = new Airport("Airport " + i, String.format("A%02d", i), "Nowhere");
+        }
+        LocalDate firstDay = LocalDate.now(ZoneOffset.UTC).plusDays(1);
+        long start = firstDay.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        Aircraft aircraft = AircraftFactory.createPlane("A380");
+        List<ScheduledFlight> flights = new ArrayList<>();
+        for (int i = 0; i < FLIGHTS_PER_DAY * DAYS; i++) {
+            int from = random.nextInt(AIRPORTS);
+            int to = (from + 1 + random.nextInt(AIRPORTS - 1)) % AIRPORTS;
+            Date departure = new Date(start + (long) (random.nextDouble() * TimeUnit.DAYS.toMillis(DAYS)));
+            flights.add(new ScheduledFlight(i, airports[from], airports[to], aircraft, departure, 50 + random.nextInt(400)));
+        }
+        Schedule schedule = new Schedule();
+        schedule.scheduleFlights(flights);
+        ItinerarySearch search = new ItinerarySearch(schedule);
+        search.setMaxTransfers(1);
+        search.refresh();
+
+        int[][] popular = new int[POPULAR_SEARCHES][];
+        for (int p = 0; p < POPULAR_SEARCHES; p++) {
+            int from = random.nextInt(AIRPORTS);
+            popular[p] = new int[]{from, (from + 1 + random.nextInt(AIRPORTS - 1)) % AIRPORTS, random.nextInt(DAYS), 1 + random.nextInt(4)};
+        }
+        int[][] searches = new int[SEARCHES][];
+        for (int s = 0; s < SEARCHES; s++) {
+            if (random.nextInt(10) < 9) {
+                searches[s] = popular[random.nextInt(POPULAR_SEARCHES)];
+            } else {
+                int from = random.nextInt(AIRPORTS);
+                searches[s] = new int[]{from, (from + 1 + random.nextInt(AIRPORTS - 1)) % AIRPORTS, random.nextInt(DAYS), 1 + random.nextInt(4)};
+            }
+        }
+
+        long begin = System.nanoTime();
+        for (int s = 0; s < SEARCHES; s++) {
+            int[] query = searches[s];
+            long dayStart = start + TimeUnit.DAYS.toMillis(query[2]);
+            search.findAvailable(airports[query[0]], airports[query[1]], new Date(dayStart),
+                    new Date(dayStart + TimeUnit.DAYS.toMillis(1)), query[3]);
+            book(flights, random, s);
+        }
+        double uncached = (System.nanoTime() - begin) / 1e9;
+
+        AvailabilityCache cache = new AvailabilityCache(search, ZoneOffset.UTC, 1_000, Duration.ofSeconds(30));
+        begin = System.nanoTime();
+        for (int s = 0; s < SEARCHES; s++) {
+            int[] query = searches[s];
+            cache.search(airports[query[0]], airports[query[1]], firstDay.plusDays(query[2]), query[3]);
+            book(flights, random, s);
+        }
+        double cached = (System.nanoTime() - begin) / 1e9;
+
+        System.out.printf("Uncached: %,10.0f searches/s%n", SEARCHES / uncached);
+        System.out.printf("Cached:   %,10.0f searches/s%n", SEARCHES / cached);
+        System.out.println(cache);
+    }
+
+    private static void book(List<ScheduledFlight> flights, Random random, int search) {
+        if (search % 10 == 0) {
+            flights.get(random.nextInt(flights.size())).addPassengers(Collections.singletonList(new Passenger("Passenger " + search)));
+        }
+    }
+}
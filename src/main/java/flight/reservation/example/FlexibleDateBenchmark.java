@@ -0,0 +1,95 @@
+package flight.reservation.example;
+
+import flight.reservation.Airport;
+import flight.reservation.flight.Schedule;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.plane.Aircraft;
+import flight.reservation.plane.AircraftFactory;
+import flight.reservation.search.FareCalendar;
+import flight.reservation.search.FlexibleDateSearch;
+import flight.reservation.search.ItinerarySearch;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures lowest-fare calendars over a month of flights with fork-join pools of growing parallelism,
+ * up to the number of cores. The speedup should grow about linearly with the parallelism.
+ */
+public class FlexibleDateBenchmark {
+
+    private static final int AIRPORTS = 60;
+    private static final int FLIGHTS_PER_DAY = 3_000;
+    private static final int DAYS = 31;
+    private static final int CALENDARS = 20;
+
+    public static void main(String[] args) {
+        Random random = new Random(11);
+        Airport[] airports = new Airport[AIRPORTS];
+        for (int i = 0; i < AIRPORTS; i++) {
+            airports[i] = new Airport("Airport " + i, String.format("A%02d", i), "Nowhere");
+        }
+        LocalDate firstDay = LocalDate.now(ZoneOffset.UTC).plusDays(1);
+        long start = firstDay.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        Aircraft aircraft = AircraftFactory.createPlane("A380");
+        List<ScheduledFlight> flights = new ArrayList<>();
+        for (int i = 0; i < FLIGHTS_PER_DAY * DAYS; i++) {
+            int from = random.nextInt(AIRPORTS);
+            int to = (from + 1 + random.nextInt(AIRPORTS - 1)) % AIRPORTS;
+            Date departure = new Date(start + (long) (random.nextDouble() * TimeUnit.DAYS.toMillis(DAYS)));
+            flights.add(new ScheduledFlight(i, airports[from], airports[to], aircraft, departure, 50 + random.nextInt(400)));
+        }
+        Schedule schedule = new Schedule();
+        schedule.scheduleFlights(flights);
+        ItinerarySearch search = new ItinerarySearch(schedule);
+        search.setMaxTransfers(2);
+        search.refresh();
+
+        int[][] pairs = new int[CALENDARS][];
+        for (int c = 0; c < CALENDARS; c++) {
+            int from = random.nextInt(AIRPORTS);
+            pairs[c] = new int[]{from, (from + 1 + random.nextInt(AIRPORTS - 1)) % AIRPORTS};
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        double sequentialMillis = 0;
+        for (int parallelism = 1; parallelism <= cores; parallelism = nextParallelism(parallelism, cores)) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                FlexibleDateSearch flexible = new FlexibleDateSearch(search, pool, ZoneOffset.UTC);
+                // warm up
+                run(flexible, airports, pairs, firstDay);
+                long begin = System.nanoTime();
+                int days = run(flexible, airports, pairs, firstDay);
+                double millis = (System.nanoTime() - begin) / 1e6 / CALENDARS;
+                if (parallelism == 1) {
+                    sequentialMillis = millis;
+                }
+                System.out.printf("%2d threads: %8.1f ms per %d-day calendar (%d days with fares), speedup %.1f%n",
+                        parallelism, millis, DAYS, days / CALENDARS, sequentialMillis / millis);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static int run(FlexibleDateSearch flexible, Airport[] airports, int[][] pairs, LocalDate firstDay) {
+        int days = 0;
+        for (int[] pair : pairs) {
+            FareCalendar calendar = flexible.findLowestFares(airports[pair[0]], airports[pair[1]], firstDay,
+                    firstDay.plusDays(DAYS - 1));
+            days += calendar.asMap().size();
+        }
+        return days;
+    }
+
+    private static int nextParallelism(int parallelism, int cores) {
+        return parallelism < cores && parallelism * 2 > cores ? cores : parallelism * 2;
+    }
+}
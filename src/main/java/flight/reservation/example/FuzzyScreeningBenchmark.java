@@ -0,0 +1,148 @@
+package flight.reservation.example;
+
+import flight.reservation.screening.ScreeningResult;
+import flight.reservation.screening.WatchList;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Screens typical orders against a synthetic watch list of 500,000 names with fuzzy matching, half of them
+ * containing a misspelled listed name, and reports the latency per order. A few orders are also checked by
+ * computing the edit distance to every name, for comparison.
+ */
+public class FuzzyScreeningBenchmark {
+
+    private static final int LIST_SIZE = 500_000;
+    private static final int ORDERS = 5_000;
+    private static final int PASSENGERS_PER_ORDER = 3;
+    private static final double THRESHOLD = 0.85;
+    private static final Duration BUDGET = Duration.ofMillis(50);
+
+    private static final String[] SYLLABLES = {
+            "al", "an", "ar", "ba", "be", "da", "de", "el", "en", "fa", "ha", "he", "ib", "ka", "ke", "la", "li",
+            "ma", "mi", "mo", "na", "ne", "no", "or", "ra", "ri", "ro", "sa", "se", "sh", "ta", "to", "va", "yu", "za"};
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        List<String> names = new ArrayList<>(LIST_SIZE);
+        for (int i = 0; i < LIST_SIZE; i++) {
+            names.add(randomName(random));
+        }
+
+        long start = System.nanoTime();
+        WatchList watchList = WatchList.of(names, true).withFuzzyMatching(THRESHOLD, BUDGET);
+        System.out.printf("Index over %,d names built in %,d ms%n", LIST_SIZE, (System.nanoTime() - start) / 1_000_000);
+
+        List<List<String>> orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            List<String> passengers = new ArrayList<>();
+            for (int p = 0; p < PASSENGERS_PER_ORDER; p++) {
+                passengers.add(randomName(random));
+            }
+            if (i % 2 == 0) {
+                passengers.set(0, misspell(names.get(random.nextInt(LIST_SIZE)), random));
+            }
+            orders.add(passengers);
+        }
+
+        // warm up, then measure
+        for (int i = 0; i < 500; i++) {
+            watchList.screen(orders.get(i));
+        }
+        long[] latencies = new long[ORDERS];
+        int[] results = new int[ScreeningResult.values().length];
+        for (int i = 0; i < ORDERS; i++) {
+            long begin = System.nanoTime();
+            ScreeningResult result = watchList.screen(orders.get(i));
+            latencies[i] = System.nanoTime() - begin;
+            results[result.ordinal()]++;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("Indexed:     p50 %,8d us, p99 %,8d us, max %,8d us per order; %s%n",
+                latencies[ORDERS / 2] / 1000, latencies[ORDERS * 99 / 100] / 1000, latencies[ORDERS - 1] / 1000,
+                summary(results));
+
+        int scanned = 10;
+        start = System.nanoTime();
+        int scanMatches = 0;
+        for (int i = 0; i < scanned; i++) {
+            if (scan(names, orders.get(i))) {
+                scanMatches++;
+            }
+        }
+        System.out.printf("Linear scan: %,8d us per order (%d of %d orders matched)%n",
+                (System.nanoTime() - start) / 1000 / scanned, scanMatches, scanned);
+    }
+
+    private static String summary(int[] results) {
+        StringBuilder summary = new StringBuilder();
+        for (ScreeningResult result : ScreeningResult.values()) {
+            summary.append(result).append('=').append(results[result.ordinal()]).append(' ');
+        }
+        return summary.toString().trim();
+    }
+
+    private static boolean scan(List<String> names, List<String> passengers) {
+        for (String passenger : passengers) {
+            String query = WatchList.normalize(passenger);
+            for (String name : names) {
+                String key = WatchList.normalize(name);
+                int allowed = (int) Math.floor((1 - THRESHOLD) * Math.max(key.length(), query.length()) + 1e-9);
+                if (levenshtein(query, key) <= allowed) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static String randomName(Random random) {
+        return randomWord(random, 2 + random.nextInt(3)) + " " + randomWord(random, 2 + random.nextInt(4));
+    }
+
+    private static String randomWord(Random random, int syllables) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+        return word.toString();
+    }
+
+    private static String misspell(String name, Random random) {
+        char[] chars = name.toCharArray();
+        List<Integer> letters = new ArrayList<>();
+        for (int i = 0; i < chars.length; i++) {
+            if (Character.isLetter(chars[i])) {
+                letters.add(i);
+            }
+        }
+        Collections.shuffle(letters, random);
+        chars[letters.get(0)] = (char) ('a' + random.nextInt(26));
+        return new String(chars);
+    }
+}
@@ -0,0 +1,76 @@
+package flight.reservation.example;
+
+import flight.reservation.Airport;
+import flight.reservation.flight.Schedule;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.journey.Journey;
+import flight.reservation.plane.Aircraft;
+import flight.reservation.plane.AircraftFactory;
+import flight.reservation.search.ItinerarySearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures earliest-arrival searches over one day of 100,000 flights between 400 airports. Flights mostly
+ * connect nearby airports, so longer trips need several legs.
+ */
+public class ItinerarySearchBenchmark {
+
+    private static final int AIRPORTS = 400;
+    private static final int FLIGHTS = 100_000;
+    private static final int QUERIES = 20_000;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        Airport[] airports = new Airport[AIRPORTS];
+        for (int i = 0; i < AIRPORTS; i++) {
+            airports[i] = new Airport("Airport " + i, String.format("A%03d", i), "Nowhere");
+        }
+        long day = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1);
+        Aircraft aircraft = AircraftFactory.createPlane("A380");
+        List<ScheduledFlight> flights = new ArrayList<>(FLIGHTS);
+        for (int i = 0; i < FLIGHTS; i++) {
+            int from = random.nextInt(AIRPORTS);
+            int to = Math.floorMod(from + 1 + random.nextInt(20) - 10, AIRPORTS);
+            if (to == from) {
+                to = (from + 1) % AIRPORTS;
+            }
+            Date departure = new Date(day + random.nextInt((int) TimeUnit.DAYS.toMillis(1)));
+            flights.add(new ScheduledFlight(i, airports[from], airports[to], aircraft, departure));
+        }
+        Schedule schedule = new Schedule();
+        schedule.scheduleFlights(flights);
+
+        ItinerarySearch search = new ItinerarySearch(schedule);
+        long buildStart = System.nanoTime();
+        search.refresh();
+        System.out.printf("Built connection array of %,d flights in %.1f ms%n", FLIGHTS, (System.nanoTime() - buildStart) / 1e6);
+
+        for (int round = 0; round < 3; round++) {
+            long[] nanos = new long[QUERIES];
+            int found = 0;
+            int legs = 0;
+            for (int q = 0; q < QUERIES; q++) {
+                Airport origin = airports[random.nextInt(AIRPORTS)];
+                Airport destination = airports[random.nextInt(AIRPORTS)];
+                Date earliest = new Date(day + random.nextInt((int) TimeUnit.HOURS.toMillis(12)));
+                long start = System.nanoTime();
+                Journey journey = search.findEarliestArrival(origin, destination, earliest);
+                nanos[q] = System.nanoTime() - start;
+                if (journey != null) {
+                    found++;
+                    legs += journey.getFlights().size();
+                }
+            }
+            Arrays.sort(nanos);
+            System.out.printf("Round %d: %,d of %,d found (%.1f legs on average), median %.1f us, p99 %.1f us, max %.1f us%n",
+                    round + 1, found, QUERIES, found == 0 ? 0.0 : (double) legs / found,
+                    nanos[QUERIES / 2] / 1e3, nanos[QUERIES * 99 / 100] / 1e3, nanos[QUERIES - 1] / 1e3);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package flight.reservation.example;
+
+import flight.reservation.Airport;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.flight.SeatReservations;
+import flight.reservation.plane.AircraftFactory;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures all-or-nothing reservations when many threads book overlapping legs of the same chain of flights.
+ * Every successful reservation is released again, so the flights stay contended for the whole run.
+ */
+public class MultiLegReservationBenchmark {
+
+    private static final int LEGS = 8;
+    private static final long RUN_MILLIS = 2000;
+
+    public static void main(String[] args) throws Exception {
+        List<ScheduledFlight> chain = createChain();
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= Math.max(16, cores); threads *= 2) {
+            run(chain, threads);
+        }
+        for (ScheduledFlight flight : chain) {
+            if (flight.getAvailableCapacity() != flight.getCapacity()) {
+                throw new IllegalStateException("Seats leaked on flight " + flight.getNumber());
+            }
+        }
+    }
+
+    private static void run(List<ScheduledFlight> chain, int threads) throws InterruptedException {
+        LongAdder reserved = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RUN_MILLIS);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < deadline) {
+                    int first = random.nextInt(LEGS);
+                    int last = Math.min(LEGS, first + 1 + random.nextInt(3));
+                    List<ScheduledFlight> legs = chain.subList(first, last);
+                    int seats = 1 + random.nextInt(4);
+                    if (SeatReservations.reserveAll(legs, seats).isSuccess()) {
+                        reserved.increment();
+                        SeatReservations.releaseAll(legs, seats);
+                    } else {
+                        rejected.increment();
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = RUN_MILLIS / 1000.0;
+        System.out.printf("%2d threads: %,12.0f orders/s reserved, %,12.0f orders/s rejected%n",
+                threads, reserved.sum() / seconds, rejected.sum() / seconds);
+    }
+
+    // BER -> FRA -> ... with small planes, so that multi leg orders regularly find one leg full
+    private static List<ScheduledFlight> createChain() {
+        List<ScheduledFlight> chain = new ArrayList<>();
+        Date departure = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+        Airport from = new Airport("Airport 0", "A00", "Nowhere");
+        for (int i = 0; i < LEGS; i++) {
+            Airport to = new Airport("Airport " + (i + 1), String.format("A%02d", i + 1), "Nowhere");
+            chain.add(new ScheduledFlight(i + 1, from, to, AircraftFactory.createPlane("Embraer 190"),
+                    new Date(departure.getTime() + TimeUnit.HOURS.toMillis(2 * i))));
+            from = to;
+        }
+        return chain;
+    }
+}
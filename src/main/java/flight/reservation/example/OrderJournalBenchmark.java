@@ -0,0 +1,77 @@
+package flight.reservation.example;
+
+import flight.reservation.persistence.OrderJournal;
+import flight.reservation.persistence.OrderRecord;
+import flight.reservation.persistence.PaymentStatus;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends order records from a growing number of threads, once waiting for every record to be forced
+ * (group commit) and once with periodic forcing, and reports records per second and how many records
+ * shared one force.
+ */
+public class OrderJournalBenchmark {
+
+    private static final long RUN_MILLIS = 2000;
+
+    public static void main(String[] args) throws Exception {
+        for (OrderJournal.Durability durability : OrderJournal.Durability.values()) {
+            for (int threads = 1; threads <= 64; threads *= 4) {
+                run(durability, threads);
+            }
+        }
+    }
+
+    private static void run(OrderJournal.Durability durability, int threads) throws Exception {
+        Path directory = Files.createTempDirectory("order-journal-benchmark");
+        OrderRecord record = new OrderRecord(UUID.randomUUID(), "Max Mustermann", "max@example.com",
+                new int[]{1, 2}, new long[]{System.currentTimeMillis(), System.currentTimeMillis()},
+                Arrays.asList("Amanda", "Max"), 240, PaymentStatus.PAID, System.currentTimeMillis());
+        LongAdder appended = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        try (OrderJournal journal = new OrderJournal(directory, durability)) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RUN_MILLIS);
+            for (int t = 0; t < threads; t++) {
+                Thread worker = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    while (System.nanoTime() < deadline) {
+                        journal.append(record);
+                        appended.increment();
+                    }
+                });
+                worker.start();
+                workers.add(worker);
+            }
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            journal.flush();
+            System.out.printf("%-5s %2d threads: %,10.0f records/s, %,8.1f records per force%n", durability, threads,
+                    appended.sum() / (RUN_MILLIS / 1000.0), (double) journal.getAppendCount() / Math.max(1, journal.getForceCount()));
+        } finally {
+            File[] files = directory.toFile().listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            directory.toFile().delete();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package flight.reservation.example;
+
+import flight.reservation.Airport;
+import flight.reservation.flight.Schedule;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.journey.Journey;
+import flight.reservation.journey.SingleFlightJourney;
+import flight.reservation.plane.Aircraft;
+import flight.reservation.plane.AircraftFactory;
+import flight.reservation.search.ItinerarySearch;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the round-based Pareto search with enumerating every journey of up to {@link #MAX_TRANSFERS}
+ * transfers through the schedule and filtering the Pareto set afterwards. Both must find the same trade-offs
+ * between arrival time, price and number of legs.
+ */
+public class ParetoSearchBenchmark {
+
+    private static final int AIRPORTS = 40;
+    private static final int FLIGHTS = 8_000;
+    private static final int QUERIES = 200;
+    private static final int MAX_TRANSFERS = 2;
+    private static final long CONNECTION_MILLIS = ItinerarySearch.DEFAULT_MINIMUM_CONNECTION_TIME.toMillis();
+
+    public static void main(String[] args) {
+        Random random = new Random(7);
+        Airport[] airports = new Airport[AIRPORTS];
+        for (int i = 0; i < AIRPORTS; i++) {
+            airports[i] = new Airport("Airport " + i, String.format("A%02d", i), "Nowhere");
+        }
+        long day = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1);
+        Aircraft aircraft = AircraftFactory.createPlane("A380");
+        List<ScheduledFlight> flights = new ArrayList<>(FLIGHTS);
+        for (int i = 0; i < FLIGHTS; i++) {
+            int from = random.nextInt(AIRPORTS);
+            int to = (from + 1 + random.nextInt(AIRPORTS - 1)) % AIRPORTS;
+            Date departure = new Date(day + random.nextInt((int) TimeUnit.DAYS.toMillis(1)));
+            flights.add(new ScheduledFlight(i, airports[from], airports[to], aircraft, departure, 50 + random.nextInt(400)));
+        }
+        Schedule schedule = new Schedule();
+        schedule.scheduleFlights(flights);
+        ItinerarySearch search = new ItinerarySearch(schedule);
+        search.setMaxTransfers(MAX_TRANSFERS);
+        search.refresh();
+
+        long paretoNanos = 0;
+        long bruteForceNanos = 0;
+        long enumerated = 0;
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            int from = random.nextInt(AIRPORTS);
+            Airport origin = airports[from];
+            Airport destination = airports[(from + 1 + random.nextInt(AIRPORTS - 1)) % AIRPORTS];
+            Date earliest = new Date(day + random.nextInt((int) TimeUnit.HOURS.toMillis(12)));
+
+            long start = System.nanoTime();
+            List<Journey> journeys = search.findParetoOptimal(origin, destination, earliest);
+            paretoNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<double[]> all = new ArrayList<>();
+            enumerate(schedule, origin, destination, earliest.getTime(), 0, 0, all);
+            Set<String> expected = paretoSet(all);
+            bruteForceNanos += System.nanoTime() - start;
+            enumerated += all.size();
+
+            Set<String> actual = new TreeSet<>();
+            for (Journey journey : journeys) {
+                actual.add(criteria(journey.getArrivalTime().getTime(), journey.getPrice(), journey.getFlights().size()));
+            }
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException("Pareto sets differ from " + origin.getCode() + " to "
+                        + destination.getCode() + ": expected " + expected + " but found " + actual);
+            }
+            found += journeys.size();
+        }
+        System.out.printf("%d queries, %.1f Pareto-optimal journeys on average out of %,d enumerated%n",
+                QUERIES, (double) found / QUERIES, enumerated / QUERIES);
+        System.out.printf("Round-based search: %8.3f ms per query%n", paretoNanos / 1e6 / QUERIES);
+        System.out.printf("Enumeration:        %8.3f ms per query%n", bruteForceNanos / 1e6 / QUERIES);
+    }
+
+    // collects {arrival, price, legs} of every journey reaching the destination
+    private static void enumerate(Schedule schedule, Airport at, Airport destination, long ready, double price, int legs,
+                                  List<double[]> journeys) {
+        if (legs > MAX_TRANSFERS) {
+            return;
+        }
+        for (ScheduledFlight flight : schedule.searchDepartures(at, new Date(ready), new Date(Long.MAX_VALUE))) {
+            long arrival = SingleFlightJourney.estimateArrivalTime(flight);
+            double total = price + flight.getCurrentPrice();
+            if (flight.getArrival().getCode().equals(destination.getCode())) {
+                journeys.add(new double[]{arrival, total, legs + 1});
+            } else {
+                enumerate(schedule, flight.getArrival(), destination, arrival + CONNECTION_MILLIS, total, legs + 1, journeys);
+            }
+        }
+    }
+
+    private static Set<String> paretoSet(List<double[]> journeys) {
+        Set<String> pareto = new TreeSet<>();
+        for (double[] journey : journeys) {
+            boolean dominated = false;
+            for (double[] other : journeys) {
+                if (other[0] <= journey[0] && other[1] <= journey[1] && other[2] <= journey[2]
+                        && (other[0] < journey[0] || other[1] < journey[1] || other[2] < journey[2])) {
+                    dominated = true;
+                    break;
+                }
+            }
+            if (!dominated) {
+                pareto.add(criteria((long) journey[0], journey[1], (int) journey[2]));
+            }
+        }
+        return pareto;
+    }
+
+    private static String criteria(long arrival, double price, int legs) {
+        return arrival + "/" + price + "/" + legs;
+    }
+}
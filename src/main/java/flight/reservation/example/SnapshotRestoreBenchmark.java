@@ -0,0 +1,135 @@
+package flight.reservation.example;
+
+import flight.reservation.Airport;
+import flight.reservation.Customer;
+import flight.reservation.Passenger;
+import flight.reservation.flight.Schedule;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.order.FlightOrder;
+import flight.reservation.order.Order;
+import flight.reservation.persistence.OrderJournal;
+import flight.reservation.persistence.OrderRecord;
+import flight.reservation.persistence.OrderRecovery;
+import flight.reservation.persistence.PaymentStatus;
+import flight.reservation.persistence.SnapshotManager;
+import flight.reservation.plane.PassengerPlane;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Builds a state with two million orders, snapshots it, appends a journal tail and measures how long a
+ * restart from the snapshot plus the tail takes.
+ */
+public class SnapshotRestoreBenchmark {
+
+    private static final int FLIGHTS = 4_000;
+    private static final int ORDERS_PER_FLIGHT = 500;
+    private static final int ORDERS_PER_CUSTOMER = 2;
+    private static final int TAIL_ORDERS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("snapshot-benchmark");
+        try {
+            run(directory);
+        } finally {
+            delete(directory.toFile());
+        }
+    }
+
+    private static void run(Path directory) throws Exception {
+        Schedule schedule = new Schedule();
+        List<Customer> customers = new ArrayList<>();
+        createState(schedule, customers);
+        System.out.printf("State: %,d flights, %,d customers, %,d orders%n",
+                schedule.getScheduledFlights().size(), customers.size(), FLIGHTS * ORDERS_PER_FLIGHT);
+
+        Path snapshots = directory.resolve("snapshots");
+        try (OrderJournal journal = new OrderJournal(directory.resolve("journal"), OrderJournal.Durability.ASYNC);
+             SnapshotManager manager = new SnapshotManager(snapshots, journal, schedule, () -> customers)) {
+            long start = System.nanoTime();
+            Path file = manager.snapshot().join();
+            System.out.printf("Snapshot written in %,d ms, %,d MB%n",
+                    (System.nanoTime() - start) / 1_000_000, Files.size(file) / (1024 * 1024));
+
+            // orders after the snapshot go to the empty flights, which are part of the snapshot
+            for (int i = 0; i < TAIL_ORDERS; i++) {
+                int number = FLIGHTS + 1 + i / ORDERS_PER_FLIGHT;
+                journal.append(new OrderRecord(Order.getIdGenerator().nextId(), "Tail " + i, "tail" + i + "@example.com",
+                        new int[]{number}, new long[]{departureTime(number)}, Collections.singletonList("Passenger " + i),
+                        100, PaymentStatus.PAID, System.currentTimeMillis()));
+            }
+            journal.flush();
+        }
+
+        customers.clear();
+        schedule.clear();
+        System.gc();
+
+        try (OrderJournal journal = new OrderJournal(directory.resolve("journal"), OrderJournal.Durability.ASYNC)) {
+            long start = System.nanoTime();
+            OrderRecovery recovery = SnapshotManager.recover(snapshots, journal, new Schedule());
+            System.out.printf("Restored snapshot plus %,d journal records in %,d ms: %,d orders, %,d skipped%n",
+                    TAIL_ORDERS, (System.nanoTime() - start) / 1_000_000, recovery.getOrders().size(),
+                    recovery.getSkippedCount());
+        }
+    }
+
+    private static void createState(Schedule schedule, List<Customer> customers) {
+        Airport berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        Airport frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        List<ScheduledFlight> flights = new ArrayList<>(FLIGHTS);
+        for (int number = 1; number <= FLIGHTS + TAIL_ORDERS / ORDERS_PER_FLIGHT; number++) {
+            flights.add(new ScheduledFlight(number, berlin, frankfurt, new PassengerPlane("A380"),
+                    new Date(departureTime(number))));
+        }
+        schedule.scheduleFlights(flights);
+        flights = flights.subList(0, FLIGHTS);
+
+        List<Order> orders = new ArrayList<>();
+        Customer customer = null;
+        for (ScheduledFlight flight : flights) {
+            List<Passenger> passengers = new ArrayList<>(ORDERS_PER_FLIGHT);
+            for (int i = 0; i < ORDERS_PER_FLIGHT; i++) {
+                if (orders.size() % ORDERS_PER_CUSTOMER == 0) {
+                    if (customer != null) {
+                        customer.setOrders(new CopyOnWriteArrayList<>(orders));
+                    }
+                    orders.clear();
+                    customer = new Customer("Customer " + customers.size(), "customer" + customers.size() + "@example.com");
+                    customers.add(customer);
+                }
+                Passenger passenger = new Passenger("Passenger " + flight.getNumber() + "/" + i);
+                passengers.add(passenger);
+                FlightOrder order = new FlightOrder(Collections.singletonList(flight));
+                order.setCustomer(customer);
+                order.setPrice(flight.getCurrentPrice());
+                order.setPassengers(Collections.singletonList(passenger));
+                order.setClosed();
+                orders.add(order);
+            }
+            flight.addPassengers(passengers);
+        }
+        customer.setOrders(new CopyOnWriteArrayList<>(orders));
+    }
+
+    private static long departureTime(int number) {
+        return 1_900_000_000_000L + number * 60_000L;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,79 @@
+package flight.reservation.example;
+
+import flight.reservation.Airport;
+import flight.reservation.Customer;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.order.BookingService;
+import flight.reservation.order.FlightOrder;
+import flight.reservation.payment.PaymentGateway;
+import flight.reservation.payment.PaypalPaymentStrategy;
+import flight.reservation.payment.SimulatedPaymentGateway;
+import flight.reservation.plane.PassengerPlane;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Books 10,000 orders at once whose payments each block for 200 ms, on pools of platform threads and on
+ * virtual threads, and reports the time until all are paid and the peak number of live threads.
+ * Virtual threads need JDK 21 or newer; on older JDKs that run is skipped.
+ */
+public class VirtualThreadLoadTest {
+
+    private static final int BOOKINGS = 10_000;
+    private static final Duration PAYMENT_LATENCY = Duration.ofMillis(200);
+
+    public static void main(String[] args) throws Exception {
+        // the payment strategies print every payment
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int threads : new int[]{200, 1_000}) {
+                run(out, "platform threads, pool of " + threads, BookingService.withPlatformThreads(threads));
+            }
+            if (BookingService.isVirtualThreadSupported()) {
+                run(out, "virtual threads", BookingService.withVirtualThreads());
+            } else {
+                out.println("virtual threads: skipped, running JDK " + System.getProperty("java.version"));
+            }
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    private static void run(PrintStream out, String name, BookingService service) throws Exception {
+        Airport berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        Airport frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        List<ScheduledFlight> flights = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS / 500; i++) {
+            flights.add(new ScheduledFlight(i + 1, berlin, frankfurt, new PassengerPlane("A380"), new Date()));
+        }
+        PaymentGateway gateway = new SimulatedPaymentGateway(PAYMENT_LATENCY);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<FlightOrder>> bookings = new ArrayList<>(BOOKINGS);
+        try (service) {
+            for (int i = 0; i < BOOKINGS; i++) {
+                Customer customer = new Customer("Customer " + i, "amanda@ya.com");
+                bookings.add(service.book(customer, Collections.singletonList("Passenger " + i),
+                        Collections.singletonList(flights.get(i % flights.size())), 100,
+                        new PaypalPaymentStrategy("amanda@ya.com", "amanda1985", gateway)));
+            }
+            CompletableFuture.allOf(bookings.toArray(new CompletableFuture<?>[0])).join();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        long paid = bookings.stream().filter(booking -> booking.join().isClosed()).count();
+        out.printf("%-32s %,6d ms, %,8.0f bookings/s, %,d paid, peak %,d live threads%n", name + ":", millis,
+                BOOKINGS * 1000.0 / millis, paid, threads.getPeakThreadCount());
+    }
+}
@@ -0,0 +1,35 @@
+package flight.reservation.flight;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Schedule that can be shared between booking threads. Readers work on an immutable snapshot of
+ * the index and never block; writers copy the current snapshot, apply their change and publish
+ * the copy. Lists returned by the search methods are therefore stable snapshots, not live views.
+ * <p>
+ * Writes cost a copy of the index, so whole schedules should be loaded with
+ * {@link #scheduleFlights(java.util.Collection)} rather than flight by flight.
+ */
+public class ConcurrentSchedule extends Schedule {
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile ScheduleIndex snapshot = new ScheduleIndex();
+
+    @Override
+    ScheduleIndex readIndex() {
+        return snapshot;
+    }
+
+    @Override
+    void writeIndex(Consumer<ScheduleIndex> update) {
+        writeLock.lock();
+        try {
+            ScheduleIndex next = snapshot.copy();
+            update.accept(next);
+            snapshot = next;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
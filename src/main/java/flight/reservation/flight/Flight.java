@@ -11,6 +11,7 @@ public class Flight {
     private Airport departure;
     private Airport arrival;
     protected Aircraft aircraft;
+    private final Route route;
 
     public Flight(int number, Airport departure, Airport arrival, Aircraft aircraft) throws IllegalArgumentException {
         this.number = number;
@@ -18,10 +19,11 @@ public class Flight {
         this.arrival = arrival;
         this.aircraft = aircraft;
         checkValidity();
+        this.route = Route.of(departure, arrival);
     }
 
     private void checkValidity() throws IllegalArgumentException {
-        if (isAircraftValid(departure) && isAircraftValid(arrival)) {
+        if (!(isAircraftValid(departure) && isAircraftValid(arrival))) {
             throw new IllegalArgumentException("Selected aircraft is not valid for the selected route.");
         }
     }
@@ -47,6 +49,10 @@ public class Flight {
         return arrival;
     }
 
+    public Route getRoute() {
+        return route;
+    }
+
     @Override
     public String toString() {
         return aircraft.getModel() + "-" + number + "-" + departure.getCode() + "/" + arrival.getCode();
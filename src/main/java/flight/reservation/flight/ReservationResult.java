@@ -0,0 +1,14 @@
+package flight.reservation.flight;
+
+/**
+ * Outcome of a seat reservation on a {@link ScheduledFlight}.
+ */
+public enum ReservationResult {
+    RESERVED,
+    INSUFFICIENT_CAPACITY,
+    UNKNOWN_CAPACITY;
+
+    public boolean isSuccess() {
+        return this == RESERVED;
+    }
+}
@@ -0,0 +1,53 @@
+package flight.reservation.flight;
+
+import flight.reservation.Airport;
+
+import java.util.Objects;
+
+/**
+ * A (departure code, arrival code) pair, used as key for route lookups.
+ */
+public final class Route {
+
+    private final String departureCode;
+    private final String arrivalCode;
+
+    public Route(String departureCode, String arrivalCode) {
+        this.departureCode = Objects.requireNonNull(departureCode);
+        this.arrivalCode = Objects.requireNonNull(arrivalCode);
+    }
+
+    public static Route of(Airport departure, Airport arrival) {
+        return new Route(departure.getCode(), arrival.getCode());
+    }
+
+    public String getDepartureCode() {
+        return departureCode;
+    }
+
+    public String getArrivalCode() {
+        return arrivalCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Route)) {
+            return false;
+        }
+        Route route = (Route) o;
+        return departureCode.equals(route.departureCode) && arrivalCode.equals(route.arrivalCode);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * departureCode.hashCode() + arrivalCode.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return departureCode + "/" + arrivalCode;
+    }
+}
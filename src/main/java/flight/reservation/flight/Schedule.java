@@ -1,52 +1,104 @@
 package flight.reservation.flight;
 
-import java.util.ArrayList;
+import flight.reservation.Airport;
+
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 public class Schedule {
 
-    private List<ScheduledFlight> scheduledFlights;
-
+    private final ScheduleIndex index;
+    private final AtomicLong version = new AtomicLong();
 
     public Schedule() {
-        scheduledFlights = new ArrayList<>();
+        index = new ScheduleIndex();
     }
 
+    /**
+     * Read-only view of all scheduled flights in the order they were scheduled.
+     */
     public List<ScheduledFlight> getScheduledFlights() {
-        return scheduledFlights;
+        return readIndex().getFlights();
     }
 
     public void scheduleFlight(Flight flight, Date date) {
         ScheduledFlight scheduledFlight = new ScheduledFlight(flight.getNumber(), flight.getDeparture(), flight.getArrival(), flight.getAircraft(), date);
-        scheduledFlights.add(scheduledFlight);
+        update(index -> index.add(scheduledFlight));
+    }
+
+    /**
+     * Adds already scheduled flights in one go, e.g. when loading a whole day's schedule.
+     */
+    public void scheduleFlights(Collection<ScheduledFlight> scheduledFlights) {
+        update(index -> scheduledFlights.forEach(index::add));
     }
 
     public void removeFlight(Flight flight) {
-        List<ScheduledFlight> tbr = new ArrayList<>();
-        for (ScheduledFlight scheduledFlight : scheduledFlights) {
-            if (scheduledFlight == flight ||
-                    (flight.getArrival() == scheduledFlight.getArrival() &&
-                            flight.getDeparture() == scheduledFlight.getDeparture() &&
-                            flight.getNumber() == scheduledFlight.getNumber())) {
-                tbr.add(scheduledFlight);
-            }
-        }
-        scheduledFlights.removeAll(tbr);
+        update(index -> index.removeMatching(flight));
     }
 
     public void removeScheduledFlight(ScheduledFlight flight) {
-        scheduledFlights.remove(flight);
+        update(index -> index.remove(flight));
     }
 
     public ScheduledFlight searchScheduledFlight(int flightNumber) {
-        return scheduledFlights.stream()
-                .filter(f -> f.getNumber() == flightNumber)
-                .findFirst()
-                .orElse(null);
+        return readIndex().findFirst(flightNumber);
+    }
+
+    public List<ScheduledFlight> searchScheduledFlights(int flightNumber) {
+        return readIndex().findByNumber(flightNumber);
+    }
+
+    public List<ScheduledFlight> searchScheduledFlights(Route route) {
+        return readIndex().findByRoute(route);
+    }
+
+    /**
+     * All flights departing at or after {@code from} and before {@code to}, ordered by departure time.
+     */
+    public List<ScheduledFlight> searchScheduledFlights(Date from, Date to) {
+        return readIndex().findByDepartureTime(from.getTime(), to.getTime());
+    }
+
+    /**
+     * All flights leaving {@code departure} at or after {@code from} and before {@code to}, ordered by departure time.
+     */
+    public List<ScheduledFlight> searchDepartures(Airport departure, Date from, Date to) {
+        return readIndex().findByDepartureAirport(departure.getCode(), from.getTime(), to.getTime());
+    }
+
+    /**
+     * All flights into {@code arrival} departing at or after {@code from} and before {@code to}, ordered by departure time.
+     */
+    public List<ScheduledFlight> searchArrivals(Airport arrival, Date from, Date to) {
+        return readIndex().findByArrivalAirport(arrival.getCode(), from.getTime(), to.getTime());
     }
 
     public void clear() {
-        scheduledFlights.clear();
+        update(ScheduleIndex::clear);
+    }
+
+    /**
+     * Incremented by every change of the schedule, so that structures derived from it can tell they are stale.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    private void update(Consumer<ScheduleIndex> change) {
+        writeIndex(change);
+        version.incrementAndGet();
+    }
+
+    // Hooks for subclasses that change how the index is published to readers
+    ScheduleIndex readIndex() {
+        return index;
+    }
+
+    void writeIndex(Consumer<ScheduleIndex> update) {
+        update.accept(index);
     }
 }
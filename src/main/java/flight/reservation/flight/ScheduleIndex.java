@@ -0,0 +1,243 @@
+package flight.reservation.flight;
+
+import flight.reservation.util.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Lookup structures behind a {@link Schedule}. Every scheduled flight is kept in insertion order
+ * and additionally indexed by flight number, route and departure time, the latter both globally
+ * and per departure and arrival airport. Not thread-safe.
+ */
+class ScheduleIndex {
+
+    private final List<ScheduledFlight> flights;
+    private final List<ScheduledFlight> flightsView;
+    private final IntObjectHashMap<List<ScheduledFlight>> byNumber;
+    private final Map<Route, List<ScheduledFlight>> byRoute;
+    private final NavigableMap<Long, List<ScheduledFlight>> byDepartureTime;
+    private final Map<String, NavigableMap<Long, List<ScheduledFlight>>> byDepartureAirport;
+    private final Map<String, NavigableMap<Long, List<ScheduledFlight>>> byArrivalAirport;
+
+    ScheduleIndex() {
+        flights = new ArrayList<>();
+        byNumber = new IntObjectHashMap<>();
+        byRoute = new HashMap<>();
+        byDepartureTime = new TreeMap<>();
+        byDepartureAirport = new HashMap<>();
+        byArrivalAirport = new HashMap<>();
+        flightsView = Collections.unmodifiableList(flights);
+    }
+
+    private ScheduleIndex(ScheduleIndex other) {
+        flights = new ArrayList<>(other.flights);
+        byNumber = other.byNumber.copy();
+        byNumber.replaceAll(ArrayList::new);
+        byRoute = new HashMap<>(other.byRoute);
+        byRoute.replaceAll((route, bucket) -> new ArrayList<>(bucket));
+        byDepartureTime = copyTimeIndex(other.byDepartureTime);
+        byDepartureAirport = new HashMap<>(other.byDepartureAirport);
+        byDepartureAirport.replaceAll((code, timeIndex) -> copyTimeIndex(timeIndex));
+        byArrivalAirport = new HashMap<>(other.byArrivalAirport);
+        byArrivalAirport.replaceAll((code, timeIndex) -> copyTimeIndex(timeIndex));
+        flightsView = Collections.unmodifiableList(flights);
+    }
+
+    /**
+     * Deep copy of all indexes; the scheduled flights themselves are shared.
+     */
+    ScheduleIndex copy() {
+        return new ScheduleIndex(this);
+    }
+
+    void add(ScheduledFlight flight) {
+        flights.add(flight);
+        List<ScheduledFlight> sameNumber = byNumber.get(flight.getNumber());
+        if (sameNumber == null) {
+            sameNumber = new ArrayList<>(1);
+            byNumber.put(flight.getNumber(), sameNumber);
+        }
+        sameNumber.add(flight);
+        byRoute.computeIfAbsent(flight.getRoute(), route -> new ArrayList<>()).add(flight);
+        Long departure = departureKey(flight);
+        addTimed(byDepartureTime, departure, flight);
+        addTimed(byDepartureAirport.computeIfAbsent(flight.getDeparture().getCode(), code -> new TreeMap<>()), departure, flight);
+        addTimed(byArrivalAirport.computeIfAbsent(flight.getArrival().getCode(), code -> new TreeMap<>()), departure, flight);
+    }
+
+    boolean remove(ScheduledFlight flight) {
+        if (!removeFromBuckets(flight)) {
+            return false;
+        }
+        flights.remove(flight);
+        return true;
+    }
+
+    /**
+     * Removes every scheduled instance of the given flight, i.e. the flight itself if it is a
+     * {@link ScheduledFlight}, and all scheduled flights with the same number and route.
+     */
+    List<ScheduledFlight> removeMatching(Flight flight) {
+        List<ScheduledFlight> sameNumber = byNumber.get(flight.getNumber());
+        if (sameNumber == null) {
+            return Collections.emptyList();
+        }
+        List<ScheduledFlight> removed = new ArrayList<>();
+        for (ScheduledFlight scheduledFlight : sameNumber) {
+            if (scheduledFlight == flight ||
+                    (flight.getArrival() == scheduledFlight.getArrival() &&
+                            flight.getDeparture() == scheduledFlight.getDeparture())) {
+                removed.add(scheduledFlight);
+            }
+        }
+        if (removed.isEmpty()) {
+            return removed;
+        }
+        Set<ScheduledFlight> toRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+        toRemove.addAll(removed);
+        for (ScheduledFlight scheduledFlight : removed) {
+            removeFromBuckets(scheduledFlight);
+        }
+        flights.removeIf(toRemove::contains);
+        return removed;
+    }
+
+    ScheduledFlight findFirst(int flightNumber) {
+        List<ScheduledFlight> sameNumber = byNumber.get(flightNumber);
+        return sameNumber == null ? null : sameNumber.get(0);
+    }
+
+    List<ScheduledFlight> findByNumber(int flightNumber) {
+        return view(byNumber.get(flightNumber));
+    }
+
+    List<ScheduledFlight> findByRoute(Route route) {
+        return view(byRoute.get(route));
+    }
+
+    /**
+     * All flights departing in the half-open interval [{@code from}, {@code to}), ordered by departure time.
+     */
+    List<ScheduledFlight> findByDepartureTime(long from, long to) {
+        return findInWindow(byDepartureTime, from, to);
+    }
+
+    /**
+     * Flights leaving the given airport with a departure time in [{@code from}, {@code to}).
+     */
+    List<ScheduledFlight> findByDepartureAirport(String airportCode, long from, long to) {
+        return findInWindow(byDepartureAirport.get(airportCode), from, to);
+    }
+
+    /**
+     * Flights into the given airport with a departure time in [{@code from}, {@code to}).
+     */
+    List<ScheduledFlight> findByArrivalAirport(String airportCode, long from, long to) {
+        return findInWindow(byArrivalAirport.get(airportCode), from, to);
+    }
+
+    /**
+     * Read-only view of all flights in insertion order.
+     */
+    List<ScheduledFlight> getFlights() {
+        return flightsView;
+    }
+
+    int size() {
+        return flights.size();
+    }
+
+    void clear() {
+        flights.clear();
+        byNumber.clear();
+        byRoute.clear();
+        byDepartureTime.clear();
+        byDepartureAirport.clear();
+        byArrivalAirport.clear();
+    }
+
+    private boolean removeFromBuckets(ScheduledFlight flight) {
+        List<ScheduledFlight> sameNumber = byNumber.get(flight.getNumber());
+        if (sameNumber == null || !removeIdentical(sameNumber, flight)) {
+            return false;
+        }
+        if (sameNumber.isEmpty()) {
+            byNumber.remove(flight.getNumber());
+        }
+        Route route = flight.getRoute();
+        List<ScheduledFlight> sameRoute = byRoute.get(route);
+        if (sameRoute != null && removeIdentical(sameRoute, flight) && sameRoute.isEmpty()) {
+            byRoute.remove(route);
+        }
+        Long departure = departureKey(flight);
+        removeTimed(byDepartureTime, departure, flight);
+        removeTimed(byDepartureAirport, flight.getDeparture().getCode(), departure, flight);
+        removeTimed(byArrivalAirport, flight.getArrival().getCode(), departure, flight);
+        return true;
+    }
+
+    private static NavigableMap<Long, List<ScheduledFlight>> copyTimeIndex(NavigableMap<Long, List<ScheduledFlight>> timeIndex) {
+        NavigableMap<Long, List<ScheduledFlight>> copy = new TreeMap<>(timeIndex);
+        copy.replaceAll((time, bucket) -> new ArrayList<>(bucket));
+        return copy;
+    }
+
+    private static void addTimed(NavigableMap<Long, List<ScheduledFlight>> timeIndex, Long time, ScheduledFlight flight) {
+        timeIndex.computeIfAbsent(time, t -> new ArrayList<>(1)).add(flight);
+    }
+
+    private static void removeTimed(NavigableMap<Long, List<ScheduledFlight>> timeIndex, Long time, ScheduledFlight flight) {
+        List<ScheduledFlight> sameTime = timeIndex.get(time);
+        if (sameTime != null && removeIdentical(sameTime, flight) && sameTime.isEmpty()) {
+            timeIndex.remove(time);
+        }
+    }
+
+    private static void removeTimed(Map<String, NavigableMap<Long, List<ScheduledFlight>>> airportIndex, String airportCode,
+                                    Long time, ScheduledFlight flight) {
+        NavigableMap<Long, List<ScheduledFlight>> timeIndex = airportIndex.get(airportCode);
+        if (timeIndex != null) {
+            removeTimed(timeIndex, time, flight);
+            if (timeIndex.isEmpty()) {
+                airportIndex.remove(airportCode);
+            }
+        }
+    }
+
+    private static List<ScheduledFlight> findInWindow(NavigableMap<Long, List<ScheduledFlight>> timeIndex, long from, long to) {
+        if (timeIndex == null || from >= to) {
+            return Collections.emptyList();
+        }
+        List<ScheduledFlight> result = new ArrayList<>();
+        for (List<ScheduledFlight> sameTime : timeIndex.subMap(from, true, to, false).values()) {
+            result.addAll(sameTime);
+        }
+        return result;
+    }
+
+    private static boolean removeIdentical(List<ScheduledFlight> bucket, ScheduledFlight flight) {
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i) == flight) {
+                bucket.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Long departureKey(ScheduledFlight flight) {
+        return flight.getDepartureTime().getTime();
+    }
+
+    private static List<ScheduledFlight> view(List<ScheduledFlight> bucket) {
+        return bucket == null ? Collections.emptyList() : Collections.unmodifiableList(bucket);
+    }
+}
@@ -2,50 +2,179 @@ package flight.reservation.flight;
 
 import flight.reservation.Airport;
 import flight.reservation.Passenger;
+import flight.reservation.observer.FlightEventBus;
+import flight.reservation.observer.FlightEventType;
+import flight.reservation.observer.FlightNotification;
 import flight.reservation.observer.FlightObserver;
 import flight.reservation.observer.FlightSubject;
+import flight.reservation.observer.NotificationDispatcher;
 import flight.reservation.plane.Aircraft;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ScheduledFlight extends Flight implements FlightSubject {
 
+    private static final int UNKNOWN_CAPACITY = -1;
+    private static final AtomicIntegerFieldUpdater<ScheduledFlight> OCCUPIED_SEATS =
+            AtomicIntegerFieldUpdater.newUpdater(ScheduledFlight.class, "occupiedSeats");
+
     private final List<Passenger> passengers;
+    private final int capacity;
+    private final SeatMap seatMap;
+    // seats taken by reservations, including those whose passengers are not added yet
+    private volatile int occupiedSeats;
     private final Date departureTime;
-    private double currentPrice = 100;
-    private final List<FlightObserver> observers = new ArrayList<>();
+    private volatile double currentPrice = 100;
+    private final CopyOnWriteArrayList<FlightObserver> observers = new CopyOnWriteArrayList<>();
+    // Serializes writers of the passenger and observer lists. The lists lock a monitor internally; with the
+    // lock taken first that monitor is never contended, so waiting virtual threads park instead of pinning
+    // their carrier thread.
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile NotificationDispatcher notificationDispatcher = NotificationDispatcher.SYNCHRONOUS;
+    private volatile FlightEventBus eventBus;
 
     public ScheduledFlight(int number, Airport departure, Airport arrival, Aircraft aircraft, Date departureTime) {
         super(number, departure, arrival, aircraft);
         this.departureTime = departureTime;
-        this.passengers = new ArrayList<>();
+        this.passengers = new CopyOnWriteArrayList<>();
+        this.capacity = passengerCapacity(aircraft);
+        this.seatMap = new SeatMap(Math.max(capacity, 0));
     }
 
     public ScheduledFlight(int number, Airport departure, Airport arrival, Aircraft aircraft, Date departureTime, double currentPrice) {
         super(number, departure, arrival, aircraft);
         this.departureTime = departureTime;
-        this.passengers = new ArrayList<>();
+        this.passengers = new CopyOnWriteArrayList<>();
+        this.capacity = passengerCapacity(aircraft);
+        this.seatMap = new SeatMap(Math.max(capacity, 0));
         this.currentPrice = currentPrice;
     }
 
     @Override
     public void registerObserver(FlightObserver observer) {
-        if (!observers.contains(observer)) {
-            observers.add(observer);
+        FlightEventBus bus = eventBus;
+        if (bus != null) {
+            bus.subscribe(this, observer);
+            return;
+        }
+        writeLock.lock();
+        try {
+            // setEventBus may have moved the observers while this waited for the lock
+            bus = eventBus;
+            if (bus != null) {
+                bus.subscribe(this, observer);
+            } else {
+                observers.addIfAbsent(observer);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Registers many observers at once, copying the observer list only once instead of once per observer.
+     */
+    public void registerObservers(Collection<? extends FlightObserver> newObservers) {
+        FlightEventBus bus = eventBus;
+        if (bus != null) {
+            newObservers.forEach(observer -> bus.subscribe(this, observer));
+            return;
+        }
+        writeLock.lock();
+        try {
+            FlightEventBus current = eventBus;
+            if (current != null) {
+                newObservers.forEach(observer -> current.subscribe(this, observer));
+                return;
+            }
+            Set<FlightObserver> registered = new HashSet<>(observers);
+            List<FlightObserver> added = new ArrayList<>();
+            for (FlightObserver observer : newObservers) {
+                if (registered.add(observer)) {
+                    added.add(observer);
+                }
+            }
+            observers.addAll(added);
+        } finally {
+            writeLock.unlock();
         }
     }
 
     @Override
     public void removeObserver(FlightObserver observer) {
-        observers.remove(observer);
+        writeLock.lock();
+        try {
+            FlightEventBus bus = eventBus;
+            if (bus != null) {
+                bus.unsubscribe(this, observer);
+            } else {
+                observers.remove(observer);
+            }
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     @Override
     public void notifyObservers(String message) {
-        for (FlightObserver observer : observers) {
-            observer.update(this, message);
+        FlightEventBus bus = eventBus;
+        if (bus != null) {
+            bus.publishMessage(this, message);
+        } else {
+            notifyObservers(FlightNotification.message(this, message));
+        }
+    }
+
+    private void notifyObservers(FlightEventType type, double oldValue, double newValue) {
+        FlightEventBus bus = eventBus;
+        if (bus != null) {
+            bus.publish(this, type, oldValue, newValue);
+        } else if (!observers.isEmpty()) {
+            notifyObservers(new FlightNotification(this, type, oldValue, newValue));
+        }
+    }
+
+    private void notifyObservers(FlightNotification notification) {
+        notificationDispatcher.dispatch(notification, observers);
+    }
+
+    /**
+     * Sets how notifications reach the observers, e.g. an {@link flight.reservation.observer.AsyncNotificationDispatcher}
+     * to keep slow observers off the booking thread. Defaults to {@link NotificationDispatcher#SYNCHRONOUS}.
+     */
+    public void setNotificationDispatcher(NotificationDispatcher notificationDispatcher) {
+        this.notificationDispatcher = notificationDispatcher;
+    }
+
+    /**
+     * Publishes all further changes to the given bus instead of notifying a per-flight observer list.
+     * Observers registered so far are moved to the bus before it is used, so they miss no change.
+     *
+     * @throws IllegalStateException if the flight already publishes to another bus
+     */
+    public void setEventBus(FlightEventBus eventBus) {
+        Objects.requireNonNull(eventBus, "eventBus");
+        writeLock.lock();
+        try {
+            if (this.eventBus != null && this.eventBus != eventBus) {
+                throw new IllegalStateException("Flight " + getNumber() + " already publishes to another event bus");
+            }
+            for (FlightObserver observer : observers) {
+                eventBus.subscribe(this, observer);
+            }
+            this.eventBus = eventBus;
+            observers.clear();
+        } finally {
+            writeLock.unlock();
         }
     }
 
@@ -53,29 +182,133 @@ public class ScheduledFlight extends Flight implements FlightSubject {
         Date oldDepartureTime = this.departureTime;
         // Since departureTime is final, we would need to create a new ScheduledFlight
         // For this example, let's just pretend we updated it
-        notifyObservers("Flight " + getNumber() + " departure time changed from " +
-                oldDepartureTime + " to " + newDepartureTime);
+        notifyObservers(FlightEventType.DEPARTURE_TIME_CHANGED, oldDepartureTime.getTime(), newDepartureTime.getTime());
     }
 
     public void setCurrentPrice(double currentPrice) {
         double oldPrice = this.currentPrice;
         this.currentPrice = currentPrice;
-        notifyObservers("Flight " + getNumber() + " price changed from " +
-                oldPrice + " to " + currentPrice);
+        notifyObservers(FlightEventType.PRICE_CHANGED, oldPrice, currentPrice);
     }
 
+    /**
+     * Takes seats for the passengers without checking the capacity.
+     */
     public void addPassengers(List<Passenger> newPassengers) {
-        this.passengers.addAll(newPassengers);
-        notifyObservers("New passengers added to flight " + getNumber());
+        int taken = OCCUPIED_SEATS.getAndAdd(this, newPassengers.size());
+        assignSeats(taken, taken + newPassengers.size());
+        addReservedPassengers(newPassengers);
+    }
+
+    /**
+     * Reserves seats for the passengers and adds them, or leaves the flight untouched if it has not enough seats left.
+     */
+    public ReservationResult bookPassengers(List<Passenger> newPassengers) {
+        ReservationResult result = reserveSeats(newPassengers.size());
+        if (result.isSuccess()) {
+            addReservedPassengers(newPassengers);
+        }
+        return result;
+    }
+
+    /**
+     * Adds passengers whose seats were already taken with {@link #reserveSeats(int)}.
+     */
+    public void addReservedPassengers(List<Passenger> newPassengers) {
+        int count;
+        writeLock.lock();
+        try {
+            this.passengers.addAll(newPassengers);
+            count = passengers.size();
+        } finally {
+            writeLock.unlock();
+        }
+        notifyObservers(FlightEventType.PASSENGERS_ADDED, count - newPassengers.size(), count);
     }
 
     public void removePassengers(List<Passenger> removedPassengers) {
-        this.passengers.removeAll(removedPassengers);
-        notifyObservers("Passengers removed from flight " + getNumber());
+        int removed = 0;
+        int count;
+        writeLock.lock();
+        try {
+            for (Passenger passenger : removedPassengers) {
+                if (this.passengers.remove(passenger)) {
+                    removed++;
+                }
+            }
+            count = passengers.size();
+        } finally {
+            writeLock.unlock();
+        }
+        releaseSeats(removed);
+        notifyObservers(FlightEventType.PASSENGERS_REMOVED, count + removed, count);
+    }
+
+    /**
+     * Atomically takes {@code count} seats if that many are still available. Lock-free, safe to call from many threads.
+     */
+    public ReservationResult reserveSeats(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Seat count must not be negative: " + count);
+        }
+        if (capacity == UNKNOWN_CAPACITY) {
+            return ReservationResult.UNKNOWN_CAPACITY;
+        }
+        int taken;
+        do {
+            taken = occupiedSeats;
+            if (taken > capacity - count) {
+                return ReservationResult.INSUFFICIENT_CAPACITY;
+            }
+        } while (!OCCUPIED_SEATS.compareAndSet(this, taken, taken + count));
+        assignSeats(taken, taken + count);
+        return ReservationResult.RESERVED;
+    }
+
+    /**
+     * Gives back seats taken with {@link #reserveSeats(int)}.
+     *
+     * @return false, leaving the seats untouched, if fewer than {@code count} seats are taken
+     */
+    public boolean releaseSeats(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Seat count must not be negative: " + count);
+        }
+        int taken;
+        do {
+            taken = occupiedSeats;
+            if (taken < count) {
+                return false;
+            }
+        } while (!OCCUPIED_SEATS.compareAndSet(this, taken, taken - count));
+        releaseSeats(taken, taken - count);
+        return true;
+    }
+
+    // Seat map updates for a change of the sold-seat count. Sold seats beyond the seat map (overbooked with
+    // addPassengers) have no seat. The count is changed first, so it never admits more seats than are free.
+    private void assignSeats(int taken, int newTaken) {
+        int seatCount = seatMap.getSeatCount();
+        for (int seats = Math.min(newTaken, seatCount) - Math.min(taken, seatCount); seats > 0; seats--) {
+            seatMap.assignFirstFreeSeat();
+        }
+    }
+
+    private void releaseSeats(int taken, int newTaken) {
+        int seatCount = seatMap.getSeatCount();
+        int seats = Math.min(taken, seatCount) - Math.min(newTaken, seatCount);
+        while (seats > 0) {
+            if (seatMap.releaseLastTakenSeat() >= 0) {
+                seats--;
+            } else {
+                // a reservation counted the seats but has not assigned them yet
+                Thread.onSpinWait();
+            }
+        }
     }
 
     public void cancelFlight() {
-        notifyObservers("Flight " + getNumber() + " has been cancelled");
+        notifyObservers(FlightEventType.CANCELLED, 0, 0);
     }
 
     // Rest of the original methods remain the same
@@ -88,13 +321,25 @@ public class ScheduledFlight extends Flight implements FlightSubject {
     }
 
     public int getAvailableCapacity() throws NoSuchFieldException {
-        return this.getCapacity() - this.passengers.size();
+        if (capacity == UNKNOWN_CAPACITY) {
+            return this.getCapacity() - occupiedSeats;
+        }
+        return capacity - occupiedSeats;
     }
 
     public Date getDepartureTime() {
         return departureTime;
     }
 
+    /**
+     * Seat assignments of this flight, sized by the aircraft capacity. Sold seats take the lowest free seats
+     * and released ones give back the highest taken seats, so once running reservations are done the map
+     * has as many taken seats as {@link #reserveSeats(int)} counted. Change it only through the flight.
+     */
+    public SeatMap getSeatMap() {
+        return seatMap;
+    }
+
     public List<Passenger> getPassengers() {
         return passengers;
     }
@@ -102,4 +347,12 @@ public class ScheduledFlight extends Flight implements FlightSubject {
     public double getCurrentPrice() {
         return currentPrice;
     }
+
+    private static int passengerCapacity(Aircraft aircraft) {
+        try {
+            return aircraft.getPassengerCapacity();
+        } catch (NoSuchFieldException e) {
+            return UNKNOWN_CAPACITY;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,260 @@
+package flight.reservation.flight;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Seat occupancy of one flight as a bitset, one bit per seat (set = taken). Seats are numbered
+ * {@code 0 .. getSeatCount() - 1}; adjacent seats are seats with consecutive numbers.
+ * <p>
+ * All updates are lock-free compare-and-set operations on the words of the bitset, and no method
+ * allocates per seat, so availability can be queried for a whole schedule cheaply.
+ */
+public class SeatMap {
+
+    private static final int WORD_BITS = 64;
+    private static final long ALL_SEATS = -1L;
+
+    private final int seatCount;
+    private final AtomicLongArray words;
+
+    public SeatMap(int seatCount) {
+        if (seatCount < 0) {
+            throw new IllegalArgumentException("Seat count must not be negative: " + seatCount);
+        }
+        this.seatCount = seatCount;
+        this.words = new AtomicLongArray((seatCount + WORD_BITS - 1) / WORD_BITS);
+    }
+
+    public int getSeatCount() {
+        return seatCount;
+    }
+
+    public boolean isFree(int seat) {
+        checkSeat(seat);
+        return (words.get(seat / WORD_BITS) & bit(seat)) == 0;
+    }
+
+    /**
+     * @return false if the seat is already taken
+     */
+    public boolean assignSeat(int seat) {
+        checkSeat(seat);
+        int index = seat / WORD_BITS;
+        long bit = bit(seat);
+        long word;
+        do {
+            word = words.get(index);
+            if ((word & bit) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(index, word, word | bit));
+        return true;
+    }
+
+    /**
+     * @return the assigned seat, or -1 if the flight is full
+     */
+    public int assignFirstFreeSeat() {
+        int from = 0;
+        while (true) {
+            int seat = nextFreeSeat(from);
+            if (seat < 0) {
+                return -1;
+            }
+            if (assignSeat(seat)) {
+                return seat;
+            }
+            from = seat + 1;
+        }
+    }
+
+    /**
+     * @return the first seat of the lowest numbered block of {@code count} free adjacent seats, or -1 if there is none
+     */
+    public int findAdjacentFreeSeats(int count) {
+        return findAdjacentFreeSeats(count, 0);
+    }
+
+    /**
+     * Finds and assigns a block of {@code count} free adjacent seats in one go.
+     *
+     * @return the first seat of the assigned block, or -1 if there is no such block
+     */
+    public int assignAdjacentSeats(int count) {
+        int from = 0;
+        while (true) {
+            int start = findAdjacentFreeSeats(count, from);
+            if (start < 0) {
+                return -1;
+            }
+            if (assignRange(start, start + count)) {
+                return start;
+            }
+            // a concurrent assignment took a seat of the block, the scan restarts at the same block
+            from = start;
+        }
+    }
+
+    /**
+     * @return false if the seat was not taken
+     */
+    public boolean releaseSeat(int seat) {
+        checkSeat(seat);
+        int index = seat / WORD_BITS;
+        long bit = bit(seat);
+        long word;
+        do {
+            word = words.get(index);
+            if ((word & bit) == 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(index, word, word & ~bit));
+        return true;
+    }
+
+    /**
+     * @return the released seat, the highest numbered taken one, or -1 if no seat is taken
+     */
+    public int releaseLastTakenSeat() {
+        for (int index = words.length() - 1; index >= 0; index--) {
+            long word;
+            long bit;
+            do {
+                word = words.get(index);
+                bit = Long.highestOneBit(word);
+            } while (bit != 0 && !words.compareAndSet(index, word, word & ~bit));
+            if (bit != 0) {
+                return index * WORD_BITS + Long.numberOfTrailingZeros(bit);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Replaces all assignments with a bitset returned by {@link #toLongArray()}, e.g. when restoring a
+     * snapshot. Not atomic, meant for maps that are not in use yet.
+     */
+    public void restore(long[] seats) {
+        if (seats.length != words.length()) {
+            throw new IllegalArgumentException("Expected " + words.length() + " words, got " + seats.length);
+        }
+        for (int i = 0; i < seats.length; i++) {
+            words.set(i, seats[i] & rangeMask(i, 0, seatCount));
+        }
+    }
+
+    public int countOccupiedSeats() {
+        int occupied = 0;
+        for (int i = 0; i < words.length(); i++) {
+            occupied += Long.bitCount(words.get(i));
+        }
+        return occupied;
+    }
+
+    public int countFreeSeats() {
+        return seatCount - countOccupiedSeats();
+    }
+
+    /**
+     * @return copy of the bitset, seat {@code n} taken if bit {@code n % 64} of word {@code n / 64} is set
+     */
+    public long[] toLongArray() {
+        long[] copy = new long[words.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = words.get(i);
+        }
+        return copy;
+    }
+
+    private int findAdjacentFreeSeats(int count, int from) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Seat count must be positive: " + count);
+        }
+        int start = nextFreeSeat(from);
+        while (start >= 0 && start + count <= seatCount) {
+            int end = nextTakenSeat(start);
+            if (end - start >= count) {
+                return start;
+            }
+            start = nextFreeSeat(end);
+        }
+        return -1;
+    }
+
+    private int nextFreeSeat(int from) {
+        if (from >= seatCount) {
+            return -1;
+        }
+        int index = from / WORD_BITS;
+        long free = ~words.get(index) & (ALL_SEATS << from);
+        while (true) {
+            if (free != 0) {
+                int seat = index * WORD_BITS + Long.numberOfTrailingZeros(free);
+                return seat < seatCount ? seat : -1;
+            }
+            if (++index == words.length()) {
+                return -1;
+            }
+            free = ~words.get(index);
+        }
+    }
+
+    // returns seatCount if every seat from 'from' on is free
+    private int nextTakenSeat(int from) {
+        int index = from / WORD_BITS;
+        long taken = words.get(index) & (ALL_SEATS << from);
+        while (true) {
+            if (taken != 0) {
+                return Math.min(seatCount, index * WORD_BITS + Long.numberOfTrailingZeros(taken));
+            }
+            if (++index == words.length()) {
+                return seatCount;
+            }
+            taken = words.get(index);
+        }
+    }
+
+    private boolean assignRange(int from, int to) {
+        for (int index = from / WORD_BITS; index * WORD_BITS < to; index++) {
+            long mask = rangeMask(index, from, to);
+            long word;
+            do {
+                word = words.get(index);
+                if ((word & mask) != 0) {
+                    releaseRange(from, index * WORD_BITS);
+                    return false;
+                }
+            } while (!words.compareAndSet(index, word, word | mask));
+        }
+        return true;
+    }
+
+    private void releaseRange(int from, int to) {
+        for (int index = from / WORD_BITS; index * WORD_BITS < to; index++) {
+            long mask = rangeMask(index, from, to);
+            long word;
+            do {
+                word = words.get(index);
+            } while (!words.compareAndSet(index, word, word & ~mask));
+        }
+    }
+
+    // bits of word 'index' that fall into [from, to)
+    private static long rangeMask(int index, int from, int to) {
+        int wordStart = index * WORD_BITS;
+        int low = Math.max(from, wordStart) - wordStart;
+        int high = Math.min(to, wordStart + WORD_BITS) - wordStart;
+        long upper = high == WORD_BITS ? ALL_SEATS : ~(ALL_SEATS << high);
+        return upper & (ALL_SEATS << low);
+    }
+
+    private static long bit(int seat) {
+        return 1L << seat;
+    }
+
+    private void checkSeat(int seat) {
+        if (seat < 0 || seat >= seatCount) {
+            throw new IndexOutOfBoundsException("Seat " + seat + " does not exist, the flight has " + seatCount + " seats");
+        }
+    }
+}
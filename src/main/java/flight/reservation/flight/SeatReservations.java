@@ -0,0 +1,50 @@
+package flight.reservation.flight;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * All-or-nothing seat reservations over several flights, e.g. the legs of a multi flight journey.
+ */
+public class SeatReservations {
+
+    // A global leg order makes competing orders contend on their first shared leg, so one of them wins
+    // instead of each holding a different leg and both rolling back.
+    static final Comparator<ScheduledFlight> LEG_ORDER = Comparator
+            .comparingInt(ScheduledFlight::getNumber)
+            .thenComparingLong(flight -> flight.getDepartureTime().getTime())
+            .thenComparingInt(System::identityHashCode);
+
+    /**
+     * Reserves {@code seats} seats on every flight or on none of them.
+     *
+     * @return {@link ReservationResult#RESERVED}, or the result of the first flight that could not be reserved
+     * @throws IllegalArgumentException if a flight is listed more than once
+     */
+    public static ReservationResult reserveAll(Collection<ScheduledFlight> flights, int seats) {
+        List<ScheduledFlight> legs = new ArrayList<>(flights);
+        if (new HashSet<>(legs).size() != legs.size()) {
+            throw new IllegalArgumentException("A flight is listed more than once: " + legs);
+        }
+        legs.sort(LEG_ORDER);
+        for (int i = 0; i < legs.size(); i++) {
+            ReservationResult result = legs.get(i).reserveSeats(seats);
+            if (!result.isSuccess()) {
+                for (int j = i - 1; j >= 0; j--) {
+                    legs.get(j).releaseSeats(seats);
+                }
+                return result;
+            }
+        }
+        return ReservationResult.RESERVED;
+    }
+
+    public static void releaseAll(Collection<ScheduledFlight> flights, int seats) {
+        for (ScheduledFlight flight : flights) {
+            flight.releaseSeats(seats);
+        }
+    }
+}
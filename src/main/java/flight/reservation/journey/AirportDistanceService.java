@@ -0,0 +1,190 @@
+package flight.reservation.journey;
+
+import flight.reservation.Airport;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Great-circle distances between airports, precomputed into a dense matrix. Airports are identified by code
+ * and numbered per service in the order they are registered, on first lookup or in bulk; only the distances
+ * of new airports are computed, existing rows are kept. Once both airports are registered a lookup is two map
+ * reads and one array read and allocates nothing.
+ * <p>
+ * Lookups use the coordinates the code was registered with, so another airport with the same code and other
+ * coordinates does not change the matrix; {@link #register(Airport)} replaces them, e.g. for an airport that
+ * moved. Airports without coordinates are not registered, their distances are unknown.
+ * <p>
+ * Readers see an immutable snapshot of the matrix; registering takes a lock and publishes a new one.
+ */
+public class AirportDistanceService {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // written under the lock before the matrix covering the id is published
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile Matrix matrix = new Matrix(0, INITIAL_CAPACITY);
+
+    /**
+     * @return distance in kilometers, NaN if the coordinates of either airport are unknown
+     */
+    public double distance(Airport departure, Airport arrival) {
+        if (!departure.hasCoordinates() || !arrival.hasCoordinates()) {
+            return Double.NaN;
+        }
+        Matrix current = matrix;
+        int from = lookup(current, departure);
+        int to = lookup(current, arrival);
+        if (from < 0 || to < 0) {
+            current = register(Arrays.asList(departure, arrival), false);
+            from = ids.get(departure.getCode());
+            to = ids.get(arrival.getCode());
+        }
+        return current.distances[from * current.capacity + to];
+    }
+
+    /**
+     * Registers the airport, replacing the coordinates known for its code. An airport without coordinates is
+     * ignored.
+     */
+    public void register(Airport airport) {
+        register(Collections.singletonList(airport), true);
+    }
+
+    /**
+     * Registers the airports like {@link #register(Airport)}.
+     */
+    public void registerAll(Collection<Airport> airports) {
+        register(airports, true);
+    }
+
+    /**
+     * @return number of registered airport codes
+     */
+    public int size() {
+        return matrix.size;
+    }
+
+    public static double haversine(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double deltaLatitude = Math.toRadians(latitude2 - latitude1);
+        double deltaLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.pow(Math.sin(deltaLatitude / 2), 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.pow(Math.sin(deltaLongitude / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // -1 if the airport has to be registered first
+    private int lookup(Matrix current, Airport airport) {
+        Integer id = ids.get(airport.getCode());
+        return id == null || id >= current.size ? -1 : id;
+    }
+
+    private Matrix register(Collection<Airport> airports, boolean replace) {
+        lock.lock();
+        try {
+            Matrix current = matrix;
+            Map<String, Airport> added = new LinkedHashMap<>();
+            Map<Integer, Airport> moved = new HashMap<>();
+            for (Airport airport : airports) {
+                if (!airport.hasCoordinates()) {
+                    continue;
+                }
+                Integer id = ids.get(airport.getCode());
+                if (id == null) {
+                    if (replace || !added.containsKey(airport.getCode())) {
+                        added.put(airport.getCode(), airport);
+                    }
+                } else if (replace && !current.covers(id, airport.getLatitude(), airport.getLongitude())) {
+                    moved.put(id, airport);
+                }
+            }
+            if (added.isEmpty() && moved.isEmpty()) {
+                return current;
+            }
+            // Cells outside the published size are never read, so new airports are added in place. Moved
+            // airports change published cells and need a copy.
+            int size = current.size + added.size();
+            int capacity = size <= current.capacity ? current.capacity : Math.max(size, current.capacity * 2);
+            Matrix next = new Matrix(current, size, capacity, !moved.isEmpty() || capacity != current.capacity);
+            int id = current.size;
+            for (Airport airport : added.values()) {
+                next.setCoordinates(id++, airport);
+            }
+            moved.forEach(next::setCoordinates);
+            for (id = 0; id < size; id++) {
+                if (id >= current.size || moved.containsKey(id)) {
+                    next.computeDistances(id);
+                }
+            }
+            id = current.size;
+            for (String code : added.keySet()) {
+                ids.put(code, id++);
+            }
+            matrix = next;
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Matrix {
+        private final int size;
+        private final int capacity;
+        // row-major, capacity x capacity
+        private final double[] distances;
+        private final double[] latitudes;
+        private final double[] longitudes;
+
+        Matrix(int size, int capacity) {
+            this.size = size;
+            this.capacity = capacity;
+            this.distances = new double[capacity * capacity];
+            this.latitudes = new double[capacity];
+            this.longitudes = new double[capacity];
+        }
+
+        Matrix(Matrix previous, int size, int capacity, boolean copy) {
+            this.size = size;
+            this.capacity = capacity;
+            if (!copy) {
+                this.distances = previous.distances;
+                this.latitudes = previous.latitudes;
+                this.longitudes = previous.longitudes;
+            } else {
+                this.distances = new double[capacity * capacity];
+                for (int row = 0; row < previous.size; row++) {
+                    System.arraycopy(previous.distances, row * previous.capacity, distances, row * capacity, previous.size);
+                }
+                this.latitudes = Arrays.copyOf(previous.latitudes, capacity);
+                this.longitudes = Arrays.copyOf(previous.longitudes, capacity);
+            }
+        }
+
+        boolean covers(int id, double latitude, double longitude) {
+            return latitudes[id] == latitude && longitudes[id] == longitude;
+        }
+
+        void setCoordinates(int id, Airport airport) {
+            latitudes[id] = airport.getLatitude();
+            longitudes[id] = airport.getLongitude();
+        }
+
+        void computeDistances(int id) {
+            for (int other = 0; other < size; other++) {
+                double distance = haversine(latitudes[id], longitudes[id], latitudes[other], longitudes[other]);
+                distances[id * capacity + other] = distance;
+                distances[other * capacity + id] = distance;
+            }
+        }
+    }
+}
@@ -128,9 +128,18 @@ public class MultiFlightJourney implements Journey {
 
         Journey lastJourney = journeys.get(journeys.size() - 1);
 
-        boolean airportsConnect = lastJourney.getArrival().equals(journey.getDeparture());
+        boolean airportsConnect = isSameAirport(lastJourney.getArrival(), journey.getDeparture());
         boolean timingIsValid = journey.getDepartureTime().after(lastJourney.getArrivalTime());
 
         return airportsConnect && timingIsValid;
     }
+
+    // flights of the same airport may hold different Airport instances, e.g. after a restore
+    private static boolean isSameAirport(Airport arrival, Airport departure) {
+        if (arrival == departure) {
+            return true;
+        }
+        return arrival != null && departure != null && arrival.getCode() != null
+                && arrival.getCode().equals(departure.getCode());
+    }
 }
\ No newline at end of file
@@ -10,6 +10,11 @@ import java.util.Date;
 import java.util.List;
 
 public class SingleFlightJourney implements Journey {
+
+    // assumed for airports without coordinates
+    private static final int DEFAULT_DISTANCE = 500;
+    private static final AirportDistanceService DISTANCES = new AirportDistanceService();
+
     private final ScheduledFlight flight;
 
     public SingleFlightJourney(ScheduledFlight flight) {
@@ -38,8 +43,7 @@ public class SingleFlightJourney implements Journey {
 
     @Override
     public Date getArrivalTime() {
-        long estimatedFlightTimeInMillis = calculateEstimatedFlightTime();
-        return new Date(flight.getDepartureTime().getTime() + estimatedFlightTimeInMillis);
+        return new Date(estimateArrivalTime(flight));
     }
 
     @Override
@@ -77,12 +81,20 @@ public class SingleFlightJourney implements Journey {
         return flight.getAvailableCapacity();
     }
 
-    private long calculateEstimatedFlightTime() {
-        int distance = getTotalDistance();
+    /**
+     * Arrival time in epoch millis as reported by {@link #getArrivalTime()}, without building a journey.
+     */
+    public static long estimateArrivalTime(ScheduledFlight flight) {
+        return flight.getDepartureTime().getTime() + calculateEstimatedFlightTime(flight.getDeparture(), flight.getArrival());
+    }
+
+    private static long calculateEstimatedFlightTime(Airport departure, Airport arrival) {
+        int distance = calculateDistance(departure, arrival);
         return (long) (distance / 800.0 * 60 * 60 * 1000);
     }
 
-    private int calculateDistance(Airport departure, Airport arrival) {
-        return 500;
+    private static int calculateDistance(Airport departure, Airport arrival) {
+        double distance = DISTANCES.distance(departure, arrival);
+        return Double.isNaN(distance) ? DEFAULT_DISTANCE : (int) Math.round(distance);
     }
 }
\ No newline at end of file
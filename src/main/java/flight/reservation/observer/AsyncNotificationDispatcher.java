@@ -0,0 +1,221 @@
+package flight.reservation.observer;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands notifications to a bounded queue and calls the observers on a dedicated thread, so the
+ * publishing (booking) thread does not wait for the observers. What happens when the queue is full
+ * is decided by the {@link BackpressurePolicy}.
+ * <p>
+ * With {@link BackpressurePolicy#COALESCE}, the delivery thread drains the overflow before every queued
+ * notification. Overflow of a flight and type that is still queued is merged into the queued notification,
+ * so observers see the changes of a flight and type in order and end on the latest values.
+ */
+public class AsyncNotificationDispatcher implements NotificationDispatcher, AutoCloseable {
+
+    private static final long IDLE_POLL_MILLIS = 10;
+
+    private final BlockingQueue<Delivery> queue;
+    private final Map<NotificationKey, Delivery> overflow = new ConcurrentHashMap<>();
+    // latest queued delivery per key, the target for merging overflow
+    private final Map<NotificationKey, Delivery> queuedByKey = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final BackpressurePolicy policy;
+    private final DeliveryErrorHandler errorHandler;
+    private final ExecutorService executor;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private volatile boolean closed;
+
+    public AsyncNotificationDispatcher(int queueCapacity, BackpressurePolicy policy) {
+        this(queueCapacity, policy, DeliveryErrorHandler.UNCAUGHT);
+    }
+
+    public AsyncNotificationDispatcher(int queueCapacity, BackpressurePolicy policy, DeliveryErrorHandler errorHandler) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.policy = Objects.requireNonNull(policy);
+        this.errorHandler = Objects.requireNonNull(errorHandler);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "flight-notifications");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(this::deliverLoop);
+    }
+
+    @Override
+    public void dispatch(FlightNotification notification, Collection<? extends FlightObserver> observers) {
+        if (closed) {
+            dropped.increment();
+            return;
+        }
+        Delivery delivery = new Delivery(notification, observers, sequence.incrementAndGet());
+        if (policy == BackpressurePolicy.COALESCE) {
+            coalesce(delivery);
+            return;
+        }
+        if (queue.offer(delivery)) {
+            return;
+        }
+        if (policy == BackpressurePolicy.BLOCK) {
+            try {
+                queue.put(delivery);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.increment();
+            }
+        } else {
+            dropped.increment();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public int getQueuedCount() {
+        return queue.size() + overflow.size();
+    }
+
+    /**
+     * Stops accepting notifications and waits until the already accepted ones are delivered. An interrupt
+     * stops the waiting and is kept in the interrupt flag.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void coalesce(Delivery delivery) {
+        // while a key overflows, its later notifications go to the overflow too, so they are not queued
+        // ahead of it. Offering inside compute keeps the delivery thread from unmapping a delivery before it
+        // is mapped.
+        if (!overflow.containsKey(delivery.key)
+                && queuedByKey.compute(delivery.key, (key, queued) -> queue.offer(delivery) ? delivery : queued) == delivery) {
+            return;
+        }
+        overflow.merge(delivery.key, delivery, (pending, latest) -> {
+            coalesced.increment();
+            pending.absorb(latest);
+            return pending;
+        });
+    }
+
+    private void deliverLoop() {
+        while (true) {
+            if (!overflow.isEmpty()) {
+                deliverOverflow();
+            }
+            Delivery delivery;
+            try {
+                delivery = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (delivery != null) {
+                queuedByKey.remove(delivery.key, delivery);
+                delivery.deliver(errorHandler);
+            } else if (closed && overflow.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    private void deliverOverflow() {
+        Iterator<Map.Entry<NotificationKey, Delivery>> pending = overflow.entrySet().iterator();
+        while (pending.hasNext()) {
+            Map.Entry<NotificationKey, Delivery> entry = pending.next();
+            Delivery delivery = entry.getValue();
+            if (!overflow.remove(entry.getKey(), delivery)) {
+                continue;
+            }
+            Delivery queued = queuedByKey.get(entry.getKey());
+            if (queued != null && queued.absorb(delivery)) {
+                coalesced.increment();
+            } else {
+                // nothing of this key is queued any more, so the overflow is the next change in order
+                delivery.deliver(errorHandler);
+            }
+        }
+    }
+
+    private static final class Delivery {
+        private final NotificationKey key;
+        private FlightNotification notification;
+        private Collection<? extends FlightObserver> observers;
+        // dispatch order of the latest notification merged into this delivery
+        private long sequence;
+        private boolean delivered;
+
+        Delivery(FlightNotification notification, Collection<? extends FlightObserver> observers, long sequence) {
+            this.key = new NotificationKey(notification);
+            this.notification = notification;
+            this.observers = observers;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Merges another delivery of the same key, in dispatch order.
+         *
+         * @return false if this delivery has already been delivered
+         */
+        synchronized boolean absorb(Delivery other) {
+            if (delivered) {
+                return false;
+            }
+            FlightNotification merged;
+            Collection<? extends FlightObserver> latestObservers;
+            synchronized (other) {
+                if (other.sequence > sequence) {
+                    merged = notification.merge(other.notification);
+                    latestObservers = other.observers;
+                    sequence = other.sequence;
+                } else {
+                    merged = other.notification.merge(notification);
+                    latestObservers = observers;
+                }
+            }
+            notification = merged;
+            observers = latestObservers;
+            return true;
+        }
+
+        void deliver(DeliveryErrorHandler errorHandler) {
+            FlightNotification current;
+            Collection<? extends FlightObserver> targets;
+            synchronized (this) {
+                delivered = true;
+                current = notification;
+                targets = observers;
+            }
+            for (FlightObserver observer : targets) {
+                try {
+                    observer.update(current);
+                } catch (RuntimeException e) {
+                    errorHandler.handle(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package flight.reservation.observer;
+
+/**
+ * What an {@link AsyncNotificationDispatcher} does with a notification when its queue is full.
+ */
+public enum BackpressurePolicy {
+    /**
+     * Discard the notification.
+     */
+    DROP,
+    /**
+     * Wait on the publishing thread until the queue has room.
+     */
+    BLOCK,
+    /**
+     * Merge the notification with the pending overflow of the same flight and type, see {@link FlightNotification#merge}.
+     */
+    COALESCE
+}
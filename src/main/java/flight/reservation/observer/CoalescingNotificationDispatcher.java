@@ -0,0 +1,169 @@
+package flight.reservation.observer;
+
+import flight.reservation.flight.ScheduledFlight;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Holds back notifications for a fixed window and merges all changes of the same kind on the same flight
+ * within that window, so observers get "price changed from X to Z" once instead of every intermediate step.
+ * Cancellations and free text messages are not merged; they are passed on immediately, after the pending
+ * changes of their flight. Added and removed passengers are merged separately, and a change of one kind
+ * delivers the pending change of the other kind first, so observers never get them out of order.
+ * <p>
+ * Merged notifications are handed to the downstream dispatcher, which decides on which thread the observers
+ * are called.
+ */
+public class CoalescingNotificationDispatcher implements NotificationDispatcher, AutoCloseable {
+
+    private final long windowNanos;
+    private final NotificationDispatcher downstream;
+    private final Map<NotificationKey, Pending> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    // dispatches share the read lock, close takes the write lock, so no notification is added to the
+    // pending ones after the final flush
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    public CoalescingNotificationDispatcher(long window, TimeUnit unit) {
+        this(window, unit, NotificationDispatcher.SYNCHRONOUS);
+    }
+
+    public CoalescingNotificationDispatcher(long window, TimeUnit unit, NotificationDispatcher downstream) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        this.windowNanos = unit.toNanos(window);
+        this.downstream = Objects.requireNonNull(downstream);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "flight-notification-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void dispatch(FlightNotification notification, Collection<? extends FlightObserver> observers) {
+        if (!isCoalescable(notification.getType())) {
+            flushFlight(notification.getFlight());
+            deliver(notification, observers);
+            return;
+        }
+        closeLock.readLock().lock();
+        try {
+            if (!closed) {
+                FlightEventType opposite = oppositePassengerChange(notification.getType());
+                if (opposite != null) {
+                    flush(new NotificationKey(notification.getFlight(), opposite));
+                }
+                pending.compute(new NotificationKey(notification), (key, current) -> {
+                    if (current == null) {
+                        // the first change of a window starts the timer, later ones only merge into it
+                        scheduler.schedule(() -> flush(key), windowNanos, TimeUnit.NANOSECONDS);
+                        return new Pending(notification, observers);
+                    }
+                    coalesced.increment();
+                    return new Pending(current.notification.merge(notification), observers);
+                });
+                return;
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        deliver(notification, observers);
+    }
+
+    /**
+     * @return number of notifications passed to the downstream dispatcher
+     */
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    /**
+     * @return number of notifications that were merged into an earlier one instead of being delivered
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Delivers all pending notifications right away and stops the timer thread. Notifications dispatched
+     * afterwards are passed on right away without merging, after the pending ones.
+     */
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (NotificationKey key : pending.keySet()) {
+                flush(key);
+            }
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        scheduler.shutdownNow();
+    }
+
+    private static boolean isCoalescable(FlightEventType type) {
+        return type != FlightEventType.CANCELLED && type != FlightEventType.MESSAGE;
+    }
+
+    private static FlightEventType oppositePassengerChange(FlightEventType type) {
+        switch (type) {
+            case PASSENGERS_ADDED:
+                return FlightEventType.PASSENGERS_REMOVED;
+            case PASSENGERS_REMOVED:
+                return FlightEventType.PASSENGERS_ADDED;
+            default:
+                return null;
+        }
+    }
+
+    private void flushFlight(ScheduledFlight flight) {
+        for (FlightEventType type : FlightEventType.values()) {
+            if (isCoalescable(type)) {
+                flush(new NotificationKey(flight, type));
+            }
+        }
+    }
+
+    private void flush(NotificationKey key) {
+        Pending flushed = pending.remove(key);
+        if (flushed != null) {
+            deliver(flushed.notification, flushed.observers);
+        }
+    }
+
+    private void deliver(FlightNotification notification, Collection<? extends FlightObserver> observers) {
+        delivered.increment();
+        downstream.dispatch(notification, observers);
+    }
+
+    private static final class Pending {
+        private final FlightNotification notification;
+        private final Collection<? extends FlightObserver> observers;
+
+        Pending(FlightNotification notification, Collection<? extends FlightObserver> observers) {
+            this.notification = notification;
+            this.observers = observers;
+        }
+    }
+}
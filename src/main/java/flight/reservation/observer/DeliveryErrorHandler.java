@@ -0,0 +1,20 @@
+package flight.reservation.observer;
+
+/**
+ * Receives the exceptions of observers and handlers that are called off the publishing thread, where the
+ * publisher cannot catch them. The delivery to the other observers continues either way.
+ */
+@FunctionalInterface
+public interface DeliveryErrorHandler {
+
+    /**
+     * Passes the exception to the uncaught exception handler of the delivering thread, which prints it
+     * unless the application installed its own.
+     */
+    DeliveryErrorHandler UNCAUGHT = exception -> {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, exception);
+    };
+
+    void handle(RuntimeException exception);
+}
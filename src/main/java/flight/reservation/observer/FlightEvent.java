@@ -0,0 +1,67 @@
+package flight.reservation.observer;
+
+import flight.reservation.flight.ScheduledFlight;
+
+/**
+ * Preallocated slot of the {@link FlightEventBus} ring buffer. The bus overwrites the slot once all consumers
+ * have read it, so handlers must copy what they want to keep (see {@link #toNotification()}).
+ */
+public final class FlightEvent {
+
+    private ScheduledFlight flight;
+    private int flightNumber;
+    private FlightEventType type;
+    private double oldValue;
+    private double newValue;
+    private long timestamp;
+    private String text;
+    // handed to observers, so that delivering an event does not allocate
+    private final FlightNotification notification = new FlightNotification();
+
+    void set(ScheduledFlight flight, FlightEventType type, double oldValue, double newValue, String text) {
+        this.flight = flight;
+        this.flightNumber = flight.getNumber();
+        this.type = type;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.text = text;
+        this.timestamp = System.currentTimeMillis();
+        notification.set(flight, type, oldValue, newValue, timestamp, type == FlightEventType.MESSAGE ? text : null);
+    }
+
+    /**
+     * @return a copy of the event that may be kept
+     */
+    public FlightNotification toNotification() {
+        return notification.copy();
+    }
+
+    // reused for the next event in this slot
+    FlightNotification notification() {
+        return notification;
+    }
+
+    public ScheduledFlight getFlight() {
+        return flight;
+    }
+
+    public int getFlightNumber() {
+        return flightNumber;
+    }
+
+    public FlightEventType getType() {
+        return type;
+    }
+
+    public double getOldValue() {
+        return oldValue;
+    }
+
+    public double getNewValue() {
+        return newValue;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,406 @@
+package flight.reservation.observer;
+
+import flight.reservation.flight.Route;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.util.IntObjectHashMap;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Central bus for flight changes, built on a preallocated ring buffer in the style of the LMAX disruptor.
+ * <p>
+ * Publishers claim a sequence number, fill the slot of that sequence and mark it as published; no objects
+ * are allocated per event. Every consumer runs on its own thread, tracks its own sequence and reads all
+ * events published since its last read as one batch. A publisher only claims a sequence once the slowest
+ * consumer has read the slot, and waits with a back-off until then. With a maximum publish wait the event
+ * is dropped when that time passes, so a stalled consumer cannot hold up the publishers indefinitely.
+ * Consumers that found nothing to read for a while stop polling and sleep until the next publish wakes them.
+ * <p>
+ * One built-in consumer delivers events to subscriptions keyed by flight number or route, so a flight
+ * writes one event no matter how many customers follow it. Further consumers that want every event,
+ * e.g. a journal, can be added with {@link #addConsumer(FlightEventHandler)}.
+ */
+public class FlightEventBus implements AutoCloseable {
+
+    // about 5 ms of spinning, yielding and short parks
+    private static final int IDLE_ROUNDS_BEFORE_SLEEP = 300;
+
+    private final int mask;
+    private final FlightEvent[] entries;
+    private final AtomicLongArray published;
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final Object consumersLock = new Object();
+    private volatile Consumer[] consumers = new Consumer[0];
+    private volatile IntObjectHashMap<Handlers> byNumber = new IntObjectHashMap<>();
+    private final Map<Route, Handlers> byRoute = new ConcurrentHashMap<>();
+    private final Handlers all = new Handlers();
+    private final long maxPublishWaitNanos;
+    private final DeliveryErrorHandler errorHandler;
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Creates a bus whose publishers wait as long as it takes for room in the ring buffer.
+     *
+     * @param bufferSize number of slots in the ring buffer, must be a power of two
+     */
+    public FlightEventBus(int bufferSize) {
+        this(bufferSize, null, DeliveryErrorHandler.UNCAUGHT);
+    }
+
+    /**
+     * @param bufferSize     number of slots in the ring buffer, must be a power of two
+     * @param maxPublishWait how long a publisher waits for room before the event is dropped, null to wait
+     *                       without limit
+     * @param errorHandler   receives the exceptions of handlers and observers
+     */
+    public FlightEventBus(int bufferSize, Duration maxPublishWait, DeliveryErrorHandler errorHandler) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Buffer size must be a power of two: " + bufferSize);
+        }
+        this.maxPublishWaitNanos = maxPublishWait == null ? Long.MAX_VALUE : maxPublishWait.toNanos();
+        this.errorHandler = Objects.requireNonNull(errorHandler);
+        this.mask = bufferSize - 1;
+        this.entries = new FlightEvent[bufferSize];
+        this.published = new AtomicLongArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            entries[i] = new FlightEvent();
+            published.set(i, -1);
+        }
+        addConsumer(new SubscriptionDispatcher(), "flight-event-subscriptions");
+    }
+
+    /**
+     * @return the sequence of the event, or -1 if the bus is closed or the event was dropped
+     */
+    public long publish(ScheduledFlight flight, FlightEventType type, double oldValue, double newValue) {
+        return publish(flight, type, oldValue, newValue, null);
+    }
+
+    public long publishMessage(ScheduledFlight flight, String message) {
+        return publish(flight, FlightEventType.MESSAGE, 0, 0, message);
+    }
+
+    private long publish(ScheduledFlight flight, FlightEventType type, double oldValue, double newValue, String text) {
+        long waitStart = 0;
+        int rounds = 0;
+        while (!closed) {
+            long current = cursor.get();
+            long sequence = current + 1;
+            // claims only free slots, so a claimed sequence is always published and never leaves a hole
+            if (sequence - entries.length <= minimumConsumerSequence()) {
+                if (cursor.compareAndSet(current, sequence)) {
+                    int index = (int) (sequence & mask);
+                    entries[index].set(flight, type, oldValue, newValue, text);
+                    published.set(index, sequence);
+                    wakeSleepingConsumers();
+                    return sequence;
+                }
+                continue;
+            }
+            if (rounds == 0) {
+                waitStart = System.nanoTime();
+            } else if (System.nanoTime() - waitStart > maxPublishWaitNanos) {
+                dropped.increment();
+                return -1;
+            }
+            backOff(++rounds);
+        }
+        return -1;
+    }
+
+    public Subscription subscribe(int flightNumber, FlightEventHandler handler) {
+        Handlers handlers;
+        synchronized (consumersLock) {
+            handlers = byNumber.get(flightNumber);
+            if (handlers == null) {
+                // copy on write, so the dispatching consumer reads the number index without locking
+                IntObjectHashMap<Handlers> copy = byNumber.copy();
+                handlers = new Handlers();
+                copy.put(flightNumber, handlers);
+                byNumber = copy;
+            }
+        }
+        return handlers.add(handler) ? new Subscription(handlers, handler) : null;
+    }
+
+    public Subscription subscribe(Route route, FlightEventHandler handler) {
+        Handlers handlers = byRoute.computeIfAbsent(route, key -> new Handlers());
+        return handlers.add(handler) ? new Subscription(handlers, handler) : null;
+    }
+
+    public Subscription subscribeAll(FlightEventHandler handler) {
+        return all.add(handler) ? new Subscription(all, handler) : null;
+    }
+
+    /**
+     * Subscribes an observer to the changes of one scheduled flight, once per observer and flight. The
+     * notifications it gets are reused for later events, see {@link FlightNotification#copy()}.
+     *
+     * @return null if the observer already follows the flight
+     */
+    public Subscription subscribe(ScheduledFlight flight, FlightObserver observer) {
+        return subscribe(flight.getNumber(), new ObserverHandler(flight, observer));
+    }
+
+    public boolean unsubscribe(ScheduledFlight flight, FlightObserver observer) {
+        Handlers handlers = byNumber.get(flight.getNumber());
+        return handlers != null && handlers.remove(new ObserverHandler(flight, observer));
+    }
+
+    /**
+     * Adds a consumer that reads every event on its own thread, starting with the next published event.
+     */
+    public void addConsumer(FlightEventHandler handler) {
+        addConsumer(handler, "flight-event-consumer");
+    }
+
+    private void addConsumer(FlightEventHandler handler, String threadName) {
+        synchronized (consumersLock) {
+            Consumer consumer = new Consumer(handler, cursor.get());
+            Thread thread = new Thread(consumer, threadName);
+            thread.setDaemon(true);
+            consumer.thread = thread;
+            Consumer[] copy = Arrays.copyOf(consumers, consumers.length + 1);
+            copy[consumers.length] = consumer;
+            consumers = copy;
+            thread.start();
+        }
+    }
+
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    /**
+     * @return number of events dropped because the ring buffer stayed full for the maximum publish wait
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops all consumers. Events that were published but not yet read are discarded.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Consumer consumer : consumers) {
+            consumer.running = false;
+            LockSupport.unpark(consumer.thread);
+        }
+    }
+
+    private void wakeSleepingConsumers() {
+        for (Consumer consumer : consumers) {
+            if (consumer.sleeping) {
+                LockSupport.unpark(consumer.thread);
+            }
+        }
+    }
+
+    private long minimumConsumerSequence() {
+        long minimum = cursor.get();
+        for (Consumer consumer : consumers) {
+            minimum = Math.min(minimum, consumer.sequence.get());
+        }
+        return minimum;
+    }
+
+    // spin first, then back off so waiting threads do not burn a core
+    private static void backOff(int rounds) {
+        if (rounds < 100) {
+            Thread.onSpinWait();
+        } else if (rounds < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    public static final class Subscription {
+        private final Handlers handlers;
+        private final FlightEventHandler handler;
+
+        private Subscription(Handlers handlers, FlightEventHandler handler) {
+            this.handlers = handlers;
+            this.handler = handler;
+        }
+
+        public void cancel() {
+            handlers.remove(handler);
+        }
+    }
+
+    private final class Consumer implements Runnable {
+        private final FlightEventHandler handler;
+        private final AtomicLong sequence;
+        private volatile boolean running = true;
+        private volatile boolean sleeping;
+        // set before the consumer is published in the consumers array
+        private Thread thread;
+
+        Consumer(FlightEventHandler handler, long startAfter) {
+            this.handler = handler;
+            this.sequence = new AtomicLong(startAfter);
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            int idleRounds = 0;
+            while (running) {
+                long available = next - 1;
+                while (available - next < mask && published.get((int) ((available + 1) & mask)) == available + 1) {
+                    available++;
+                }
+                if (available < next) {
+                    if (++idleRounds < IDLE_ROUNDS_BEFORE_SLEEP) {
+                        backOff(idleRounds);
+                    } else {
+                        sleepUntilPublished(next);
+                    }
+                    continue;
+                }
+                idleRounds = 0;
+                for (long s = next; s <= available; s++) {
+                    try {
+                        handler.onEvent(entries[(int) (s & mask)], s);
+                    } catch (RuntimeException e) {
+                        errorHandler.handle(e);
+                    }
+                }
+                handler.onEndOfBatch();
+                sequence.lazySet(available);
+                next = available + 1;
+            }
+        }
+
+        // Publishers mark the slot and then check the flag, this sets the flag and then checks the slot, so
+        // either the publisher sees the flag and wakes the consumer or the consumer sees the event.
+        private void sleepUntilPublished(long next) {
+            sleeping = true;
+            if (running && published.get((int) (next & mask)) != next) {
+                LockSupport.park(this);
+            }
+            sleeping = false;
+        }
+    }
+
+    private final class SubscriptionDispatcher implements FlightEventHandler {
+        @Override
+        public void onEvent(FlightEvent event, long sequence) {
+            Handlers handlers = byNumber.get(event.getFlightNumber());
+            if (handlers != null) {
+                handlers.deliver(event, sequence, errorHandler);
+            }
+            handlers = byRoute.get(event.getFlight().getRoute());
+            if (handlers != null) {
+                handlers.deliver(event, sequence, errorHandler);
+            }
+            all.deliver(event, sequence, errorHandler);
+        }
+    }
+
+    /**
+     * Subscribers of one key. Members give O(1) duplicate checks, the snapshot is what the dispatching
+     * consumer iterates; appends reuse the snapshot array while it has room.
+     */
+    private static final class Handlers {
+        private final Set<FlightEventHandler> members = ConcurrentHashMap.newKeySet();
+        private volatile Snapshot snapshot = new Snapshot(new FlightEventHandler[4], 0);
+
+        synchronized boolean add(FlightEventHandler handler) {
+            if (!members.add(handler)) {
+                return false;
+            }
+            FlightEventHandler[] array = snapshot.handlers;
+            int size = snapshot.size;
+            if (size == array.length) {
+                array = Arrays.copyOf(array, size * 2);
+            }
+            array[size] = handler;
+            snapshot = new Snapshot(array, size + 1);
+            return true;
+        }
+
+        synchronized boolean remove(FlightEventHandler handler) {
+            if (!members.remove(handler)) {
+                return false;
+            }
+            List<FlightEventHandler> remaining = new ArrayList<>(snapshot.size);
+            for (int i = 0; i < snapshot.size; i++) {
+                if (!snapshot.handlers[i].equals(handler)) {
+                    remaining.add(snapshot.handlers[i]);
+                }
+            }
+            FlightEventHandler[] array = remaining.toArray(new FlightEventHandler[Math.max(4, remaining.size())]);
+            snapshot = new Snapshot(array, remaining.size());
+            return true;
+        }
+
+        void deliver(FlightEvent event, long sequence, DeliveryErrorHandler errorHandler) {
+            Snapshot current = snapshot;
+            for (int i = 0; i < current.size; i++) {
+                try {
+                    current.handlers[i].onEvent(event, sequence);
+                } catch (RuntimeException e) {
+                    errorHandler.handle(e);
+                }
+            }
+        }
+    }
+
+    private static final class Snapshot {
+        private final FlightEventHandler[] handlers;
+        private final int size;
+
+        Snapshot(FlightEventHandler[] handlers, int size) {
+            this.handlers = handlers;
+            this.size = size;
+        }
+    }
+
+    // adapts a FlightObserver to the bus; equal per observer and flight so that double registrations are ignored
+    private static final class ObserverHandler implements FlightEventHandler {
+        private final ScheduledFlight flight;
+        private final FlightObserver observer;
+
+        ObserverHandler(ScheduledFlight flight, FlightObserver observer) {
+            this.flight = flight;
+            this.observer = Objects.requireNonNull(observer);
+        }
+
+        @Override
+        public void onEvent(FlightEvent event, long sequence) {
+            if (event.getFlight() == flight) {
+                observer.update(event.notification());
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ObserverHandler)) {
+                return false;
+            }
+            ObserverHandler other = (ObserverHandler) o;
+            return flight == other.flight && observer.equals(other.observer);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(flight) + observer.hashCode();
+        }
+    }
+}
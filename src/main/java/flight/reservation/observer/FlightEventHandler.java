@@ -0,0 +1,12 @@
+package flight.reservation.observer;
+
+public interface FlightEventHandler {
+
+    void onEvent(FlightEvent event, long sequence);
+
+    /**
+     * Called after the last event of every batch a consumer has read, e.g. to flush buffered work.
+     */
+    default void onEndOfBatch() {
+    }
+}
@@ -0,0 +1,10 @@
+package flight.reservation.observer;
+
+public enum FlightEventType {
+    PRICE_CHANGED,
+    DEPARTURE_TIME_CHANGED,
+    PASSENGERS_ADDED,
+    PASSENGERS_REMOVED,
+    CANCELLED,
+    MESSAGE
+}
@@ -0,0 +1,117 @@
+package flight.reservation.observer;
+
+import flight.reservation.flight.ScheduledFlight;
+
+import java.util.Date;
+
+/**
+ * A change of a scheduled flight. Old and new values are kept as numbers (prices, epoch milliseconds
+ * for departure times, passenger counts before and after the change) and only turned into text when
+ * {@link #getMessage()} is called.
+ * <p>
+ * Notifications are not changed once handed out, except the ones a {@link FlightEventBus} delivers: those are
+ * reused for later events, so observers that keep them must keep a {@link #copy()}.
+ */
+public final class FlightNotification {
+
+    private ScheduledFlight flight;
+    private FlightEventType type;
+    private double oldValue;
+    private double newValue;
+    private long timestamp;
+    private String text;
+
+    // reusable slot notification of the event bus
+    FlightNotification() {
+    }
+
+    public FlightNotification(ScheduledFlight flight, FlightEventType type, double oldValue, double newValue) {
+        this(flight, type, oldValue, newValue, System.currentTimeMillis(), null);
+    }
+
+    FlightNotification(ScheduledFlight flight, FlightEventType type, double oldValue, double newValue, long timestamp) {
+        this(flight, type, oldValue, newValue, timestamp, null);
+    }
+
+    private FlightNotification(ScheduledFlight flight, FlightEventType type, double oldValue, double newValue, long timestamp, String text) {
+        set(flight, type, oldValue, newValue, timestamp, text);
+    }
+
+    void set(ScheduledFlight flight, FlightEventType type, double oldValue, double newValue, long timestamp, String text) {
+        this.flight = flight;
+        this.type = type;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.timestamp = timestamp;
+        this.text = text;
+    }
+
+    public static FlightNotification message(ScheduledFlight flight, String message) {
+        return new FlightNotification(flight, FlightEventType.MESSAGE, 0, 0, System.currentTimeMillis(), message);
+    }
+
+    /**
+     * Combines this notification with a later one of the same flight and type into a single change from
+     * this notification's old value to the later one's new value.
+     */
+    public FlightNotification merge(FlightNotification later) {
+        if (later.flight != flight || later.type != type) {
+            throw new IllegalArgumentException("Only notifications of the same flight and type can be merged");
+        }
+        if (type == FlightEventType.MESSAGE) {
+            return later;
+        }
+        return new FlightNotification(flight, type, oldValue, later.newValue, later.timestamp, null);
+    }
+
+    public FlightNotification copy() {
+        return new FlightNotification(flight, type, oldValue, newValue, timestamp, text);
+    }
+
+    public String getMessage() {
+        return format(flight.getNumber(), type, oldValue, newValue, text);
+    }
+
+    static String format(int flightNumber, FlightEventType type, double oldValue, double newValue, String text) {
+        switch (type) {
+            case PRICE_CHANGED:
+                return "Flight " + flightNumber + " price changed from " + oldValue + " to " + newValue;
+            case DEPARTURE_TIME_CHANGED:
+                return "Flight " + flightNumber + " departure time changed from " +
+                        new Date((long) oldValue) + " to " + new Date((long) newValue);
+            case PASSENGERS_ADDED:
+                return "New passengers added to flight " + flightNumber;
+            case PASSENGERS_REMOVED:
+                return "Passengers removed from flight " + flightNumber;
+            case CANCELLED:
+                return "Flight " + flightNumber + " has been cancelled";
+            default:
+                return text;
+        }
+    }
+
+    public ScheduledFlight getFlight() {
+        return flight;
+    }
+
+    public FlightEventType getType() {
+        return type;
+    }
+
+    public double getOldValue() {
+        return oldValue;
+    }
+
+    public double getNewValue() {
+        return newValue;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return getMessage();
+    }
+}
@@ -4,4 +4,12 @@ import flight.reservation.flight.ScheduledFlight;
 
 public interface FlightObserver {
     void update(ScheduledFlight flight, String message);
-}
\ No newline at end of file
+
+    /**
+     * Called by the dispatchers with the structured change; observers that keep notifications should
+     * override this instead of storing the formatted message.
+     */
+    default void update(FlightNotification notification) {
+        update(notification.getFlight(), notification.getMessage());
+    }
+}
@@ -0,0 +1,20 @@
+package flight.reservation.observer;
+
+import java.util.Collection;
+
+/**
+ * Delivers the notifications of a {@link FlightSubject} to its observers.
+ */
+public interface NotificationDispatcher {
+
+    /**
+     * Calls every observer on the publishing thread.
+     */
+    NotificationDispatcher SYNCHRONOUS = (notification, observers) -> {
+        for (FlightObserver observer : observers) {
+            observer.update(notification);
+        }
+    };
+
+    void dispatch(FlightNotification notification, Collection<? extends FlightObserver> observers);
+}
@@ -0,0 +1,174 @@
+package flight.reservation.observer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded inbox of notification records, kept in arrival order. When the inbox is full the oldest record is
+ * evicted; with a maximum age, records older than that are evicted as well whenever the inbox is accessed.
+ * Age is measured from the record timestamp, and records may arrive out of timestamp order, e.g. from
+ * asynchronous or coalescing dispatchers, so expired records are evicted wherever they are.
+ */
+public class NotificationInbox {
+
+    private static final long NO_MAX_AGE = -1;
+
+    private final NotificationRecord[] entries;
+    private final long maxAgeMillis;
+    // a lock instead of synchronized, so virtual threads delivering notifications do not pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private int head;
+    private int size;
+    private long evicted;
+    // lower bound of the record timestamps, so accesses only scan the records once one may have expired
+    private long oldestTimestamp = Long.MAX_VALUE;
+
+    public NotificationInbox(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * @param maxAge records older than this are evicted, null for no age limit
+     */
+    public NotificationInbox(int capacity, Duration maxAge) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.entries = new NotificationRecord[capacity];
+        this.maxAgeMillis = maxAge == null ? NO_MAX_AGE : maxAge.toMillis();
+    }
+
+    public void add(NotificationRecord record) {
+        lock.lock();
+        try {
+            evictExpired();
+            if (size == entries.length) {
+                evictOldest();
+            }
+            entries[(head + size) % entries.length] = record;
+            size++;
+            oldestTimestamp = Math.min(oldestTimestamp, record.getTimestamp());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            evictExpired();
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param index position in arrival order, 0 is the oldest record still in the inbox
+     */
+    public NotificationRecord get(int index) {
+        lock.lock();
+        try {
+            evictExpired();
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+            }
+            return entries[(head + index) % entries.length];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} records starting at {@code offset} in arrival order; empty if the offset
+     * is past the end.
+     */
+    public List<NotificationRecord> getPage(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
+        }
+        lock.lock();
+        try {
+            evictExpired();
+            int end = (int) Math.min(size, (long) offset + limit);
+            List<NotificationRecord> page = new ArrayList<>(Math.max(0, end - offset));
+            for (int i = offset; i < end; i++) {
+                page.add(entries[(head + i) % entries.length]);
+            }
+            return page;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<NotificationRecord> getAll() {
+        return getPage(0, Integer.MAX_VALUE);
+    }
+
+    public int getCapacity() {
+        return entries.length;
+    }
+
+    /**
+     * @return number of records evicted because the inbox was full or they were too old
+     */
+    public long getEvictedCount() {
+        lock.lock();
+        try {
+            return evicted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            while (size > 0) {
+                entries[head] = null;
+                head = (head + 1) % entries.length;
+                size--;
+            }
+            oldestTimestamp = Long.MAX_VALUE;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // called with the lock held
+    private void evictExpired() {
+        if (maxAgeMillis == NO_MAX_AGE) {
+            return;
+        }
+        long oldestAllowed = System.currentTimeMillis() - maxAgeMillis;
+        if (oldestTimestamp >= oldestAllowed) {
+            return;
+        }
+        // keeps the records that have not expired in arrival order and recomputes the bound
+        int kept = 0;
+        long oldest = Long.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            NotificationRecord record = entries[(head + i) % entries.length];
+            if (record.getTimestamp() < oldestAllowed) {
+                evicted++;
+            } else {
+                entries[(head + kept++) % entries.length] = record;
+                oldest = Math.min(oldest, record.getTimestamp());
+            }
+        }
+        for (int i = kept; i < size; i++) {
+            entries[(head + i) % entries.length] = null;
+        }
+        size = kept;
+        oldestTimestamp = oldest;
+    }
+
+    private void evictOldest() {
+        entries[head] = null;
+        head = (head + 1) % entries.length;
+        size--;
+        evicted++;
+    }
+}
@@ -0,0 +1,33 @@
+package flight.reservation.observer;
+
+import flight.reservation.flight.ScheduledFlight;
+
+// identifies notifications that may be merged: same flight instance and same event type
+final class NotificationKey {
+
+    private final ScheduledFlight flight;
+    private final FlightEventType type;
+
+    NotificationKey(FlightNotification notification) {
+        this(notification.getFlight(), notification.getType());
+    }
+
+    NotificationKey(ScheduledFlight flight, FlightEventType type) {
+        this.flight = flight;
+        this.type = type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof NotificationKey)) {
+            return false;
+        }
+        NotificationKey other = (NotificationKey) o;
+        return flight == other.flight && type == other.type;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(flight) + type.hashCode();
+    }
+}
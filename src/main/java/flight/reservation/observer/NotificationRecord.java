@@ -0,0 +1,77 @@
+package flight.reservation.observer;
+
+import flight.reservation.flight.ScheduledFlight;
+
+/**
+ * Compact copy of a {@link FlightNotification} for storing in an inbox. It keeps the flight number and
+ * airport codes instead of the flight itself, and the message text is only built by {@link #getMessage()}.
+ */
+public final class NotificationRecord {
+
+    private final int flightNumber;
+    private final String departureCode;
+    private final String arrivalCode;
+    private final FlightEventType type;
+    private final double oldValue;
+    private final double newValue;
+    private final long timestamp;
+    private final String text;
+
+    private NotificationRecord(ScheduledFlight flight, FlightEventType type, double oldValue, double newValue, long timestamp, String text) {
+        this.flightNumber = flight.getNumber();
+        this.departureCode = flight.getDeparture().getCode();
+        this.arrivalCode = flight.getArrival().getCode();
+        this.type = type;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.timestamp = timestamp;
+        this.text = text;
+    }
+
+    public static NotificationRecord of(FlightNotification notification) {
+        String text = notification.getType() == FlightEventType.MESSAGE ? notification.getMessage() : null;
+        return new NotificationRecord(notification.getFlight(), notification.getType(),
+                notification.getOldValue(), notification.getNewValue(), notification.getTimestamp(), text);
+    }
+
+    public static NotificationRecord message(ScheduledFlight flight, String message) {
+        return new NotificationRecord(flight, FlightEventType.MESSAGE, 0, 0, System.currentTimeMillis(), message);
+    }
+
+    public String getMessage() {
+        return FlightNotification.format(flightNumber, type, oldValue, newValue, text);
+    }
+
+    public int getFlightNumber() {
+        return flightNumber;
+    }
+
+    public String getDepartureCode() {
+        return departureCode;
+    }
+
+    public String getArrivalCode() {
+        return arrivalCode;
+    }
+
+    public FlightEventType getType() {
+        return type;
+    }
+
+    public double getOldValue() {
+        return oldValue;
+    }
+
+    public double getNewValue() {
+        return newValue;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return getMessage();
+    }
+}
@@ -0,0 +1,112 @@
+package flight.reservation.order;
+
+import flight.reservation.Customer;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.payment.PaymentStrategy;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the booking flow, {@link Customer#createOrder} followed by {@link Order#processOrder()}, as one task per
+ * booking. On platform threads the number of bookings in flight is capped by the pool size; on virtual threads
+ * a booking that waits for its payment or the journal parks without holding a platform thread.
+ * <p>
+ * The build targets Java 11, so virtual threads are looked up at runtime and need a JDK 21 or newer.
+ */
+public class BookingService implements AutoCloseable {
+
+    public enum ExecutionMode {
+        PLATFORM_THREADS,
+        VIRTUAL_THREADS
+    }
+
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+
+    private final ExecutionMode mode;
+    private final ExecutorService executor;
+
+    private BookingService(ExecutionMode mode, ExecutorService executor) {
+        this.mode = mode;
+        this.executor = executor;
+    }
+
+    public static BookingService withPlatformThreads(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return new BookingService(ExecutionMode.PLATFORM_THREADS, Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "booking-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the running JDK has no virtual threads
+     */
+    public static BookingService withVirtualThreads() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+            throw new UnsupportedOperationException("Virtual threads need JDK 21 or newer, running "
+                    + System.getProperty("java.version"));
+        }
+        try {
+            return new BookingService(ExecutionMode.VIRTUAL_THREADS,
+                    (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null));
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            // e.g. a JDK where virtual threads are still a preview feature that is not enabled
+            throw new UnsupportedOperationException("Virtual threads are not available", e);
+        }
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * Books and pays on the executor.
+     *
+     * @return completes with the order once it was processed, closed if the payment succeeded; fails if the
+     * order could not be created or validated, or the payment threw
+     */
+    public CompletableFuture<FlightOrder> book(Customer customer, List<String> passengerNames,
+                                               List<ScheduledFlight> flights, double price,
+                                               PaymentStrategy paymentStrategy) {
+        return CompletableFuture.supplyAsync(() -> {
+            FlightOrder order = customer.createOrder(passengerNames, flights, price);
+            order.setPaymentStrategy(paymentStrategy);
+            order.processOrder();
+            return order;
+        }, executor);
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Stops accepting bookings and waits for the running ones to finish. An interrupt stops waiting and is
+     * kept in the interrupt flag.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
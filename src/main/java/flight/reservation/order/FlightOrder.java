@@ -1,57 +1,179 @@
 package flight.reservation.order;
 
+import flight.reservation.Customer;
+import flight.reservation.Passenger;
+import flight.reservation.flight.ReservationResult;
 import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.flight.SeatReservations;
 import flight.reservation.payment.CreditCard;
 import flight.reservation.payment.CreditCardPaymentStrategy;
 import flight.reservation.payment.PaymentStrategy;
 import flight.reservation.payment.PaypalPaymentStrategy;
+import flight.reservation.screening.NoFlyScreeningService;
+import flight.reservation.screening.WatchList;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class FlightOrder extends Order {
     private final List<ScheduledFlight> flights;
-    static List<String> noFlyList = Arrays.asList("Peter", "Johannes");
+    private static volatile NoFlyScreeningService screeningService =
+            new NoFlyScreeningService(WatchList.of(Arrays.asList("Peter", "Johannes"), false));
     private PaymentStrategy paymentStrategy;
+    // result of the last screening together with the watch list it was made against
+    private volatile Screening screening;
+    private volatile boolean seatsBooked;
 
     public FlightOrder(List<ScheduledFlight> flights) {
         this.flights = flights;
     }
 
+    public FlightOrder(UUID id, List<ScheduledFlight> flights) {
+        super(id);
+        this.flights = flights;
+    }
+
+    /**
+     * Names on the current watch list, normalized and read-only. {@code contains} checks a name the way a
+     * booking is screened, so "Peter" and " peter" are both found.
+     *
+     * @deprecated screen names with {@link #getScreeningService()}
+     */
+    @Deprecated
     public static List<String> getNoFlyList() {
-        return noFlyList;
+        WatchList watchList = screeningService.getWatchList();
+        List<String> names = new ArrayList<>(watchList.getNames());
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return names.get(index);
+            }
+
+            @Override
+            public int size() {
+                return names.size();
+            }
+
+            @Override
+            public boolean contains(Object name) {
+                return name instanceof String && watchList.contains((String) name);
+            }
+        };
+    }
+
+    public static NoFlyScreeningService getScreeningService() {
+        return screeningService;
+    }
+
+    public static void setScreeningService(NoFlyScreeningService screeningService) {
+        FlightOrder.screeningService = screeningService;
     }
 
     public List<ScheduledFlight> getScheduledFlights() {
         return flights;
     }
 
-    @Override
-    protected boolean validateOrder() {
-        if (paymentStrategy == null) {
-            return false;
+    /**
+     * Seats the passengers on every flight of the order, or on none of them if any flight is short of seats.
+     */
+    public ReservationResult bookSeats() {
+        List<Passenger> passengers = getPassengers();
+        ReservationResult result = SeatReservations.reserveAll(flights, passengers.size());
+        if (result.isSuccess()) {
+            flights.forEach(flight -> flight.addReservedPassengers(passengers));
+            seatsBooked = true;
         }
+        return result;
+    }
 
-        if (getCustomer() == null) {
-            return false;
+    public boolean isSeatsBooked() {
+        return seatsBooked;
+    }
+
+    /**
+     * Marks the seats as taken, e.g. for orders restored together with the passengers of their flights.
+     */
+    public void setSeatsBooked() {
+        seatsBooked = true;
+    }
+
+    /**
+     * Screens the customer and the passengers against the no-fly list. The result is kept, so the names are
+     * screened again only after the customer, the passengers or the watch list changed.
+     */
+    public boolean passesScreening() {
+        return passesScreening(screeningService.getWatchList(), null);
+    }
+
+    /**
+     * @param cleared names already cleared against the watch list, e.g. by earlier orders of a batch; they are
+     *                not screened again and the names of this order are added if it passes. May be null.
+     */
+    boolean passesScreening(WatchList watchList, Set<String> cleared) {
+        Screening current = screening;
+        if (current == null || current.watchList != watchList) {
+            current = new Screening(watchList, screen(watchList, cleared));
+            screening = current;
         }
+        return current.passed;
+    }
 
-        if (noFlyList.contains(getCustomer().getName())) {
+    private boolean screen(WatchList watchList, Set<String> cleared) {
+        List<String> names = new ArrayList<>();
+        if (getCustomer() != null) {
+            names.add(getCustomer().getName());
+        }
+        if (getPassengers() != null) {
+            getPassengers().forEach(passenger -> names.add(passenger.getName()));
+        }
+        if (cleared == null) {
+            return watchList.screen(names).isCleared();
+        }
+        names.removeAll(cleared);
+        if (names.isEmpty()) {
+            return true;
+        }
+        if (!watchList.screen(names).isCleared()) {
             return false;
         }
+        cleared.addAll(names);
+        return true;
+    }
+
+    @Override
+    public void setCustomer(Customer customer) {
+        super.setCustomer(customer);
+        screening = null;
+    }
+
+    @Override
+    public void setPassengers(List<Passenger> passengers) {
+        super.setPassengers(passengers);
+        screening = null;
+    }
 
-        if (getPassengers() == null || getPassengers().isEmpty()) {
+    @Override
+    protected boolean validateOrder() {
+        return isComplete() && passesScreening();
+    }
+
+    // everything but the screening of validateOrder
+    boolean isComplete() {
+        if (paymentStrategy == null) {
             return false;
         }
 
-        for (var passenger : getPassengers()) {
-            if (noFlyList.contains(passenger.getName())) {
-                return false;
-            }
+        if (getCustomer() == null) {
+            return false;
         }
 
-        return true;
+        return getPassengers() != null && !getPassengers().isEmpty();
     }
 
     @Override
@@ -63,6 +185,19 @@ public class FlightOrder extends Order {
         return paymentStrategy.pay(this.getPrice());
     }
 
+    @Override
+    protected CompletableFuture<Boolean> processPaymentAsync() {
+        if (!paymentStrategy.isValid()) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        return paymentStrategy.payAsync(this.getPrice());
+    }
+
+    public PaymentStrategy getPaymentStrategy() {
+        return paymentStrategy;
+    }
+
     public void setPaymentStrategy(PaymentStrategy paymentStrategy) {
         this.paymentStrategy = paymentStrategy;
     }
@@ -82,4 +217,14 @@ public class FlightOrder extends Order {
         setPaymentStrategy(new PaypalPaymentStrategy(email, password));
         return processOrder();
     }
-}
\ No newline at end of file
+
+    private static final class Screening {
+        private final WatchList watchList;
+        private final boolean passed;
+
+        Screening(WatchList watchList, boolean passed) {
+            this.watchList = watchList;
+            this.passed = passed;
+        }
+    }
+}
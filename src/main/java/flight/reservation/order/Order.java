@@ -2,19 +2,72 @@ package flight.reservation.order;
 
 import flight.reservation.Customer;
 import flight.reservation.Passenger;
+import flight.reservation.persistence.OrderJournal;
+import flight.reservation.persistence.OrderRecord;
+import flight.reservation.persistence.PaymentStatus;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public abstract class Order {
+    private static volatile OrderIdGenerator idGenerator = OrderIdGenerator.RANDOM;
+    private static volatile OrderJournal journal;
+
     private final UUID id;
     private double price;
-    private boolean isClosed = false;
+    // closed by the thread that completes an asynchronous payment
+    private volatile boolean isClosed = false;
     private Customer customer;
     private List<Passenger> passengers;
 
     public Order() {
-        this.id = UUID.randomUUID();
+        this.id = idGenerator.nextId();
+    }
+
+    // for orders restored from a journal or snapshot
+    protected Order(UUID id) {
+        this.id = Objects.requireNonNull(id);
+    }
+
+    public static OrderJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Sets the journal that processed orders are appended to, or null to stop journaling.
+     */
+    public static void setJournal(OrderJournal journal) {
+        Order.journal = journal;
+    }
+
+    /**
+     * Runs the booking of the orders as one change of the journal, if orders are journaled, so that a
+     * snapshot holds the seats and the orders of the booking or neither.
+     */
+    public static void applyBooking(Collection<? extends Order> orders, Runnable booking) {
+        OrderJournal current = journal;
+        if (current == null) {
+            booking.run();
+        } else {
+            current.applyChange(orders, booking);
+        }
+    }
+
+    public static OrderIdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    /**
+     * Sets the generator for the ids of orders created from now on, e.g. a {@link TimeOrderedIdGenerator}.
+     */
+    public static void setIdGenerator(OrderIdGenerator idGenerator) {
+        Order.idGenerator = Objects.requireNonNull(idGenerator);
     }
 
     // Template method defining the skeleton of order processing
@@ -28,17 +81,73 @@ public abstract class Order {
         }
 
         if (!processPayment()) {
+            record(PaymentStatus.FAILED);
             return false;
         }
 
         finalizeOrder();
+        record(PaymentStatus.PAID);
         return true;
     }
 
+    /**
+     * Like {@link #processOrder()}, but returns while the payment is running; the order is finalized when the
+     * payment completes. As with {@link #processOrder()}, a declined payment completes the future with false and
+     * keeps the order open; a failed validation or a payment that throws completes it exceptionally.
+     */
+    public final CompletableFuture<Boolean> processOrderAsync() {
+        return processOrderAsync(null);
+    }
+
+    /**
+     * @param timeout if the payment takes longer, the future completes with a {@link TimeoutException} and the
+     *                order stays open; the payment is not finalized when it completes later. Null waits forever.
+     */
+    public final CompletableFuture<Boolean> processOrderAsync(Duration timeout) {
+        if (isClosed()) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        if (!validateOrder()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Order validation failed."));
+        }
+
+        CompletableFuture<Boolean> payment = processPaymentAsync();
+        if (timeout != null) {
+            payment = payment.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return payment.thenApply(paid -> {
+            if (!paid) {
+                record(PaymentStatus.FAILED);
+                return false;
+            }
+
+            finalizeOrder();
+            record(PaymentStatus.PAID);
+            return true;
+        });
+    }
+
+    private void record(PaymentStatus status) {
+        OrderJournal current = journal;
+        if (current != null) {
+            current.append(OrderRecord.of(this, status));
+        }
+    }
+
     // Abstract methods to be implemented by subclasses
     protected abstract boolean validateOrder();
     protected abstract boolean processPayment();
 
+    // Hook for payments that complete later, by default the payment runs on the calling thread
+    protected CompletableFuture<Boolean> processPaymentAsync() {
+        try {
+            return CompletableFuture.completedFuture(processPayment());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     // Hook method with default implementation
     protected void finalizeOrder() {
         setClosed();
@@ -0,0 +1,210 @@
+package flight.reservation.order;
+
+import flight.reservation.Customer;
+import flight.reservation.Passenger;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.flight.SeatReservations;
+import flight.reservation.payment.BatchPaymentGateway;
+import flight.reservation.payment.PaymentStrategy;
+import flight.reservation.persistence.OrderJournal;
+import flight.reservation.persistence.OrderRecord;
+import flight.reservation.persistence.PaymentStatus;
+import flight.reservation.screening.WatchList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Processes many flight orders together, e.g. during a flash sale. Every stage runs over the whole batch
+ * before the next one starts:
+ * <ol>
+ *     <li>validation, screening each name only once per batch,</li>
+ *     <li>seat reservation for orders that have not booked seats yet, one reservation per flight,</li>
+ *     <li>booking, adding the passengers to each flight and the orders to each customer at once,</li>
+ *     <li>payment, all payments submitted together to a {@link BatchPaymentGateway},</li>
+ *     <li>journaling, all records appended with a single flush.</li>
+ * </ol>
+ * For each order the outcome is the same as of {@link Customer#createOrder} followed by
+ * {@link Order#processOrder()}: an order whose payment failed keeps its seats and stays open.
+ */
+public class OrderBatchProcessor {
+
+    public enum Outcome {
+        PAID,
+        ALREADY_CLOSED,
+        INVALID,
+        REJECTED_BY_SCREENING,
+        NO_SEATS,
+        PAYMENT_FAILED;
+
+        public boolean isSuccess() {
+            return this == PAID || this == ALREADY_CLOSED;
+        }
+    }
+
+    private final BatchPaymentGateway paymentGateway;
+
+    public OrderBatchProcessor() {
+        this(BatchPaymentGateway.SEQUENTIAL);
+    }
+
+    public OrderBatchProcessor(BatchPaymentGateway paymentGateway) {
+        this.paymentGateway = Objects.requireNonNull(paymentGateway);
+    }
+
+    /**
+     * @return the outcome of every order, in the order of the given list; an order listed twice is processed
+     * once and gets the same outcome twice
+     */
+    public List<Outcome> process(List<FlightOrder> orders) {
+        Outcome[] outcomes = new Outcome[orders.size()];
+        Map<FlightOrder, Integer> firstIndex = new IdentityHashMap<>();
+        List<Integer> valid = validate(orders, outcomes, firstIndex);
+        List<Integer> reserved = reserveSeats(orders, valid, outcomes);
+        book(orders, reserved);
+        List<Integer> booked = new ArrayList<>();
+        for (int index : valid) {
+            if (outcomes[index] == null) {
+                booked.add(index);
+            }
+        }
+        pay(orders, booked, outcomes);
+        for (int i = 0; i < outcomes.length; i++) {
+            if (outcomes[i] == null) {
+                outcomes[i] = outcomes[firstIndex.get(orders.get(i))];
+            }
+        }
+        return Collections.unmodifiableList(Arrays.asList(outcomes));
+    }
+
+    private List<Integer> validate(List<FlightOrder> orders, Outcome[] outcomes, Map<FlightOrder, Integer> firstIndex) {
+        // the watch list is read once so a reload during the batch does not mix lists
+        WatchList watchList = FlightOrder.getScreeningService().getWatchList();
+        Set<String> cleared = new HashSet<>();
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            FlightOrder order = orders.get(i);
+            if (firstIndex.putIfAbsent(order, i) != null) {
+                continue;
+            }
+            if (order.isClosed()) {
+                outcomes[i] = Outcome.ALREADY_CLOSED;
+            } else if (!order.isComplete()) {
+                outcomes[i] = Outcome.INVALID;
+            } else if (!order.passesScreening(watchList, cleared)) {
+                outcomes[i] = Outcome.REJECTED_BY_SCREENING;
+            } else {
+                valid.add(i);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Orders with several flights are reserved one by one first. Then the single flight orders of each flight
+     * are reserved together, or one by one in batch order if the flight has not enough seats left for all.
+     *
+     * @return the orders whose seats were reserved here
+     */
+    private List<Integer> reserveSeats(List<FlightOrder> orders, List<Integer> valid, Outcome[] outcomes) {
+        Map<ScheduledFlight, List<Integer>> byFlight = new LinkedHashMap<>();
+        List<Integer> reserved = new ArrayList<>();
+        for (int index : valid) {
+            FlightOrder order = orders.get(index);
+            List<ScheduledFlight> flights = order.getScheduledFlights();
+            if (order.isSeatsBooked()) {
+                continue;
+            }
+            if (flights.size() == 1) {
+                byFlight.computeIfAbsent(flights.get(0), flight -> new ArrayList<>()).add(index);
+            } else if (SeatReservations.reserveAll(flights, order.getPassengers().size()).isSuccess()) {
+                reserved.add(index);
+            } else {
+                outcomes[index] = Outcome.NO_SEATS;
+            }
+        }
+        for (Map.Entry<ScheduledFlight, List<Integer>> group : byFlight.entrySet()) {
+            ScheduledFlight flight = group.getKey();
+            int seats = 0;
+            for (int index : group.getValue()) {
+                seats += orders.get(index).getPassengers().size();
+            }
+            if (flight.reserveSeats(seats).isSuccess()) {
+                reserved.addAll(group.getValue());
+                continue;
+            }
+            for (int index : group.getValue()) {
+                if (flight.reserveSeats(orders.get(index).getPassengers().size()).isSuccess()) {
+                    reserved.add(index);
+                } else {
+                    outcomes[index] = Outcome.NO_SEATS;
+                }
+            }
+        }
+        return reserved;
+    }
+
+    private void book(List<FlightOrder> orders, List<Integer> reserved) {
+        Map<ScheduledFlight, List<Passenger>> passengers = new LinkedHashMap<>();
+        Map<ScheduledFlight, List<Customer>> observers = new LinkedHashMap<>();
+        Map<Customer, List<Order>> customerOrders = new LinkedHashMap<>();
+        List<FlightOrder> booked = new ArrayList<>(reserved.size());
+        Collections.sort(reserved);
+        for (int index : reserved) {
+            FlightOrder order = orders.get(index);
+            for (ScheduledFlight flight : order.getScheduledFlights()) {
+                passengers.computeIfAbsent(flight, key -> new ArrayList<>()).addAll(order.getPassengers());
+                observers.computeIfAbsent(flight, key -> new ArrayList<>()).add(order.getCustomer());
+            }
+            customerOrders.computeIfAbsent(order.getCustomer(), key -> new ArrayList<>()).add(order);
+            order.setSeatsBooked();
+            booked.add(order);
+        }
+        Order.applyBooking(booked, () -> {
+            passengers.forEach(ScheduledFlight::addReservedPassengers);
+            observers.forEach(ScheduledFlight::registerObservers);
+            customerOrders.forEach((customer, added) -> customer.getOrders().addAll(added));
+        });
+    }
+
+    private void pay(List<FlightOrder> orders, List<Integer> booked, Outcome[] outcomes) {
+        if (booked.isEmpty()) {
+            return;
+        }
+        List<PaymentStrategy> strategies = new ArrayList<>(booked.size());
+        double[] amounts = new double[booked.size()];
+        for (int i = 0; i < booked.size(); i++) {
+            FlightOrder order = orders.get(booked.get(i));
+            strategies.add(order.getPaymentStrategy());
+            amounts[i] = order.getPrice();
+        }
+        boolean[] paid = paymentGateway.submit(strategies, amounts);
+
+        OrderJournal journal = Order.getJournal();
+        List<OrderRecord> records = new ArrayList<>(booked.size());
+        for (int i = 0; i < booked.size(); i++) {
+            int index = booked.get(i);
+            FlightOrder order = orders.get(index);
+            if (paid[i]) {
+                order.finalizeOrder();
+                outcomes[index] = Outcome.PAID;
+            } else {
+                outcomes[index] = Outcome.PAYMENT_FAILED;
+            }
+            if (journal != null) {
+                records.add(OrderRecord.of(order, paid[i] ? PaymentStatus.PAID : PaymentStatus.FAILED));
+            }
+        }
+        if (journal != null) {
+            journal.appendAll(records);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package flight.reservation.order;
+
+import java.util.UUID;
+
+/**
+ * Creates the ids of new orders, see {@link Order#setIdGenerator(OrderIdGenerator)}.
+ */
+public interface OrderIdGenerator {
+
+    /**
+     * Random (version 4) UUIDs from {@link UUID#randomUUID()}, which share one {@code SecureRandom}.
+     */
+    OrderIdGenerator RANDOM = UUID::randomUUID;
+
+    UUID nextId();
+}
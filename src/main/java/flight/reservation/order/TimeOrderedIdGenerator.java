@@ -0,0 +1,59 @@
+package flight.reservation.order;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free generator of time-ordered UUIDs in the version 7 layout: 48 bits of Unix milliseconds and a
+ * 12 bit counter in the most significant half, the node id and random bits in the least significant half.
+ * <p>
+ * Ids of one generator are strictly increasing (compared by {@link UUID#getMostSignificantBits()}), also when
+ * more than 4096 ids are taken in one millisecond or the clock goes back; the timestamp part then runs ahead
+ * of the clock until the clock catches up. The node id keeps ids of different nodes apart.
+ */
+public class TimeOrderedIdGenerator implements OrderIdGenerator {
+
+    public static final int MAX_NODE_ID = 0xffff;
+
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+    private static final int NODE_SHIFT = 46;
+    private static final long RANDOM_MASK = (1L << NODE_SHIFT) - 1;
+
+    // millis << 12 | counter of the last id
+    private final AtomicLong state = new AtomicLong();
+    private final long nodeBits;
+
+    public TimeOrderedIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << NODE_SHIFT;
+    }
+
+    @Override
+    public UUID nextId() {
+        long now = System.currentTimeMillis() << COUNTER_BITS;
+        long current;
+        long next;
+        do {
+            current = state.get();
+            next = Math.max(current + 1, now);
+        } while (!state.compareAndSet(current, next));
+        long millis = next >>> COUNTER_BITS;
+        long counter = next & ((1 << COUNTER_BITS) - 1);
+        long mostSignificant = millis << 16 | VERSION | counter;
+        long leastSignificant = VARIANT | nodeBits | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    public static long getTimestamp(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+
+    public static int getNodeId(UUID id) {
+        return (int) (id.getLeastSignificantBits() >>> NODE_SHIFT) & MAX_NODE_ID;
+    }
+}
@@ -0,0 +1,60 @@
+package flight.reservation.payment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Submits many payments at once, e.g. as one request to a payment provider.
+ */
+@FunctionalInterface
+public interface BatchPaymentGateway {
+
+    /**
+     * Pays one after the other with each strategy; a payment that is invalid, rejected or throws fails only
+     * itself.
+     */
+    BatchPaymentGateway SEQUENTIAL = (strategies, amounts) -> {
+        boolean[] paid = new boolean[strategies.size()];
+        for (int i = 0; i < paid.length; i++) {
+            PaymentStrategy strategy = strategies.get(i);
+            try {
+                paid[i] = strategy.isValid() && strategy.pay(amounts[i]);
+            } catch (RuntimeException e) {
+                paid[i] = false;
+            }
+        }
+        return paid;
+    };
+
+    /**
+     * Starts all payments with {@link PaymentStrategy#payAsync(double)} before waiting for the first, so slow
+     * providers answer in parallel.
+     */
+    BatchPaymentGateway CONCURRENT = (strategies, amounts) -> {
+        List<CompletableFuture<Boolean>> payments = new ArrayList<>(strategies.size());
+        for (int i = 0; i < strategies.size(); i++) {
+            PaymentStrategy strategy = strategies.get(i);
+            try {
+                payments.add(strategy.isValid() ? strategy.payAsync(amounts[i]) : CompletableFuture.completedFuture(false));
+            } catch (RuntimeException e) {
+                payments.add(CompletableFuture.completedFuture(false));
+            }
+        }
+        boolean[] paid = new boolean[payments.size()];
+        for (int i = 0; i < paid.length; i++) {
+            try {
+                paid[i] = payments.get(i).join();
+            } catch (CompletionException e) {
+                paid[i] = false;
+            }
+        }
+        return paid;
+    };
+
+    /**
+     * @return for every strategy whether its amount was paid
+     */
+    boolean[] submit(List<PaymentStrategy> strategies, double[] amounts);
+}
@@ -0,0 +1,227 @@
+package flight.reservation.payment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balance of one card in cents. A payment first reserves its amount, which takes it from the available
+ * balance, and then either captures the hold or releases it back. All operations are lock-free, so many
+ * payments on the same card can run concurrently without overdrawing it.
+ * <p>
+ * Every operation is added to the audit trail together with the available balance it left. Entries of
+ * concurrent operations may appear in either order. The trail keeps the latest entries up to its capacity
+ * and drops the oldest ones beyond it.
+ */
+public class CardLedger {
+
+    public enum EntryType {
+        RESERVED,
+        DECLINED,
+        CAPTURED,
+        RELEASED,
+        ADJUSTED
+    }
+
+    public static final int DEFAULT_AUDIT_CAPACITY = 1024;
+
+    private final AtomicLong available;
+    private final AtomicLong held = new AtomicLong();
+    private final AtomicLong captured = new AtomicLong();
+    private final AtomicLong holdIds = new AtomicLong();
+    private final ConcurrentLinkedQueue<Entry> auditTrail = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger auditSize = new AtomicInteger();
+    private final int auditCapacity;
+
+    public CardLedger(long availableCents) {
+        this(availableCents, DEFAULT_AUDIT_CAPACITY);
+    }
+
+    /**
+     * @param auditCapacity number of the latest operations kept in the audit trail
+     */
+    public CardLedger(long availableCents, int auditCapacity) {
+        if (auditCapacity < 0) {
+            throw new IllegalArgumentException("Audit capacity must not be negative: " + auditCapacity);
+        }
+        this.available = new AtomicLong(availableCents);
+        this.auditCapacity = auditCapacity;
+    }
+
+    /**
+     * Takes the amount from the available balance if it covers it.
+     *
+     * @return the hold to capture or release, or null if the balance is too low
+     */
+    public Hold reserve(long cents) {
+        if (cents < 0) {
+            throw new IllegalArgumentException("Amount must not be negative: " + cents);
+        }
+        long current;
+        do {
+            current = available.get();
+            if (current < cents) {
+                audit(new Entry(EntryType.DECLINED, 0, cents, current));
+                return null;
+            }
+        } while (!available.compareAndSet(current, current - cents));
+        held.addAndGet(cents);
+        Hold hold = new Hold(holdIds.incrementAndGet(), cents);
+        audit(new Entry(EntryType.RESERVED, hold.id, cents, current - cents));
+        return hold;
+    }
+
+    /**
+     * Sets the available balance, e.g. when the card limit changes. Holds that are still open are not
+     * affected.
+     */
+    public void setAvailable(long cents) {
+        long previous = available.getAndSet(cents);
+        audit(new Entry(EntryType.ADJUSTED, 0, cents - previous, cents));
+    }
+
+    public long getAvailable() {
+        return available.get();
+    }
+
+    /**
+     * @return sum of the holds that were neither captured nor released yet
+     */
+    public long getHeld() {
+        return held.get();
+    }
+
+    public long getCaptured() {
+        return captured.get();
+    }
+
+    /**
+     * @return the latest operations, oldest first
+     */
+    public List<Entry> getAuditTrail() {
+        return new ArrayList<>(auditTrail);
+    }
+
+    public static double toAmount(long cents) {
+        return cents / 100.0;
+    }
+
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    // concurrent adders may briefly exceed the capacity, each removes at most one old entry
+    private void audit(Entry entry) {
+        auditTrail.add(entry);
+        if (auditSize.incrementAndGet() > auditCapacity && auditTrail.poll() != null) {
+            auditSize.decrementAndGet();
+        }
+    }
+
+    /**
+     * An open reservation. It is settled exactly once; later calls of {@link #capture()} or {@link #release()}
+     * return false.
+     */
+    public final class Hold {
+        private static final int OPEN = 0;
+        private static final int CAPTURED = 1;
+        private static final int RELEASED = 2;
+
+        private final long id;
+        private final long cents;
+        private volatile int state = OPEN;
+
+        private Hold(long id, long cents) {
+            this.id = id;
+            this.cents = cents;
+        }
+
+        /**
+         * Books the reserved amount as paid.
+         */
+        public boolean capture() {
+            if (!HOLD_STATE.compareAndSet(this, OPEN, CAPTURED)) {
+                return false;
+            }
+            held.addAndGet(-cents);
+            captured.addAndGet(cents);
+            audit(new Entry(EntryType.CAPTURED, id, cents, available.get()));
+            return true;
+        }
+
+        /**
+         * Gives the reserved amount back to the available balance.
+         */
+        public boolean release() {
+            if (!HOLD_STATE.compareAndSet(this, OPEN, RELEASED)) {
+                return false;
+            }
+            held.addAndGet(-cents);
+            long after = available.addAndGet(cents);
+            audit(new Entry(EntryType.RELEASED, id, cents, after));
+            return true;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getCents() {
+            return cents;
+        }
+
+        public boolean isOpen() {
+            return state == OPEN;
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<Hold> HOLD_STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Hold.class, "state");
+
+    public static final class Entry {
+        private final EntryType type;
+        private final long holdId;
+        private final long cents;
+        private final long availableAfter;
+        private final long timestamp;
+
+        Entry(EntryType type, long holdId, long cents, long availableAfter) {
+            this.type = type;
+            this.holdId = holdId;
+            this.cents = cents;
+            this.availableAfter = availableAfter;
+            this.timestamp = System.currentTimeMillis();
+        }
+
+        public EntryType getType() {
+            return type;
+        }
+
+        /**
+         * @return id of the hold, 0 for declined reservations and adjustments
+         */
+        public long getHoldId() {
+            return holdId;
+        }
+
+        public long getCents() {
+            return cents;
+        }
+
+        public long getAvailableAfter() {
+            return availableAfter;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + cents + " (hold " + holdId + ", available " + availableAfter + ")";
+        }
+    }
+}
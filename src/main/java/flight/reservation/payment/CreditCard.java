@@ -1,19 +1,24 @@
 package flight.reservation.payment;
 
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Dummy credit card class.
  */
 public class CreditCard {
-    private double amount;
+    private static final AtomicReferenceFieldUpdater<CreditCard, CardLedger> LEDGER =
+            AtomicReferenceFieldUpdater.newUpdater(CreditCard.class, CardLedger.class, "ledger");
+
+    // created on first use, so cards created without running the constructor, e.g. mocks, get one as well
+    private volatile CardLedger ledger;
     private String number;
     private Date date;
     private String cvv;
     private boolean valid;
 
     public CreditCard(String number, Date date, String cvv) {
-        this.amount = 100000;
+        this.setAmount(100000);
         this.number = number;
         this.date = date;
         this.cvv = cvv;
@@ -21,11 +26,23 @@ public class CreditCard {
     }
 
     public void setAmount(double amount) {
-        this.amount = amount;
+        getLedger().setAvailable(CardLedger.toCents(amount));
     }
 
+    /**
+     * @return the available balance, amounts reserved by running payments are already taken off
+     */
     public double getAmount() {
-        return amount;
+        return CardLedger.toAmount(getLedger().getAvailable());
+    }
+
+    public CardLedger getLedger() {
+        CardLedger current = ledger;
+        if (current == null) {
+            LEDGER.compareAndSet(this, null, new CardLedger(0));
+            current = ledger;
+        }
+        return current;
     }
 
     public boolean isValid() {
@@ -36,4 +53,4 @@ public class CreditCard {
         // Dummy validation
         this.valid = number.length() > 0 && date.getTime() > System.currentTimeMillis() && !cvv.equals("000");
     }
-}
\ No newline at end of file
+}
@@ -1,38 +1,68 @@
 package flight.reservation.payment;
 
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
 
 // concrete strategy for credit card payment
 public class CreditCardPaymentStrategy implements PaymentStrategy {
     private final CreditCard creditCard;
+    private final PaymentGateway gateway;
 
     public CreditCardPaymentStrategy(String number, Date expirationDate, String cvv) {
-        this.creditCard = new CreditCard(number, expirationDate, cvv);
+        this(new CreditCard(number, expirationDate, cvv));
     }
 
 
     public CreditCardPaymentStrategy(CreditCard creditCard) {
+        this(creditCard, PaymentGateway.IMMEDIATE);
+    }
+
+    /**
+     * @param gateway approves the charge while the amount is reserved on the card
+     */
+    public CreditCardPaymentStrategy(CreditCard creditCard, PaymentGateway gateway) {
         this.creditCard = creditCard;
+        this.gateway = gateway;
     }
 
     @Override
     public boolean pay(double amount) throws IllegalStateException {
+        return PaymentStrategy.await(payAsync(amount));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> payAsync(double amount) {
         if (!isValid()) {
-            throw new IllegalStateException("Credit card information is not valid.");
+            return CompletableFuture.failedFuture(new IllegalStateException("Credit card information is not valid."));
         }
-        
+
         System.out.println("Paying " + amount + " using Credit Card.");
-        double remainingAmount = creditCard.getAmount() - amount;
-        if (remainingAmount < 0) {
-            System.out.printf("Card limit reached - Balance: %f%n", remainingAmount);
-            throw new IllegalStateException("Card limit reached");
+        CardLedger ledger = creditCard.getLedger();
+        CardLedger.Hold hold = ledger.reserve(CardLedger.toCents(amount));
+        if (hold == null) {
+            System.out.printf("Card limit reached - Balance: %f%n", CardLedger.toAmount(ledger.getAvailable()) - amount);
+            return CompletableFuture.failedFuture(new IllegalStateException("Card limit reached"));
         }
-        creditCard.setAmount(remainingAmount);
-        return true;
+
+        // Whoever completes the result first decides: if the caller gave up on the payment, e.g. by a timeout,
+        // the hold is released even if the gateway approves later.
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        gateway.charge(amount).whenComplete((approved, failure) -> {
+            if (failure != null) {
+                hold.release();
+                result.completeExceptionally(failure);
+            } else if (approved && result.complete(true)) {
+                hold.capture();
+            } else {
+                hold.release();
+                result.complete(false);
+            }
+        });
+        return result;
     }
 
     @Override
     public boolean isValid() {
         return creditCard != null && creditCard.isValid();
     }
-} 
\ No newline at end of file
+} 
@@ -0,0 +1,21 @@
+package flight.reservation.payment;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Remote side of a payment. Charges complete asynchronously so the calling thread is not held while the
+ * provider answers.
+ */
+@FunctionalInterface
+public interface PaymentGateway {
+
+    /**
+     * Approves every charge at once; the behaviour of the payment strategies without a provider.
+     */
+    PaymentGateway IMMEDIATE = amount -> CompletableFuture.completedFuture(true);
+
+    /**
+     * @return completes with whether the provider approved the charge
+     */
+    CompletableFuture<Boolean> charge(double amount);
+}
@@ -1,7 +1,36 @@
 package flight.reservation.payment;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 public interface PaymentStrategy {
     boolean pay(double amount) throws IllegalStateException;
-    
+
+    /**
+     * Pays without holding the calling thread while the payment provider answers. The future completes
+     * exceptionally where {@link #pay(double)} throws. The default pays on the calling thread.
+     */
+    default CompletableFuture<Boolean> payAsync(double amount) {
+        try {
+            return CompletableFuture.completedFuture(pay(amount));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     boolean isValid();
-} 
\ No newline at end of file
+
+    /**
+     * Waits for an asynchronous payment and throws its failure as {@link #pay(double)} would.
+     */
+    static boolean await(CompletableFuture<Boolean> payment) {
+        try {
+            return payment.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -1,13 +1,94 @@
 package flight.reservation.payment;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Dummy PayPal account store, keyed by email. Validating a payment is one lookup and a constant-time
+ * comparison of the password, so it stays cheap for customers paying many orders. Accounts can be added
+ * while payments are validated.
+ */
 public class Paypal {
-    public static final Map<String, String> DATA_BASE = new HashMap<>();
+
+    private static final Map<String, Credential> ACCOUNTS = new ConcurrentHashMap<>();
+
+    /**
+     * Emails keyed by password, as the accounts were stored before. A read-only view computed from the
+     * accounts, so it always shows the current ones; of two accounts with the same password it shows one.
+     * Every lookup scans all accounts.
+     *
+     * @deprecated look accounts up by email with {@link #isAuthorized(String, String)}
+     */
+    @Deprecated
+    public static final Map<String, String> DATA_BASE = new AbstractMap<String, String>() {
+        @Override
+        public String get(Object password) {
+            for (Map.Entry<String, Credential> account : ACCOUNTS.entrySet()) {
+                if (account.getValue().password.equals(password)) {
+                    return account.getKey();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object password) {
+            return get(password) != null;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            Map<String, String> emailsByPassword = new HashMap<>();
+            ACCOUNTS.forEach((email, credential) -> emailsByPassword.putIfAbsent(credential.password, email));
+            return Collections.unmodifiableMap(emailsByPassword).entrySet();
+        }
+    };
 
     static {
-        DATA_BASE.put("amanda1985", "amanda@ya.com");
-        DATA_BASE.put("qwerty", "john@amazon.eu");
+        register("amanda@ya.com", "amanda1985");
+        register("john@amazon.eu", "qwerty");
+    }
+
+    /**
+     * Adds the account or replaces its password.
+     */
+    public static void register(String email, String password) {
+        ACCOUNTS.put(Objects.requireNonNull(email), new Credential(Objects.requireNonNull(password)));
+    }
+
+    public static boolean remove(String email) {
+        return ACCOUNTS.remove(email) != null;
+    }
+
+    public static boolean isRegistered(String email) {
+        return ACCOUNTS.containsKey(email);
+    }
+
+    /**
+     * Checks the password in constant time, so the time taken does not tell how much of it matched.
+     */
+    public static boolean isAuthorized(String email, String password) {
+        if (email == null || password == null) {
+            return false;
+        }
+        Credential credential = ACCOUNTS.get(email);
+        return credential != null && MessageDigest.isEqual(credential.bytes, password.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class Credential {
+        private final String password;
+        private final byte[] bytes;
+
+        Credential(String password) {
+            this.password = password;
+            this.bytes = password.getBytes(StandardCharsets.UTF_8);
+        }
     }
 }
@@ -1,29 +1,41 @@
 package flight.reservation.payment;
 
+import java.util.concurrent.CompletableFuture;
+
 // concrete strategy for paypal payment
 public class PaypalPaymentStrategy implements PaymentStrategy {
     private final String email;
     private final String password;
+    private final PaymentGateway gateway;
 
     
     public PaypalPaymentStrategy(String email, String password) {
+        this(email, password, PaymentGateway.IMMEDIATE);
+    }
+
+    public PaypalPaymentStrategy(String email, String password, PaymentGateway gateway) {
         this.email = email;
         this.password = password;
+        this.gateway = gateway;
     }
 
     @Override
     public boolean pay(double amount) throws IllegalStateException {
+        return PaymentStrategy.await(payAsync(amount));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> payAsync(double amount) {
         if (!isValid()) {
-            throw new IllegalStateException("PayPal credentials are not valid.");
+            return CompletableFuture.failedFuture(new IllegalStateException("PayPal credentials are not valid."));
         }
         
         System.out.println("Paying " + amount + " using PayPal.");
-        return true;
+        return gateway.charge(amount);
     }
 
     @Override
     public boolean isValid() {
-        return email != null && password != null && 
-               email.equals(Paypal.DATA_BASE.get(password));
+        return Paypal.isAuthorized(email, password);
     }
-} 
\ No newline at end of file
+}
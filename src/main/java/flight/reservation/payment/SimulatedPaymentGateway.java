@@ -0,0 +1,57 @@
+package flight.reservation.payment;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gateway that approves every charge after a fixed latency. Waiting charges are timers, not threads, so any
+ * number of them can be in flight at once.
+ */
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    private final Executor delayed;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final LongAdder charges = new LongAdder();
+
+    public SimulatedPaymentGateway(Duration latency) {
+        this(latency, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor runs the stages that depend on a completed charge
+     */
+    public SimulatedPaymentGateway(Duration latency, Executor executor) {
+        this.delayed = CompletableFuture.delayedExecutor(latency.toNanos(), TimeUnit.NANOSECONDS, executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> charge(double amount) {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return CompletableFuture.supplyAsync(() -> {
+            inFlight.decrementAndGet();
+            charges.increment();
+            return true;
+        }, delayed);
+    }
+
+    public long getChargeCount() {
+        return charges.sum();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return highest number of charges that were waiting for an answer at the same time
+     */
+    public int getMaxInFlightCount() {
+        return maxInFlight.get();
+    }
+}
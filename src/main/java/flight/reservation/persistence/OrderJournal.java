@@ -0,0 +1,592 @@
+package flight.reservation.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of {@link OrderRecord}s in memory-mapped segment files of a fixed size.
+ * <p>
+ * Every record is stored as {@code [length][crc32c][payload]}; a zero length marks the end of a segment.
+ * Appending copies the encoded record into the mapped segment under a short lock. A flusher thread forces
+ * the written part to disk: with {@link Durability#SYNC} appenders wait until their record was forced, and
+ * all records written while the previous force was running are forced together (group commit). With
+ * {@link Durability#ASYNC} appenders return at once and the flusher forces at most once per flush interval,
+ * or right away when {@link #flush()} or {@link #awaitDurable(long)} waits for it.
+ * <p>
+ * Positions are logical offsets, {@code segment index * segment size + offset in the segment}, and grow
+ * with every append.
+ * <p>
+ * Bookings change the reservation state before their records are appended. They are applied through
+ * {@link #applyChange}, so that a {@link Cut} can tell which of the state it copies already belongs to
+ * records after its position.
+ */
+public class OrderJournal implements AutoCloseable {
+
+    public enum Durability {
+        SYNC,
+        ASYNC
+    }
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final int HEADER_SIZE = 8;
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final long ASYNC_FLUSH_INTERVAL_MILLIS = 10;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Durability durability;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pendingWrites = lock.newCondition();
+    private final Condition forced = lock.newCondition();
+    private final ThreadLocal<ByteBuffer> encodeBuffer = ThreadLocal.withInitial(() -> ByteBuffer.allocate(512));
+    private final ThreadLocal<CRC32C> checksum = ThreadLocal.withInitial(CRC32C::new);
+    private final Thread flusher;
+    // changes take the read lock, so they only wait for a cut being opened or finished
+    private final ReentrantReadWriteLock changeLock = new ReentrantReadWriteLock();
+    private final List<Cut> openCuts = new CopyOnWriteArrayList<>();
+
+    // guarded by lock
+    private long segmentIndex;
+    private MappedByteBuffer segment;
+    private long writtenPosition;
+    private long durablePosition;
+    private long appendCount;
+    private long forceCount;
+    private boolean closed;
+    // set by threads waiting for a force, so an ASYNC flusher does not wait out the interval
+    private boolean forceRequested;
+
+    public OrderJournal(Path directory, Durability durability) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, durability);
+    }
+
+    /**
+     * Opens the journal in the directory, continuing after the last complete record.
+     */
+    public OrderJournal(Path directory, int segmentSize, Durability durability) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.durability = durability;
+        List<Long> segments = segmentIndexes(directory);
+        this.segmentIndex = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        this.segment = map(segmentIndex);
+        int end = findEnd(segment);
+        // Mapped pages reach the disk in any order, so a crash can leave a zero hole followed by stale but
+        // valid-looking records. Clear everything behind the last complete record so none of it can be read
+        // once new records close the hole.
+        if (clear(segment, end)) {
+            segment.force();
+        }
+        segment.position(end);
+        this.writtenPosition = position(segmentIndex, end);
+        this.durablePosition = writtenPosition;
+        this.flusher = new Thread(this::flushLoop, "order-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Appends the record; with {@link Durability#SYNC} returns after the record was forced to disk.
+     *
+     * @return position after the record
+     */
+    public long append(OrderRecord record) {
+        ByteBuffer payload = encode(record);
+        int crc = checksum(payload);
+        long end;
+        lock.lock();
+        try {
+            ensureOpen();
+            end = put(payload, crc);
+            if (durability == Durability.SYNC) {
+                pendingWrites.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (durability == Durability.SYNC) {
+            awaitDurable(end);
+        }
+        return end;
+    }
+
+    /**
+     * Appends the records one after the other under a single lock; with {@link Durability#SYNC} returns after
+     * all of them were forced to disk, which costs one wait instead of one per record.
+     *
+     * @return position after the last record
+     */
+    public long appendAll(List<OrderRecord> records) {
+        List<ByteBuffer> payloads = new ArrayList<>(records.size());
+        int[] crcs = new int[records.size()];
+        for (OrderRecord record : records) {
+            ByteBuffer payload = encode(record);
+            crcs[payloads.size()] = checksum(payload);
+            // the encode buffer is reused for the next record
+            payloads.add(ByteBuffer.allocate(payload.remaining()).put(payload).flip());
+        }
+        long end;
+        lock.lock();
+        try {
+            ensureOpen();
+            end = writtenPosition;
+            for (int i = 0; i < payloads.size(); i++) {
+                end = put(payloads.get(i), crcs[i]);
+            }
+            if (durability == Durability.SYNC) {
+                pendingWrites.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (durability == Durability.SYNC) {
+            awaitDurable(end);
+        }
+        return end;
+    }
+
+    /**
+     * Waits until everything up to the position was forced to disk.
+     */
+    public void awaitDurable(long position) {
+        lock.lock();
+        try {
+            while (durablePosition < position) {
+                if (closed && !flusher.isAlive()) {
+                    throw new IllegalStateException("Journal closed before the record was forced");
+                }
+                forceRequested = true;
+                pendingWrites.signal();
+                forced.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces all appended records to disk.
+     */
+    public void flush() {
+        long position;
+        lock.lock();
+        try {
+            position = writtenPosition;
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(position);
+    }
+
+    /**
+     * Reads all complete records in append order.
+     */
+    public void replay(Consumer<OrderRecord> consumer) throws IOException {
+        replay(0, consumer);
+    }
+
+    /**
+     * Reads the complete records starting at a position returned by {@link #append(OrderRecord)} or
+     * {@link #getPosition()}.
+     */
+    public void replay(long fromPosition, Consumer<OrderRecord> consumer) throws IOException {
+        long lastSegment;
+        lock.lock();
+        try {
+            lastSegment = segmentIndex;
+        } finally {
+            lock.unlock();
+        }
+        for (long index : segmentIndexes(directory)) {
+            if (index > lastSegment || position(index + 1, 0) <= fromPosition) {
+                continue;
+            }
+            ByteBuffer buffer = mapForReading(index);
+            int offset = index == fromPosition / segmentSize ? (int) (fromPosition % segmentSize) : 0;
+            buffer.position(Math.min(offset, buffer.limit()));
+            readRecords(buffer, consumer);
+        }
+    }
+
+    /**
+     * Applies a change to the reservation state whose records are appended later, e.g. seating the
+     * passengers of new orders. Changes run concurrently with each other and with appends.
+     *
+     * @param subjects identify the change to the open {@link Cut}s, e.g. the booked orders
+     */
+    public void applyChange(Collection<?> subjects, Runnable change) {
+        changeLock.readLock().lock();
+        try {
+            for (Cut cut : openCuts) {
+                cut.changed.addAll(subjects);
+            }
+            change.run();
+        } finally {
+            changeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Opens a cut at the current position, e.g. to copy the state for a snapshot without blocking appends
+     * or bookings. Close it once the copy is done.
+     */
+    public Cut openCut() {
+        changeLock.writeLock().lock();
+        try {
+            Cut cut = new Cut(getPosition());
+            openCuts.add(cut);
+            return cut;
+        } finally {
+            changeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A position in the journal plus the changes applied since it was taken. State copied while the cut is
+     * open matches the position once the subjects of those changes are left out: their records can only
+     * follow the position.
+     */
+    public final class Cut implements AutoCloseable {
+        private final long position;
+        private final Set<Object> changed = ConcurrentHashMap.newKeySet();
+
+        private Cut(long position) {
+            this.position = position;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+
+        /**
+         * Waits for running changes to finish, so that the result covers every change whose effects were
+         * copied before the call.
+         *
+         * @return subjects of the changes applied since the cut was opened
+         */
+        public Set<Object> getChangedSubjects() {
+            changeLock.writeLock().lock();
+            try {
+                return new HashSet<>(changed);
+            } finally {
+                changeLock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            openCuts.remove(this);
+        }
+    }
+
+    /**
+     * Deletes the segments that only hold records before the position. The segment appended to is kept.
+     *
+     * @return number of deleted segments
+     */
+    public int truncateBefore(long position) throws IOException {
+        long firstKept;
+        lock.lock();
+        try {
+            firstKept = Math.min(segmentIndex, position / segmentSize);
+        } finally {
+            lock.unlock();
+        }
+        int deleted = 0;
+        for (long index : segmentIndexes(directory)) {
+            if (index < firstKept && Files.deleteIfExists(segmentFile(index))) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * @return position after the last appended record
+     */
+    public long getPosition() {
+        lock.lock();
+        try {
+            return writtenPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAppendCount() {
+        lock.lock();
+        try {
+            return appendCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of times the flusher forced a segment; with many concurrent appenders it is much
+     * lower than {@link #getAppendCount()}
+     */
+    public long getForceCount() {
+        lock.lock();
+        try {
+            return forceCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Forces the remaining records and stops the flusher. An interrupt stops waiting for the flusher and is
+     * kept in the interrupt flag.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            pendingWrites.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    // called with the lock held
+    private long put(ByteBuffer payload, int crc) {
+        int length = payload.remaining();
+        if (segment.remaining() < length + HEADER_SIZE) {
+            roll();
+        }
+        segment.putInt(length);
+        segment.putInt(crc);
+        segment.put(payload);
+        writtenPosition = position(segmentIndex, segment.position());
+        appendCount++;
+        return writtenPosition;
+    }
+
+    private int checksum(ByteBuffer payload) {
+        int length = payload.remaining();
+        if (length + HEADER_SIZE >= segmentSize) {
+            throw new IllegalArgumentException("Record of " + length + " bytes does not fit into a segment");
+        }
+        CRC32C crc = checksum.get();
+        crc.reset();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private ByteBuffer encode(OrderRecord record) {
+        ByteBuffer buffer = encodeBuffer.get();
+        while (true) {
+            buffer.clear();
+            try {
+                record.encode(buffer);
+                buffer.flip();
+                return buffer;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                encodeBuffer.set(buffer);
+            }
+        }
+    }
+
+    // called with the lock held; the full segment is forced before appends continue in the next one
+    private void roll() {
+        segment.force();
+        forceCount++;
+        durablePosition = writtenPosition;
+        forced.signalAll();
+        try {
+            segment = map(segmentIndex + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segmentIndex++;
+    }
+
+    private void flushLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(ASYNC_FLUSH_INTERVAL_MILLIS);
+        long nextForce = System.nanoTime();
+        while (true) {
+            MappedByteBuffer toForce;
+            long target;
+            lock.lock();
+            try {
+                if (durability == Durability.ASYNC) {
+                    // under steady appends there is always something to force, so wait out the interval first
+                    long remaining = nextForce - System.nanoTime();
+                    while (remaining > 0 && !closed && !forceRequested) {
+                        remaining = pendingWrites.awaitNanos(remaining);
+                    }
+                }
+                while (writtenPosition == durablePosition && !closed) {
+                    if (durability == Durability.SYNC) {
+                        pendingWrites.awaitUninterruptibly();
+                    } else {
+                        pendingWrites.awaitNanos(intervalNanos);
+                    }
+                }
+                if (writtenPosition == durablePosition) {
+                    forced.signalAll();
+                    return;
+                }
+                toForce = segment;
+                target = writtenPosition;
+                forceRequested = false;
+                nextForce = System.nanoTime() + intervalNanos;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            // appenders keep writing to the segment while it is forced, their records join the next force
+            toForce.force();
+            lock.lock();
+            try {
+                forceCount++;
+                durablePosition = Math.max(durablePosition, target);
+                forced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private long position(long index, int offset) {
+        return index * segmentSize + offset;
+    }
+
+    private Path segmentFile(long index) {
+        return directory.resolve(String.format("%016d%s", index, SEGMENT_SUFFIX));
+    }
+
+    private MappedByteBuffer map(long index) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile(index), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    // read-only, so replaying neither creates nor grows segment files and leaves no dirty pages behind
+    private MappedByteBuffer mapForReading(long index) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile(index), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(segmentSize, channel.size()));
+        }
+    }
+
+    static List<Long> segmentIndexes(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Zeroes the segment from the offset to its end, skipping pages that are zero already.
+     *
+     * @return whether anything was cleared
+     */
+    private static boolean clear(MappedByteBuffer segment, int from) {
+        byte[] zeros = new byte[4096];
+        boolean cleared = false;
+        for (int start = from; start < segment.capacity(); start += zeros.length) {
+            int length = Math.min(zeros.length, segment.capacity() - start);
+            for (int i = start; i < start + length; i++) {
+                if (segment.get(i) != 0) {
+                    ByteBuffer chunk = segment.duplicate();
+                    chunk.position(start);
+                    chunk.put(zeros, 0, length);
+                    cleared = true;
+                    break;
+                }
+            }
+        }
+        return cleared;
+    }
+
+    // offset after the last complete record of the segment
+    private static int findEnd(ByteBuffer segment) {
+        ByteBuffer buffer = segment.duplicate();
+        buffer.position(0);
+        readRecords(buffer, record -> { });
+        return buffer.position();
+    }
+
+    /**
+     * Reads records from the buffer's position until the end marker or an incomplete record, leaving the
+     * position after the last complete record.
+     */
+    private static void readRecords(ByteBuffer buffer, Consumer<OrderRecord> consumer) {
+        CRC32C crc = new CRC32C();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                buffer.position(start);
+                return;
+            }
+            ByteBuffer payload = buffer.slice();
+            payload.limit(length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != expectedCrc) {
+                buffer.position(start);
+                return;
+            }
+            buffer.position(start + HEADER_SIZE + length);
+            consumer.accept(OrderRecord.decode(payload));
+        }
+    }
+}
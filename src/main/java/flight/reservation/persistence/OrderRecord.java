@@ -0,0 +1,182 @@
+package flight.reservation.persistence;
+
+import flight.reservation.Passenger;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.order.FlightOrder;
+import flight.reservation.order.Order;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Journal entry of an order. Flights are referenced by number and departure time, customers by email, so a
+ * record can be applied to a schedule and customers that were loaded again after a restart.
+ */
+public final class OrderRecord {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final UUID orderId;
+    private final String customerName;
+    private final String customerEmail;
+    private final int[] flightNumbers;
+    private final long[] departureTimes;
+    private final List<String> passengerNames;
+    private final double price;
+    private final PaymentStatus paymentStatus;
+    private final long timestamp;
+
+    public OrderRecord(UUID orderId, String customerName, String customerEmail, int[] flightNumbers, long[] departureTimes,
+                       List<String> passengerNames, double price, PaymentStatus paymentStatus, long timestamp) {
+        if (flightNumbers.length != departureTimes.length) {
+            throw new IllegalArgumentException("Every flight needs a number and a departure time");
+        }
+        this.orderId = orderId;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.flightNumbers = flightNumbers.clone();
+        this.departureTimes = departureTimes.clone();
+        this.passengerNames = Collections.unmodifiableList(new ArrayList<>(passengerNames));
+        this.price = price;
+        this.paymentStatus = paymentStatus;
+        this.timestamp = timestamp;
+    }
+
+    public static OrderRecord of(Order order, PaymentStatus paymentStatus) {
+        List<ScheduledFlight> flights = order instanceof FlightOrder
+                ? ((FlightOrder) order).getScheduledFlights()
+                : Collections.emptyList();
+        int[] numbers = new int[flights.size()];
+        long[] departures = new long[flights.size()];
+        for (int i = 0; i < flights.size(); i++) {
+            numbers[i] = flights.get(i).getNumber();
+            departures[i] = flights.get(i).getDepartureTime().getTime();
+        }
+        List<String> passengers = new ArrayList<>();
+        if (order.getPassengers() != null) {
+            for (Passenger passenger : order.getPassengers()) {
+                passengers.add(passenger.getName());
+            }
+        }
+        String name = order.getCustomer() == null ? null : order.getCustomer().getName();
+        String email = order.getCustomer() == null ? null : order.getCustomer().getEmail();
+        return new OrderRecord(order.getId(), name, email, numbers, departures, passengers, order.getPrice(),
+                paymentStatus, System.currentTimeMillis());
+    }
+
+    /**
+     * Writes the record at the buffer's position.
+     *
+     * @throws java.nio.BufferOverflowException if the buffer is too small
+     */
+    void encode(ByteBuffer buffer) {
+        buffer.put(FORMAT_VERSION);
+        buffer.put((byte) paymentStatus.ordinal());
+        buffer.putLong(orderId.getMostSignificantBits());
+        buffer.putLong(orderId.getLeastSignificantBits());
+        buffer.putLong(timestamp);
+        buffer.putDouble(price);
+        putString(buffer, customerName);
+        putString(buffer, customerEmail);
+        buffer.putInt(flightNumbers.length);
+        for (int i = 0; i < flightNumbers.length; i++) {
+            buffer.putInt(flightNumbers[i]);
+            buffer.putLong(departureTimes[i]);
+        }
+        buffer.putInt(passengerNames.size());
+        for (String passenger : passengerNames) {
+            putString(buffer, passenger);
+        }
+    }
+
+    static OrderRecord decode(ByteBuffer buffer) {
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("Unknown order record version " + version);
+        }
+        PaymentStatus status = PaymentStatus.values()[buffer.get()];
+        UUID id = new UUID(buffer.getLong(), buffer.getLong());
+        long timestamp = buffer.getLong();
+        double price = buffer.getDouble();
+        String name = getString(buffer);
+        String email = getString(buffer);
+        int flights = buffer.getInt();
+        int[] numbers = new int[flights];
+        long[] departures = new long[flights];
+        for (int i = 0; i < flights; i++) {
+            numbers[i] = buffer.getInt();
+            departures[i] = buffer.getLong();
+        }
+        int passengerCount = buffer.getInt();
+        List<String> passengers = new ArrayList<>(passengerCount);
+        for (int i = 0; i < passengerCount; i++) {
+            passengers.add(getString(buffer));
+        }
+        return new OrderRecord(id, name, email, numbers, departures, passengers, price, status, timestamp);
+    }
+
+    // length prefixed UTF-8, -1 for null
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public int getFlightCount() {
+        return flightNumbers.length;
+    }
+
+    public int getFlightNumber(int index) {
+        return flightNumbers[index];
+    }
+
+    public long getDepartureTime(int index) {
+        return departureTimes[index];
+    }
+
+    public List<String> getPassengerNames() {
+        return passengerNames;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public PaymentStatus getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
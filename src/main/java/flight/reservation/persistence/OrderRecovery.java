@@ -0,0 +1,116 @@
+package flight.reservation.persistence;
+
+import flight.reservation.Customer;
+import flight.reservation.Passenger;
+import flight.reservation.flight.Schedule;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.order.FlightOrder;
+import flight.reservation.order.Order;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Rebuilds orders from journal records, e.g. {@code journal.replay(recovery::apply)}. The first record of an
+ * order creates it, adds it to its customer and seats its passengers on the flights; later records of the
+ * same order only update the payment state. Paid orders are restored closed.
+ * <p>
+ * Flights must already be in the schedule. Customers are looked up by email and created if unknown; the
+ * orders of known customers, e.g. restored from a snapshot, are only updated by later records.
+ */
+public class OrderRecovery {
+
+    private final Schedule schedule;
+    private final Map<String, Customer> customers = new LinkedHashMap<>();
+    private final Map<UUID, FlightOrder> orders = new LinkedHashMap<>();
+    private int skipped;
+
+    public OrderRecovery(Schedule schedule, Collection<Customer> knownCustomers) {
+        this.schedule = schedule;
+        for (Customer customer : knownCustomers) {
+            customers.put(customer.getEmail(), customer);
+            for (Order order : customer.getOrders()) {
+                if (order instanceof FlightOrder) {
+                    orders.put(order.getId(), (FlightOrder) order);
+                }
+            }
+        }
+    }
+
+    public void apply(OrderRecord record) {
+        FlightOrder order = orders.get(record.getOrderId());
+        if (order == null) {
+            order = restore(record);
+            if (order == null) {
+                skipped++;
+                return;
+            }
+            orders.put(record.getOrderId(), order);
+        }
+        if (record.getPaymentStatus() == PaymentStatus.PAID) {
+            order.setClosed();
+        }
+    }
+
+    private FlightOrder restore(OrderRecord record) {
+        List<ScheduledFlight> flights = new ArrayList<>(record.getFlightCount());
+        for (int i = 0; i < record.getFlightCount(); i++) {
+            ScheduledFlight flight = findFlight(record.getFlightNumber(i), record.getDepartureTime(i));
+            if (flight == null) {
+                return null;
+            }
+            flights.add(flight);
+        }
+        Customer customer = customers.computeIfAbsent(record.getCustomerEmail(),
+                email -> new Customer(record.getCustomerName(), email));
+        FlightOrder order = new FlightOrder(record.getOrderId(), flights);
+        order.setCustomer(customer);
+        order.setPrice(record.getPrice());
+        order.setPassengers(record.getPassengerNames().stream().map(Passenger::new).collect(Collectors.toList()));
+        if (!order.bookSeats().isSuccess()) {
+            return null;
+        }
+        flights.forEach(flight -> flight.registerObserver(customer));
+        customer.getOrders().add(order);
+        return order;
+    }
+
+    private ScheduledFlight findFlight(int number, long departureTime) {
+        for (ScheduledFlight flight : schedule.searchScheduledFlights(number)) {
+            if (flight.getDepartureTime().getTime() == departureTime) {
+                return flight;
+            }
+        }
+        return null;
+    }
+
+    public Schedule getSchedule() {
+        return schedule;
+    }
+
+    public Collection<Customer> getCustomers() {
+        return Collections.unmodifiableCollection(customers.values());
+    }
+
+    public Customer getCustomer(String email) {
+        return customers.get(email);
+    }
+
+    public Map<UUID, FlightOrder> getOrders() {
+        return Collections.unmodifiableMap(orders);
+    }
+
+    /**
+     * @return number of orders that could not be restored because a flight is not in the schedule or has no
+     * seats left
+     */
+    public int getSkippedCount() {
+        return skipped;
+    }
+}
@@ -0,0 +1,6 @@
+package flight.reservation.persistence;
+
+public enum PaymentStatus {
+    PAID,
+    FAILED
+}
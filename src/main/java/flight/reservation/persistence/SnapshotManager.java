@@ -0,0 +1,187 @@
+package flight.reservation.persistence;
+
+import flight.reservation.Customer;
+import flight.reservation.flight.Schedule;
+import flight.reservation.observer.DeliveryErrorHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes snapshots of the reservation state and restores the latest snapshot plus the journal records
+ * appended after it.
+ * <p>
+ * The state is copied at a {@link OrderJournal.Cut} without blocking appends or bookings: every order is
+ * either in the snapshot with its seats, or its records follow the snapshot's journal position. The copy is
+ * written to disk on a background thread. After a snapshot
+ * is written, journal segments only needed by older snapshots are deleted; the previous snapshot is kept as
+ * fallback in case the latest one cannot be read.
+ */
+public class SnapshotManager implements AutoCloseable {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final int SNAPSHOTS_KEPT = 2;
+
+    private final Path directory;
+    private final OrderJournal journal;
+    private final Schedule schedule;
+    private final Supplier<? extends Collection<Customer>> customers;
+    private final DeliveryErrorHandler errorHandler;
+    private final ScheduledExecutorService executor;
+
+    public SnapshotManager(Path directory, OrderJournal journal, Schedule schedule,
+                           Supplier<? extends Collection<Customer>> customers) throws IOException {
+        this(directory, journal, schedule, customers, DeliveryErrorHandler.UNCAUGHT);
+    }
+
+    /**
+     * @param errorHandler receives the failures of scheduled snapshots
+     */
+    public SnapshotManager(Path directory, OrderJournal journal, Schedule schedule,
+                           Supplier<? extends Collection<Customer>> customers,
+                           DeliveryErrorHandler errorHandler) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.journal = journal;
+        this.schedule = schedule;
+        this.customers = customers;
+        this.errorHandler = errorHandler;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-snapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Copies the state on the calling thread and writes it in the background.
+     *
+     * @return completes with the snapshot file once it is on disk and the journal is truncated
+     */
+    public CompletableFuture<Path> snapshot() {
+        StateSnapshot snapshot = capture();
+        return CompletableFuture.supplyAsync(() -> write(snapshot), executor);
+    }
+
+    /**
+     * Takes a snapshot every interval, copying and writing on the background thread.
+     */
+    public void scheduleSnapshots(Duration interval) {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                write(capture());
+            } catch (RuntimeException e) {
+                // a failed snapshot must not cancel the following ones
+                errorHandler.handle(e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops periodic snapshots and waits for a running one to finish. An interrupt stops waiting and is kept
+     * in the interrupt flag.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private StateSnapshot capture() {
+        try (OrderJournal.Cut cut = journal.openCut()) {
+            return StateSnapshot.capture(schedule, customers.get(), cut);
+        }
+    }
+
+    private Path write(StateSnapshot snapshot) {
+        try {
+            Path file = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, snapshot.getJournalPosition(), SNAPSHOT_SUFFIX));
+            Path temporary = directory.resolve(file.getFileName() + ".tmp");
+            snapshot.write(temporary);
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory(directory);
+
+            List<Path> snapshots = listSnapshots(directory);
+            Collections.reverse(snapshots);
+            for (int i = SNAPSHOTS_KEPT; i < snapshots.size(); i++) {
+                Files.deleteIfExists(snapshots.get(i));
+            }
+            Path oldestKept = snapshots.get(Math.min(SNAPSHOTS_KEPT, snapshots.size()) - 1);
+            journal.truncateBefore(journalPosition(oldestKept));
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Restores the latest readable snapshot into the schedule and applies the journal records appended after
+     * it. Without a snapshot the schedule is used as it is and the whole journal is replayed.
+     */
+    public static OrderRecovery recover(Path directory, OrderJournal journal, Schedule schedule) throws IOException {
+        List<Path> snapshots = listSnapshots(directory);
+        Collections.reverse(snapshots);
+        for (Path file : snapshots) {
+            StateSnapshot.Restored restored;
+            try {
+                restored = StateSnapshot.read(file, schedule);
+            } catch (IOException | RuntimeException e) {
+                // fall back to the previous snapshot, the journal still holds the records after it
+                continue;
+            }
+            OrderRecovery recovery = new OrderRecovery(schedule, restored.customers);
+            journal.replay(restored.journalPosition, recovery::apply);
+            return recovery;
+        }
+        OrderRecovery recovery = new OrderRecovery(schedule, Collections.emptyList());
+        journal.replay(recovery::apply);
+        return recovery;
+    }
+
+    private static List<Path> listSnapshots(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+            }).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static long journalPosition(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    // makes the rename durable; not every platform allows opening a directory, so failures are ignored
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // best effort
+        }
+    }
+}
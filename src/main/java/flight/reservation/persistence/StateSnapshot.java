@@ -0,0 +1,510 @@
+package flight.reservation.persistence;
+
+import flight.reservation.Airport;
+import flight.reservation.Customer;
+import flight.reservation.Passenger;
+import flight.reservation.flight.Schedule;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.observer.FlightObserver;
+import flight.reservation.order.FlightOrder;
+import flight.reservation.order.Order;
+import flight.reservation.plane.Aircraft;
+import flight.reservation.plane.AircraftFactory;
+import flight.reservation.plane.Helicopter;
+import flight.reservation.plane.PassengerDrone;
+import flight.reservation.plane.PassengerPlane;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Point-in-time copy of the reservation state and its binary file format.
+ * <p>
+ * {@link #capture} copies the state at a journal {@link OrderJournal.Cut} while bookings and appends go on;
+ * {@link #write} does the slow part afterwards. Airports, passengers and flights are
+ * written once and referenced by their table index, which keeps shared passengers shared after a restore.
+ * The file ends with a CRC32C of everything before it.
+ */
+final class StateSnapshot {
+
+    private static final int MAGIC = 0x464c5350;
+    private static final int VERSION = 2;
+
+    private final long journalPosition;
+    private final List<Airport> airports = new ArrayList<>();
+    private final List<Passenger> passengers = new ArrayList<>();
+    private final List<FlightCopy> flights = new ArrayList<>();
+    private final List<CustomerCopy> customers = new ArrayList<>();
+    private final Map<Airport, Integer> airportIds = new IdentityHashMap<>();
+    private final Map<Passenger, Integer> passengerIds = new IdentityHashMap<>();
+    private final Map<ScheduledFlight, Integer> flightIds = new IdentityHashMap<>();
+
+    private StateSnapshot(long journalPosition) {
+        this.journalPosition = journalPosition;
+    }
+
+    /**
+     * Copies the state at the cut. Bookings applied since the cut was opened are left out together with their
+     * passengers; their records follow the cut's position, so recovery books them from the journal.
+     */
+    static StateSnapshot capture(Schedule schedule, Collection<Customer> customers, OrderJournal.Cut cut) {
+        Map<ScheduledFlight, FlightState> flightStates = new IdentityHashMap<>();
+        List<FlightState> scheduled = new ArrayList<>();
+        for (ScheduledFlight flight : schedule.getScheduledFlights()) {
+            FlightState state = new FlightState(flight, true);
+            flightStates.put(flight, state);
+            scheduled.add(state);
+        }
+        List<CustomerState> customerStates = new ArrayList<>();
+        for (Customer customer : customers) {
+            CustomerState state = new CustomerState(customer.getName(), customer.getEmail());
+            for (Order order : customer.getOrders()) {
+                if (order instanceof FlightOrder) {
+                    OrderState orderState = new OrderState((FlightOrder) order);
+                    for (ScheduledFlight flight : orderState.flights) {
+                        flightStates.computeIfAbsent(flight, key -> new FlightState(key, false));
+                    }
+                    state.orders.add(orderState);
+                }
+            }
+            customerStates.add(state);
+        }
+
+        // asked after copying, so a booking copied in part is always among the changes
+        Set<Object> changed = cut.getChangedSubjects();
+        Set<Passenger> leftOut = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Object subject : changed) {
+            if (subject instanceof Order && ((Order) subject).getPassengers() != null) {
+                leftOut.addAll(((Order) subject).getPassengers());
+            }
+        }
+        StateSnapshot snapshot = new StateSnapshot(cut.getPosition());
+        for (FlightState flight : scheduled) {
+            snapshot.flightId(flight, leftOut);
+        }
+        for (CustomerState customer : customerStates) {
+            CustomerCopy copy = new CustomerCopy(customer.name, customer.email);
+            for (OrderState order : customer.orders) {
+                if (!changed.contains(order.order)) {
+                    copy.orders.add(snapshot.copyOrder(order, flightStates, leftOut));
+                }
+            }
+            snapshot.customers.add(copy);
+        }
+        return snapshot;
+    }
+
+    long getJournalPosition() {
+        return journalPosition;
+    }
+
+    private int flightId(FlightState state, Set<Passenger> leftOut) {
+        Integer id = flightIds.get(state.flight);
+        if (id != null) {
+            return id;
+        }
+        int[] passengerRefs = new int[state.passengers.length];
+        int count = 0;
+        for (Passenger passenger : state.passengers) {
+            if (!leftOut.contains(passenger)) {
+                passengerRefs[count++] = passengerId(passenger);
+            }
+        }
+        ScheduledFlight flight = state.flight;
+        Aircraft aircraft = flight.getAircraft();
+        flights.add(new FlightCopy(flight.getNumber(), airportId(flight.getDeparture()), airportId(flight.getArrival()),
+                aircraftType(aircraft), aircraft.getModel(), flight.getDepartureTime().getTime(), state.price,
+                state.scheduled, Arrays.copyOf(passengerRefs, count), state.seats));
+        flightIds.put(flight, flights.size() - 1);
+        return flights.size() - 1;
+    }
+
+    private OrderCopy copyOrder(OrderState order, Map<ScheduledFlight, FlightState> flightStates, Set<Passenger> leftOut) {
+        int[] flightRefs = new int[order.flights.size()];
+        for (int i = 0; i < flightRefs.length; i++) {
+            flightRefs[i] = flightId(flightStates.get(order.flights.get(i)), leftOut);
+        }
+        int[] passengerRefs = new int[order.passengers.size()];
+        for (int i = 0; i < passengerRefs.length; i++) {
+            passengerRefs[i] = passengerId(order.passengers.get(i));
+        }
+        return new OrderCopy(order.order.getId(), order.price, order.closed, flightRefs, passengerRefs);
+    }
+
+    private int airportId(Airport airport) {
+        return airportIds.computeIfAbsent(airport, key -> {
+            airports.add(key);
+            return airports.size() - 1;
+        });
+    }
+
+    private int passengerId(Passenger passenger) {
+        return passengerIds.computeIfAbsent(passenger, key -> {
+            passengers.add(key);
+            return passengers.size() - 1;
+        });
+    }
+
+    // the aircraft type names understood by AircraftFactory.createAircraft
+    private static String aircraftType(Aircraft aircraft) {
+        if (aircraft instanceof PassengerPlane) {
+            return "plane";
+        }
+        if (aircraft instanceof Helicopter) {
+            return "helicopter";
+        }
+        if (aircraft instanceof PassengerDrone) {
+            return "drone";
+        }
+        throw new IllegalStateException("Aircraft type cannot be restored: " + aircraft.getClass().getName());
+    }
+
+    /**
+     * Writes the snapshot and forces it to disk.
+     */
+    void write(Path file) throws IOException {
+        try (FileOutputStream fileOut = new FileOutputStream(file.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(fileOut, new CRC32C());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checked, 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(journalPosition);
+
+            out.writeInt(airports.size());
+            for (Airport airport : airports) {
+                writeString(out, airport.getName());
+                writeString(out, airport.getCode());
+                writeString(out, airport.getLocation());
+                out.writeDouble(airport.getLatitude());
+                out.writeDouble(airport.getLongitude());
+                String[] allowed = airport.getAllowedAircrafts();
+                out.writeInt(allowed == null ? -1 : allowed.length);
+                if (allowed != null) {
+                    for (String model : allowed) {
+                        writeString(out, model);
+                    }
+                }
+            }
+
+            out.writeInt(passengers.size());
+            for (Passenger passenger : passengers) {
+                writeString(out, passenger.getName());
+            }
+
+            out.writeInt(flights.size());
+            for (FlightCopy flight : flights) {
+                out.writeInt(flight.number);
+                out.writeInt(flight.departure);
+                out.writeInt(flight.arrival);
+                writeString(out, flight.aircraftType);
+                writeString(out, flight.model);
+                out.writeLong(flight.departureTime);
+                out.writeDouble(flight.price);
+                out.writeBoolean(flight.scheduled);
+                writeInts(out, flight.passengers);
+                out.writeInt(flight.seats.length);
+                for (long word : flight.seats) {
+                    out.writeLong(word);
+                }
+            }
+
+            out.writeInt(customers.size());
+            for (CustomerCopy customer : customers) {
+                writeString(out, customer.name);
+                writeString(out, customer.email);
+                out.writeInt(customer.orders.size());
+                for (OrderCopy order : customer.orders) {
+                    out.writeLong(order.id.getMostSignificantBits());
+                    out.writeLong(order.id.getLeastSignificantBits());
+                    out.writeDouble(order.price);
+                    out.writeBoolean(order.closed);
+                    writeInts(out, order.flights);
+                    writeInts(out, order.passengers);
+                }
+            }
+            out.flush();
+            new DataOutputStream(fileOut).writeInt((int) checked.getChecksum().getValue());
+            fileOut.getFD().sync();
+        }
+    }
+
+    /**
+     * Restores a snapshot into the schedule, which is cleared first.
+     *
+     * @return the restored customers, their orders added and registered as observers of their flights
+     */
+    static Restored read(Path file, Schedule schedule) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < 20) {
+            throw new IOException("Snapshot truncated: " + file);
+        }
+        CRC32C crc = new CRC32C();
+        ByteBuffer content = buffer.duplicate();
+        content.limit(buffer.limit() - 4);
+        crc.update(content);
+        if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)) {
+            throw new IOException("Snapshot checksum mismatch: " + file);
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a snapshot of this version: " + file);
+        }
+        long journalPosition = buffer.getLong();
+
+        Airport[] airports = new Airport[buffer.getInt()];
+        for (int i = 0; i < airports.length; i++) {
+            String name = readString(buffer);
+            String code = readString(buffer);
+            String location = readString(buffer);
+            double latitude = buffer.getDouble();
+            double longitude = buffer.getDouble();
+            int allowedCount = buffer.getInt();
+            String[] allowed = allowedCount < 0 ? null : new String[allowedCount];
+            for (int j = 0; j < allowedCount; j++) {
+                allowed[j] = readString(buffer);
+            }
+            airports[i] = new Airport(name, code, location, allowed, latitude, longitude);
+        }
+
+        Passenger[] passengers = new Passenger[buffer.getInt()];
+        for (int i = 0; i < passengers.length; i++) {
+            passengers[i] = new Passenger(readString(buffer));
+        }
+
+        ScheduledFlight[] flights = new ScheduledFlight[buffer.getInt()];
+        List<ScheduledFlight> scheduled = new ArrayList<>();
+        for (int i = 0; i < flights.length; i++) {
+            int number = buffer.getInt();
+            Airport departure = airports[buffer.getInt()];
+            Airport arrival = airports[buffer.getInt()];
+            Aircraft aircraft = AircraftFactory.createAircraft(readString(buffer), readString(buffer));
+            Date departureTime = new Date(buffer.getLong());
+            double price = buffer.getDouble();
+            boolean isScheduled = buffer.get() != 0;
+            ScheduledFlight flight = new ScheduledFlight(number, departure, arrival, aircraft, departureTime, price);
+            flight.addPassengers(Arrays.asList(resolve(passengers, readInts(buffer))));
+            long[] seats = new long[buffer.getInt()];
+            for (int word = 0; word < seats.length; word++) {
+                seats[word] = buffer.getLong();
+            }
+            // addPassengers took the lowest seats, the snapshot knows which ones were sold
+            flight.getSeatMap().restore(seats);
+            flights[i] = flight;
+            if (isScheduled) {
+                scheduled.add(flight);
+            }
+        }
+        schedule.clear();
+        schedule.scheduleFlights(scheduled);
+
+        List<Customer> customers = new ArrayList<>();
+        Map<ScheduledFlight, List<FlightObserver>> observers = new IdentityHashMap<>();
+        int customerCount = buffer.getInt();
+        for (int i = 0; i < customerCount; i++) {
+            Customer customer = new Customer(readString(buffer), readString(buffer));
+            List<Order> orders = new ArrayList<>();
+            int orderCount = buffer.getInt();
+            for (int j = 0; j < orderCount; j++) {
+                UUID id = new UUID(buffer.getLong(), buffer.getLong());
+                double price = buffer.getDouble();
+                boolean closed = buffer.get() != 0;
+                List<ScheduledFlight> orderFlights = Arrays.asList(resolve(flights, readInts(buffer)));
+                FlightOrder order = new FlightOrder(id, orderFlights);
+                order.setCustomer(customer);
+                order.setPrice(price);
+                order.setPassengers(new ArrayList<>(Arrays.asList(resolve(passengers, readInts(buffer)))));
+                order.setSeatsBooked();
+                if (closed) {
+                    order.setClosed();
+                }
+                orders.add(order);
+                for (ScheduledFlight flight : orderFlights) {
+                    observers.computeIfAbsent(flight, key -> new ArrayList<>()).add(customer);
+                }
+            }
+            customer.setOrders(new CopyOnWriteArrayList<>(orders));
+            customers.add(customer);
+        }
+        observers.forEach(ScheduledFlight::registerObservers);
+        return new Restored(journalPosition, customers);
+    }
+
+    private static <T> T[] resolve(T[] table, int[] ids) {
+        T[] resolved = Arrays.copyOf(table, ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            resolved[i] = table[ids[i]];
+        }
+        return resolved;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer) {
+        int[] values = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 4);
+        return values;
+    }
+
+    // length prefixed UTF-8, -1 for null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static final class Restored {
+        final long journalPosition;
+        final List<Customer> customers;
+
+        Restored(long journalPosition, List<Customer> customers) {
+            this.journalPosition = journalPosition;
+            this.customers = customers;
+        }
+    }
+
+    // live state copied at the cut, before bookings made since are left out
+
+    private static final class FlightState {
+        final ScheduledFlight flight;
+        final boolean scheduled;
+        final Passenger[] passengers;
+        final long[] seats;
+        final double price;
+
+        FlightState(ScheduledFlight flight, boolean scheduled) {
+            this.flight = flight;
+            this.scheduled = scheduled;
+            this.passengers = flight.getPassengers().toArray(new Passenger[0]);
+            this.seats = flight.getSeatMap().toLongArray();
+            this.price = flight.getCurrentPrice();
+        }
+    }
+
+    private static final class OrderState {
+        final FlightOrder order;
+        final List<ScheduledFlight> flights;
+        final List<Passenger> passengers;
+        final double price;
+        final boolean closed;
+
+        OrderState(FlightOrder order) {
+            this.order = order;
+            this.flights = new ArrayList<>(order.getScheduledFlights());
+            this.passengers = order.getPassengers() == null ? new ArrayList<>() : new ArrayList<>(order.getPassengers());
+            this.price = order.getPrice();
+            this.closed = order.isClosed();
+        }
+    }
+
+    private static final class CustomerState {
+        final String name;
+        final String email;
+        final List<OrderState> orders = new ArrayList<>();
+
+        CustomerState(String name, String email) {
+            this.name = name;
+            this.email = email;
+        }
+    }
+
+    // rows of the tables that are written
+
+    private static final class FlightCopy {
+        final int number;
+        final int departure;
+        final int arrival;
+        final String aircraftType;
+        final String model;
+        final long departureTime;
+        final double price;
+        final boolean scheduled;
+        final int[] passengers;
+        final long[] seats;
+
+        FlightCopy(int number, int departure, int arrival, String aircraftType, String model, long departureTime,
+                   double price, boolean scheduled, int[] passengers, long[] seats) {
+            this.number = number;
+            this.departure = departure;
+            this.arrival = arrival;
+            this.aircraftType = aircraftType;
+            this.model = model;
+            this.departureTime = departureTime;
+            this.price = price;
+            this.scheduled = scheduled;
+            this.passengers = passengers;
+            this.seats = seats;
+        }
+    }
+
+    private static final class OrderCopy {
+        final UUID id;
+        final double price;
+        final boolean closed;
+        final int[] flights;
+        final int[] passengers;
+
+        OrderCopy(UUID id, double price, boolean closed, int[] flights, int[] passengers) {
+            this.id = id;
+            this.price = price;
+            this.closed = closed;
+            this.flights = flights;
+            this.passengers = passengers;
+        }
+    }
+
+    private static final class CustomerCopy {
+        final String name;
+        final String email;
+        final List<OrderCopy> orders = new ArrayList<>();
+
+        CustomerCopy(String name, String email) {
+            this.name = name;
+            this.email = email;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package flight.reservation.screening;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from character trigrams to the names containing them, used to find names within a small
+ * edit distance of a query without comparing the query to every name.
+ * <p>
+ * Candidates are pruned with the q-gram lemma: each edit destroys at most q grams, so a name within distance
+ * k shares at least |grams(query)| - k * q grams with the query. Only the k * q + 1 shortest posting lists
+ * can contribute a name meeting that bound, so candidates are collected from those lists and looked up in
+ * the other lists by binary search. Remaining candidates are verified with a banded Levenshtein distance.
+ */
+final class NGramIndex {
+
+    private static final int Q = 3;
+    private static final char PAD = '\u0000';
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+
+    private final String[] names;
+    private final Map<String, int[]> postings;
+    // name ids grouped by name length, for queries too short for the count filter
+    private final int[][] idsByLength;
+
+    NGramIndex(Collection<String> normalizedNames) {
+        this.names = normalizedNames.toArray(new String[0]);
+        Map<String, int[]> sizes = new HashMap<>();
+        int maxLength = 0;
+        for (String name : names) {
+            maxLength = Math.max(maxLength, name.length());
+            for (String gram : grams(name)) {
+                sizes.computeIfAbsent(gram, key -> new int[1])[0]++;
+            }
+        }
+        this.postings = new HashMap<>((int) (sizes.size() / 0.75f) + 1);
+        Map<String, int[]> fill = new HashMap<>((int) (sizes.size() / 0.75f) + 1);
+        sizes.forEach((gram, size) -> {
+            postings.put(gram, new int[size[0]]);
+            fill.put(gram, new int[1]);
+        });
+        int[] lengthCounts = new int[maxLength + 1];
+        for (int id = 0; id < names.length; id++) {
+            lengthCounts[names[id].length()]++;
+            // ids are added in ascending order, so every posting list is sorted
+            for (String gram : grams(names[id])) {
+                postings.get(gram)[fill.get(gram)[0]++] = id;
+            }
+        }
+        this.idsByLength = new int[maxLength + 1][];
+        for (int length = 0; length <= maxLength; length++) {
+            idsByLength[length] = new int[lengthCounts[length]];
+            lengthCounts[length] = 0;
+        }
+        for (int id = 0; id < names.length; id++) {
+            int length = names[id].length();
+            idsByLength[length][lengthCounts[length]++] = id;
+        }
+    }
+
+    /**
+     * Looks for a name whose similarity {@code 1 - distance / max(length)} to the query is at least the
+     * threshold.
+     *
+     * @param query normalized name
+     */
+    ScreeningResult findMatch(String query, double threshold, long deadlineNanos) {
+        int length = query.length();
+        // a match may be longer than the query, so its allowed distance d satisfies d <= (1 - t) * (length + d)
+        int maxDistance = (int) Math.floor((1 - threshold) * length / threshold + 1e-9);
+        Set<String> queryGrams = grams(query);
+        int minCommon = queryGrams.size() - maxDistance * Q;
+        if (minCommon <= 0) {
+            return scanByLength(query, threshold, maxDistance, deadlineNanos);
+        }
+
+        int[][] lists = new int[queryGrams.size()][];
+        int count = 0;
+        for (String gram : queryGrams) {
+            int[] list = postings.get(gram);
+            lists[count++] = list == null ? new int[0] : list;
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+
+        int prefixLists = Math.min(lists.length, maxDistance * Q + 1);
+        int postingCount = 0;
+        for (int i = 0; i < prefixLists; i++) {
+            postingCount += lists[i].length;
+        }
+        CandidateCounts candidates = new CandidateCounts(postingCount);
+        for (int i = 0; i < prefixLists; i++) {
+            for (int id : lists[i]) {
+                if (Math.abs(names[id].length() - length) <= maxDistance) {
+                    candidates.increment(id);
+                }
+            }
+            if (System.nanoTime() - deadlineNanos >= 0) {
+                return ScreeningResult.BUDGET_EXCEEDED;
+            }
+        }
+        for (int c = 0; c < candidates.size; c++) {
+            int id = candidates.ids[c];
+            int common = candidates.counts[c];
+            for (int i = prefixLists; i < lists.length && common + lists.length - i >= minCommon; i++) {
+                if (Arrays.binarySearch(lists[i], id) >= 0) {
+                    common++;
+                }
+            }
+            if (common >= minCommon && isSimilar(query, names[id], threshold)) {
+                return ScreeningResult.MATCH;
+            }
+            if (c % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos >= 0) {
+                return ScreeningResult.BUDGET_EXCEEDED;
+            }
+        }
+        return ScreeningResult.CLEARED;
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    private ScreeningResult scanByLength(String query, double threshold, int maxDistance, long deadlineNanos) {
+        int from = Math.max(0, query.length() - maxDistance);
+        int to = Math.min(idsByLength.length - 1, query.length() + maxDistance);
+        int checked = 0;
+        for (int length = from; length <= to; length++) {
+            for (int id : idsByLength[length]) {
+                if (isSimilar(query, names[id], threshold)) {
+                    return ScreeningResult.MATCH;
+                }
+                if (++checked % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos >= 0) {
+                    return ScreeningResult.BUDGET_EXCEEDED;
+                }
+            }
+        }
+        return ScreeningResult.CLEARED;
+    }
+
+    private static boolean isSimilar(String a, String b, double threshold) {
+        int allowed = maxDistance(Math.max(a.length(), b.length()), threshold);
+        return levenshtein(a, b, allowed) <= allowed;
+    }
+
+    // largest distance d with 1 - d / length >= threshold
+    private static int maxDistance(int length, double threshold) {
+        return (int) Math.floor((1 - threshold) * length + 1e-9);
+    }
+
+    /**
+     * Levenshtein distance restricted to a band of width 2k + 1 around the diagonal.
+     *
+     * @return the distance, or k + 1 if it is larger than k
+     */
+    static int levenshtein(String a, String b, int k) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > k) {
+            return k + 1;
+        }
+        int big = k + 1;
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j <= k ? j : big;
+        }
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - k);
+            int to = Math.min(m, i + k);
+            current[0] = i <= k ? i : big;
+            if (from > 1) {
+                current[from - 1] = big;
+            }
+            int rowMinimum = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                current[j] = Math.min(value, big);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (to < m) {
+                current[to + 1] = big;
+            }
+            if (rowMinimum > k) {
+                return big;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[m];
+    }
+
+    private static Set<String> grams(String name) {
+        StringBuilder padded = new StringBuilder(name.length() + 2 * (Q - 1));
+        for (int i = 0; i < Q - 1; i++) {
+            padded.append(PAD);
+        }
+        padded.append(name);
+        for (int i = 0; i < Q - 1; i++) {
+            padded.append(PAD);
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + Q <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + Q));
+        }
+        return grams;
+    }
+
+    // Candidate counters of one query in an open addressing table sized by the postings read, so the memory
+    // follows the candidates of the query rather than the size of the list. Candidates keep first-seen order.
+    private static final class CandidateCounts {
+        // index into ids + 1, 0 for an empty slot
+        private final int[] slots;
+        private final int mask;
+        private final int[] ids;
+        private final int[] counts;
+        private int size;
+
+        CandidateCounts(int maxCandidates) {
+            int capacity = Integer.highestOneBit(Math.max(1, maxCandidates * 2 - 1)) << 1;
+            this.slots = new int[capacity];
+            this.mask = capacity - 1;
+            this.ids = new int[maxCandidates];
+            this.counts = new int[maxCandidates];
+        }
+
+        void increment(int id) {
+            int h = id * 0x9E3779B9;
+            for (int slot = (h ^ (h >>> 16)) & mask; ; slot = (slot + 1) & mask) {
+                int index = slots[slot] - 1;
+                if (index < 0) {
+                    slots[slot] = size + 1;
+                    ids[size] = id;
+                    counts[size++] = 1;
+                    return;
+                }
+                if (ids[index] == id) {
+                    counts[index]++;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package flight.reservation.screening;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Screens names against the current {@link WatchList}. A reload builds the new list aside and then swaps it
+ * in with a single volatile write, so screenings running at that time see either the old or the new list
+ * and are never blocked.
+ */
+public class NoFlyScreeningService {
+
+    private volatile WatchList watchList;
+
+    public NoFlyScreeningService(WatchList watchList) {
+        this.watchList = Objects.requireNonNull(watchList);
+    }
+
+    public static NoFlyScreeningService fromFile(Path file, boolean withBloomFilter) throws IOException {
+        return new NoFlyScreeningService(WatchList.load(file, withBloomFilter));
+    }
+
+    public boolean isListed(String name) {
+        return watchList.contains(name);
+    }
+
+    /**
+     * @return true if none of the names is on the list
+     */
+    public boolean isCleared(Collection<String> names) {
+        return watchList.screen(names).isCleared();
+    }
+
+    /**
+     * Switches to fuzzy matching; building the n-gram index happens on the calling thread, bookings keep
+     * using the current list until it is done.
+     */
+    public void enableFuzzyMatching(double threshold, Duration budgetPerOrder) {
+        setWatchList(watchList.withFuzzyMatching(threshold, budgetPerOrder));
+    }
+
+    public WatchList getWatchList() {
+        return watchList;
+    }
+
+    public void setWatchList(WatchList watchList) {
+        this.watchList = Objects.requireNonNull(watchList);
+    }
+
+    /**
+     * Replaces the list with the one in the file, keeping the Bloom filter and fuzzy matching settings of the
+     * current list. If the file cannot be read the current list stays in place.
+     */
+    public void reload(Path file) throws IOException {
+        WatchList current = watchList;
+        WatchList loaded = WatchList.load(file, current.hasBloomFilter());
+        if (current.isFuzzy()) {
+            loaded = loaded.withFuzzyMatching(current.getFuzzyThreshold(), current.getFuzzyBudget());
+        }
+        setWatchList(loaded);
+    }
+}
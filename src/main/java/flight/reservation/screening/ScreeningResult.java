@@ -0,0 +1,14 @@
+package flight.reservation.screening;
+
+public enum ScreeningResult {
+    CLEARED,
+    MATCH,
+    /**
+     * Fuzzy matching ran out of its time budget before it could clear every name; treated as not cleared.
+     */
+    BUDGET_EXCEEDED;
+
+    public boolean isCleared() {
+        return this == CLEARED;
+    }
+}
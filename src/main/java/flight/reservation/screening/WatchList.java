@@ -0,0 +1,184 @@
+package flight.reservation.screening;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable set of normalized names. Names are compared after {@link #normalize(String) normalization}, so
+ * case, accents and extra whitespace do not matter. An optional Bloom filter in front of the set answers
+ * most lookups of unlisted names without touching the set.
+ * <p>
+ * With {@link #withFuzzyMatching(double, Duration) fuzzy matching}, {@link #screen(Collection)} also reports
+ * names that are similar to a listed name, e.g. other transliterations or typos.
+ */
+public final class WatchList {
+
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Set<String> names;
+    private final BloomFilter bloomFilter;
+    private final NGramIndex fuzzyIndex;
+    private final double fuzzyThreshold;
+    private final Duration fuzzyBudget;
+
+    private WatchList(Set<String> names, BloomFilter bloomFilter, NGramIndex fuzzyIndex, double fuzzyThreshold, Duration fuzzyBudget) {
+        this.names = names;
+        this.bloomFilter = bloomFilter;
+        this.fuzzyIndex = fuzzyIndex;
+        this.fuzzyThreshold = fuzzyThreshold;
+        this.fuzzyBudget = fuzzyBudget;
+    }
+
+    public static WatchList of(Collection<String> names, boolean withBloomFilter) {
+        Set<String> normalized = new HashSet<>(Math.max(16, (int) (names.size() / 0.75f) + 1));
+        for (String name : names) {
+            String key = normalize(name);
+            if (!key.isEmpty()) {
+                normalized.add(key);
+            }
+        }
+        BloomFilter bloomFilter = null;
+        if (withBloomFilter) {
+            bloomFilter = new BloomFilter(normalized.size(), BLOOM_FALSE_POSITIVE_RATE);
+            normalized.forEach(bloomFilter::add);
+        }
+        return new WatchList(normalized, bloomFilter, null, 0, null);
+    }
+
+    /**
+     * Reads one name per line; blank lines and lines starting with '#' are skipped.
+     */
+    public static WatchList load(Path file, boolean withBloomFilter) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String name = line.trim();
+                if (!name.isEmpty() && !name.startsWith("#")) {
+                    names.add(name);
+                }
+            }
+        }
+        return of(names, withBloomFilter);
+    }
+
+    /**
+     * Returns a copy of this list that also matches names whose similarity {@code 1 - distance / length}
+     * to a listed name is at least the threshold. The n-gram index is built on the first call and shared by
+     * later copies.
+     *
+     * @param budget time one {@link #screen(Collection)} call may spend on fuzzy matching
+     */
+    public WatchList withFuzzyMatching(double threshold, Duration budget) {
+        if (threshold <= 0 || threshold > 1) {
+            throw new IllegalArgumentException("Threshold must be in (0, 1]: " + threshold);
+        }
+        NGramIndex index = fuzzyIndex != null ? fuzzyIndex : new NGramIndex(names);
+        return new WatchList(names, bloomFilter, index, threshold, budget);
+    }
+
+    /**
+     * Exact lookup of one name.
+     */
+    public boolean contains(String name) {
+        return name != null && containsNormalized(normalize(name));
+    }
+
+    /**
+     * Screens all names of an order: exact lookups first, then fuzzy matching if enabled. Fuzzy matching
+     * fails closed, when it exceeds its budget the names are not cleared.
+     */
+    public ScreeningResult screen(Collection<String> names) {
+        List<String> keys = new ArrayList<>(names.size());
+        for (String name : names) {
+            if (name == null) {
+                continue;
+            }
+            String key = normalize(name);
+            if (containsNormalized(key)) {
+                return ScreeningResult.MATCH;
+            }
+            keys.add(key);
+        }
+        if (fuzzyIndex == null) {
+            return ScreeningResult.CLEARED;
+        }
+        long deadline = System.nanoTime() + fuzzyBudget.toNanos();
+        for (String key : keys) {
+            ScreeningResult result = fuzzyIndex.findMatch(key, fuzzyThreshold, deadline);
+            if (!result.isCleared()) {
+                return result;
+            }
+        }
+        return ScreeningResult.CLEARED;
+    }
+
+    private boolean containsNormalized(String key) {
+        if (bloomFilter != null && !bloomFilter.mightContain(key)) {
+            return false;
+        }
+        return names.contains(key);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * @return the normalized names, read-only
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(names);
+    }
+
+    public boolean hasBloomFilter() {
+        return bloomFilter != null;
+    }
+
+    public boolean isFuzzy() {
+        return fuzzyIndex != null;
+    }
+
+    public double getFuzzyThreshold() {
+        return fuzzyThreshold;
+    }
+
+    public Duration getFuzzyBudget() {
+        return fuzzyBudget;
+    }
+
+    /**
+     * Lower case, without accents and with single spaces between the parts of the name.
+     */
+    public static String normalize(String name) {
+        String value = name.trim();
+        if (!isAscii(value)) {
+            value = COMBINING_MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFKD)).replaceAll("");
+        }
+        return WHITESPACE.matcher(value.toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7f) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
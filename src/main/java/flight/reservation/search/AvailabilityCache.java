@@ -0,0 +1,431 @@
+package flight.reservation.search;
+
+import flight.reservation.Airport;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.journey.Journey;
+import flight.reservation.observer.FlightNotification;
+import flight.reservation.observer.FlightObserver;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Caches availability searches by origin, destination, departure day and party size. A result is the
+ * Pareto-optimal set of journeys leaving on that day with enough seats on every leg, see
+ * {@link ItinerarySearch#findAvailable}.
+ * <p>
+ * The cache observes every scheduled flight and drops exactly the results a change can affect:
+ * <ul>
+ *     <li>a flight getting worse, i.e. more expensive, booked further or cancelled, only affects the results
+ *     it is part of;</li>
+ *     <li>a flight getting better, i.e. cheaper or with passengers removed, affects every result whose search
+ *     looked at it, as it may now beat a journey of the result;</li>
+ *     <li>a changed departure time affects the results the flight was looked at for and those of its new day.</li>
+ * </ul>
+ * Seats taken with {@link ScheduledFlight#reserveSeats(int)} are noticed once the passengers are added.
+ * Changes to the schedule itself or to the search settings drop all results. Besides that, results expire
+ * after the time to live and the least recently used ones are evicted above the maximum size.
+ * <p>
+ * Notifications arrive through the flights' dispatchers, so with an asynchronous dispatcher a result may be
+ * served until the notification is delivered.
+ */
+public class AvailabilityCache implements FlightObserver {
+
+    private final ItinerarySearch search;
+    private final ZoneId zone;
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // in access order, least recently used first
+    private final LinkedHashMap<SearchKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // results by the flights of their journeys
+    private final Map<ScheduledFlight, Set<SearchKey>> dependents = new HashMap<>();
+    // searches running outside the lock, collecting the changes they may have missed
+    private final Set<Load> loads = new HashSet<>();
+    private final Set<ScheduledFlight> observed = ConcurrentHashMap.newKeySet();
+    private volatile ConnectionTimetable observedTimetable;
+    private Map<ScheduledFlight, Integer> connectionIndexes = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public AvailabilityCache(ItinerarySearch search, int maximumSize, Duration timeToLive) {
+        this(search, ZoneId.systemDefault(), maximumSize, timeToLive);
+    }
+
+    public AvailabilityCache(ItinerarySearch search, ZoneId zone, int maximumSize, Duration timeToLive) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        this.search = search;
+        this.zone = zone;
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+    }
+
+    /**
+     * @return the Pareto-optimal journeys leaving {@code origin} on {@code day} with at least {@code seats}
+     * seats, ordered by arrival time
+     */
+    public List<Journey> search(Airport origin, Airport destination, LocalDate day, int seats) {
+        ConnectionTimetable connections = observe();
+        SearchKey key = new SearchKey(origin.getCode(), destination.getCode(), day, seats);
+        Load load = new Load(day);
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAtNanos < 0) {
+                    hits.increment();
+                    return toJourneys(entry.legs);
+                }
+                remove(key, entry);
+                expirations.increment();
+            }
+            misses.increment();
+            loads.add(load);
+        } finally {
+            lock.unlock();
+        }
+
+        List<List<ScheduledFlight>> legs = Collections.emptyList();
+        BitSet examined = new BitSet();
+        try {
+            int originId = connections.airportId(origin);
+            int destinationId = connections.airportId(destination);
+            if (originId >= 0 && destinationId >= 0 && originId != destinationId) {
+                long from = day.atStartOfDay(zone).toInstant().toEpochMilli();
+                long to = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+                legs = ParetoSearch.search(connections, originId, destinationId, from, to,
+                        search.getMaxTransfers() + 1, seats, examined);
+            }
+        } finally {
+            lock.lock();
+            try {
+                loads.remove(load);
+                Entry entry = new Entry(day, legs, examined, System.nanoTime() + timeToLiveNanos);
+                if (connections == observedTimetable && !load.affects(entry)) {
+                    put(key, entry);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return toJourneys(legs);
+    }
+
+    @Override
+    public void update(ScheduledFlight flight, String message) {
+        invalidate(flight, true);
+    }
+
+    @Override
+    public void update(FlightNotification notification) {
+        ScheduledFlight flight = notification.getFlight();
+        switch (notification.getType()) {
+            case PRICE_CHANGED:
+                invalidate(flight, notification.getNewValue() < notification.getOldValue());
+                break;
+            case PASSENGERS_ADDED:
+            case CANCELLED:
+                invalidate(flight, false);
+                break;
+            case PASSENGERS_REMOVED:
+                invalidate(flight, true);
+                break;
+            case DEPARTURE_TIME_CHANGED:
+                invalidate(flight, true);
+                invalidateDay(Instant.ofEpochMilli((long) notification.getNewValue()).atZone(zone).toLocalDate());
+                break;
+            default:
+                break;
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return share of searches answered from the cache, 0 before the first search
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return number of results evicted to stay within the maximum size
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return number of results dropped because they outlived the time to live
+     */
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    /**
+     * @return number of results dropped because a flight, the schedule or the search settings changed
+     */
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AvailabilityCache[size=%d, hitRate=%.3f, hits=%d, misses=%d, evictions=%d, "
+                        + "expirations=%d, invalidations=%d]", size(), getHitRate(), getHitCount(), getMissCount(),
+                getEvictionCount(), getExpirationCount(), getInvalidationCount());
+    }
+
+    // Starts observing flights new to the schedule; a new timetable makes all results stale. Results are
+    // only cached once all flights of their timetable are observed.
+    private ConnectionTimetable observe() {
+        ConnectionTimetable connections = search.currentTimetable();
+        if (connections == observedTimetable) {
+            return connections;
+        }
+        Map<ScheduledFlight, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < connections.size(); i++) {
+            ScheduledFlight flight = connections.flights[i];
+            indexes.put(flight, i);
+            if (observed.add(flight)) {
+                flight.registerObserver(this);
+            }
+        }
+        lock.lock();
+        try {
+            if (connections != observedTimetable) {
+                clear();
+                connectionIndexes = indexes;
+                observedTimetable = connections;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return connections;
+    }
+
+    private void invalidate(ScheduledFlight flight, boolean improved) {
+        lock.lock();
+        try {
+            Integer connection = improved ? connectionIndexes.get(flight) : null;
+            for (Load load : loads) {
+                load.changed(flight, connection);
+            }
+            if (connection != null) {
+                removeIf(entry -> entry.examined.get(connection));
+                return;
+            }
+            Set<SearchKey> keys = dependents.remove(flight);
+            if (keys != null) {
+                for (SearchKey key : keys) {
+                    Entry entry = entries.get(key);
+                    if (entry != null) {
+                        remove(key, entry);
+                        invalidations.increment();
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void invalidateDay(LocalDate day) {
+        lock.lock();
+        try {
+            // a flight moved to this day may be part of new results
+            for (Load load : loads) {
+                if (load.day.equals(day)) {
+                    load.stale = true;
+                }
+            }
+            removeIf(entry -> entry.day.equals(day));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeIf(Predicate<Entry> affected) {
+        Iterator<Map.Entry<SearchKey, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<SearchKey, Entry> entry = iterator.next();
+            if (affected.test(entry.getValue())) {
+                iterator.remove();
+                unlink(entry.getKey(), entry.getValue());
+                invalidations.increment();
+            }
+        }
+    }
+
+    private void clear() {
+        for (Load load : loads) {
+            load.stale = true;
+        }
+        invalidations.add(entries.size());
+        entries.clear();
+        dependents.clear();
+    }
+
+    private void put(SearchKey key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            unlink(key, previous);
+        }
+        for (ScheduledFlight flight : entry.flights) {
+            dependents.computeIfAbsent(flight, f -> new HashSet<>()).add(key);
+        }
+        Iterator<Map.Entry<SearchKey, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maximumSize) {
+            Map.Entry<SearchKey, Entry> evicted = eldest.next();
+            eldest.remove();
+            unlink(evicted.getKey(), evicted.getValue());
+            evictions.increment();
+        }
+    }
+
+    private void remove(SearchKey key, Entry entry) {
+        entries.remove(key);
+        unlink(key, entry);
+    }
+
+    private void unlink(SearchKey key, Entry entry) {
+        for (ScheduledFlight flight : entry.flights) {
+            Set<SearchKey> keys = dependents.get(flight);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                dependents.remove(flight);
+            }
+        }
+    }
+
+    private static List<Journey> toJourneys(List<List<ScheduledFlight>> legs) {
+        // journeys keep passengers, so every caller gets its own
+        List<Journey> journeys = new ArrayList<>(legs.size());
+        for (List<ScheduledFlight> journeyLegs : legs) {
+            journeys.add(ItinerarySearch.toJourney(journeyLegs));
+        }
+        return journeys;
+    }
+
+    private static final class SearchKey {
+        private final String origin;
+        private final String destination;
+        private final LocalDate day;
+        private final int seats;
+
+        SearchKey(String origin, String destination, LocalDate day, int seats) {
+            this.origin = origin;
+            this.destination = destination;
+            this.day = day;
+            this.seats = seats;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SearchKey)) {
+                return false;
+            }
+            SearchKey other = (SearchKey) o;
+            return seats == other.seats && origin.equals(other.origin) && destination.equals(other.destination)
+                    && day.equals(other.day);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(origin, destination, day, seats);
+        }
+    }
+
+    private static final class Entry {
+        private final LocalDate day;
+        private final List<List<ScheduledFlight>> legs;
+        private final Set<ScheduledFlight> flights = new HashSet<>();
+        // connections the search looked at, by index in the timetable
+        private final BitSet examined;
+        private final long expiresAtNanos;
+
+        Entry(LocalDate day, List<List<ScheduledFlight>> legs, BitSet examined, long expiresAtNanos) {
+            this.day = day;
+            this.legs = legs;
+            this.examined = examined;
+            this.expiresAtNanos = expiresAtNanos;
+            legs.forEach(flights::addAll);
+        }
+    }
+
+    // A search in progress. Changes made while it runs are kept, so that a result they affect is not cached.
+    private static final class Load {
+        private final LocalDate day;
+        private final Set<ScheduledFlight> worse = new HashSet<>();
+        private final BitSet improved = new BitSet();
+        private boolean stale;
+
+        Load(LocalDate day) {
+            this.day = day;
+        }
+
+        void changed(ScheduledFlight flight, Integer improvedConnection) {
+            if (improvedConnection != null) {
+                improved.set(improvedConnection);
+            } else {
+                worse.add(flight);
+            }
+        }
+
+        boolean affects(Entry entry) {
+            return stale || improved.intersects(entry.examined) || !Collections.disjoint(worse, entry.flights);
+        }
+    }
+}
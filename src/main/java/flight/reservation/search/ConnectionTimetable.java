@@ -0,0 +1,138 @@
+package flight.reservation.search;
+
+import flight.reservation.Airport;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.journey.SingleFlightJourney;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Immutable snapshot of a schedule for searching: every flight is one connection, stored in parallel
+ * primitive arrays sorted by departure time. Airports are numbered densely, so that per-airport search
+ * state fits into plain arrays.
+ */
+final class ConnectionTimetable {
+
+    final long scheduleVersion;
+    final long settingsVersion;
+    final ScheduledFlight[] flights;
+    final int[] from;
+    final int[] to;
+    final long[] departure;
+    final long[] arrival;
+    final Airport[] airports;
+    // minimum connection time in millis, per airport id
+    final long[] minimumConnection;
+    // connections leaving airport a are outgoing[outgoingStart[a]] until outgoingStart[a + 1], by departure time
+    final int[] outgoingStart;
+    final int[] outgoing;
+    private final Map<String, Integer> airportIds;
+
+    ConnectionTimetable(long scheduleVersion, long settingsVersion, Collection<ScheduledFlight> scheduledFlights,
+                        ToLongFunction<String> minimumConnectionTime) {
+        this.scheduleVersion = scheduleVersion;
+        this.settingsVersion = settingsVersion;
+        this.flights = scheduledFlights.toArray(new ScheduledFlight[0]);
+        Arrays.sort(flights, Comparator.comparingLong(flight -> flight.getDepartureTime().getTime()));
+
+        int size = flights.length;
+        from = new int[size];
+        to = new int[size];
+        departure = new long[size];
+        arrival = new long[size];
+        airportIds = new HashMap<>();
+        List<Airport> known = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ScheduledFlight flight = flights[i];
+            from[i] = intern(flight.getDeparture(), known);
+            to[i] = intern(flight.getArrival(), known);
+            departure[i] = flight.getDepartureTime().getTime();
+            arrival[i] = SingleFlightJourney.estimateArrivalTime(flight);
+        }
+        airports = known.toArray(new Airport[0]);
+        minimumConnection = new long[airports.length];
+        for (int id = 0; id < airports.length; id++) {
+            minimumConnection[id] = minimumConnectionTime.applyAsLong(airports[id].getCode());
+        }
+
+        outgoingStart = new int[airports.length + 1];
+        for (int i = 0; i < size; i++) {
+            outgoingStart[from[i] + 1]++;
+        }
+        for (int id = 0; id < airports.length; id++) {
+            outgoingStart[id + 1] += outgoingStart[id];
+        }
+        outgoing = new int[size];
+        int[] next = Arrays.copyOf(outgoingStart, airports.length);
+        for (int i = 0; i < size; i++) {
+            outgoing[next[from[i]]++] = i;
+        }
+    }
+
+    int size() {
+        return flights.length;
+    }
+
+    int airportCount() {
+        return airports.length;
+    }
+
+    /**
+     * @return id of the airport, or -1 if no flight of the timetable touches it
+     */
+    int airportId(Airport airport) {
+        Integer id = airportIds.get(airport.getCode());
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return index of the first connection departing at or after {@code time}
+     */
+    int firstDepartingAt(long time) {
+        int low = 0;
+        int high = departure.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departure[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return position in {@link #outgoing} of the first connection leaving {@code airport} at or after {@code time}
+     */
+    int firstOutgoingAt(int airport, long time) {
+        int low = outgoingStart[airport];
+        int high = outgoingStart[airport + 1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departure[outgoing[mid]] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int intern(Airport airport, List<Airport> known) {
+        Integer id = airportIds.get(airport.getCode());
+        if (id == null) {
+            id = known.size();
+            airportIds.put(airport.getCode(), id);
+            known.add(airport);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,62 @@
+package flight.reservation.search;
+
+import flight.reservation.journey.Journey;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Cheapest journey per departure day. Days without any journey are missing.
+ */
+public class FareCalendar {
+
+    private final NavigableMap<LocalDate, Journey> cheapest;
+
+    FareCalendar(Map<LocalDate, Journey> cheapest) {
+        this.cheapest = Collections.unmodifiableNavigableMap(new TreeMap<>(cheapest));
+    }
+
+    /**
+     * @return the cheapest journey leaving on that day, or null if there is none
+     */
+    public Journey getCheapestJourney(LocalDate day) {
+        return cheapest.get(day);
+    }
+
+    /**
+     * @return the lowest fare of that day, or {@link Double#NaN} if no journey leaves on that day
+     */
+    public double getLowestFare(LocalDate day) {
+        Journey journey = cheapest.get(day);
+        return journey == null ? Double.NaN : journey.getPrice();
+    }
+
+    /**
+     * @return the earliest of the days with the lowest fare, or null if the calendar is empty
+     */
+    public LocalDate getCheapestDay() {
+        LocalDate cheapestDay = null;
+        double lowestFare = Double.POSITIVE_INFINITY;
+        for (Map.Entry<LocalDate, Journey> entry : cheapest.entrySet()) {
+            if (entry.getValue().getPrice() < lowestFare) {
+                lowestFare = entry.getValue().getPrice();
+                cheapestDay = entry.getKey();
+            }
+        }
+        return cheapestDay;
+    }
+
+    /**
+     * @return the cheapest journey of every day that has one, ordered by day
+     */
+    public NavigableMap<LocalDate, Journey> asMap() {
+        return cheapest;
+    }
+
+    public boolean isEmpty() {
+        return cheapest.isEmpty();
+    }
+}
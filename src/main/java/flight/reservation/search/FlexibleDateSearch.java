@@ -0,0 +1,184 @@
+package flight.reservation.search;
+
+import flight.reservation.Airport;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.journey.Journey;
+import flight.reservation.journey.SingleFlightJourney;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds the cheapest journey for every day of a date range, e.g. for "cheapest BER to JFK any day next month".
+ * <p>
+ * Every day is cut into slices by the departure time of the first flight, and each slice is searched as its
+ * own fork-join task with {@link ItinerarySearch#findParetoOptimal}'s round-based search. All tasks read the
+ * same immutable connection array and keep their search state to themselves, so they share nothing but the
+ * flights' prices and run in parallel without contention. The per-slice results are merged pairwise while the
+ * tasks are joined.
+ */
+public class FlexibleDateSearch {
+
+    public static final int DEFAULT_SLICES_PER_DAY = 4;
+
+    private final ItinerarySearch search;
+    private final ForkJoinPool pool;
+    private final ZoneId zone;
+    private volatile int slicesPerDay = DEFAULT_SLICES_PER_DAY;
+
+    /**
+     * Searches in the common pool, with days in the system time zone.
+     */
+    public FlexibleDateSearch(ItinerarySearch search) {
+        this(search, ForkJoinPool.commonPool(), ZoneId.systemDefault());
+    }
+
+    public FlexibleDateSearch(ItinerarySearch search, ForkJoinPool pool, ZoneId zone) {
+        this.search = search;
+        this.pool = pool;
+        this.zone = zone;
+    }
+
+    /**
+     * Sets into how many tasks each day is split. More slices spread a short date range over more cores.
+     */
+    public void setSlicesPerDay(int slicesPerDay) {
+        if (slicesPerDay < 1) {
+            throw new IllegalArgumentException("A day needs at least one slice: " + slicesPerDay);
+        }
+        this.slicesPerDay = slicesPerDay;
+    }
+
+    /**
+     * Finds the cheapest journey leaving {@code origin} on each day from {@code firstDay} to {@code lastDay},
+     * both included, with at most {@link ItinerarySearch#getMaxTransfers()} transfers. Of equally cheap
+     * journeys the one arriving first is taken.
+     */
+    public FareCalendar findLowestFares(Airport origin, Airport destination, LocalDate firstDay, LocalDate lastDay) {
+        if (lastDay.isBefore(firstDay)) {
+            throw new IllegalArgumentException("Last day " + lastDay + " is before first day " + firstDay);
+        }
+        ConnectionTimetable connections = search.currentTimetable();
+        int originId = connections.airportId(origin);
+        int destinationId = connections.airportId(destination);
+        if (originId < 0 || destinationId < 0 || originId == destinationId) {
+            return new FareCalendar(new HashMap<>());
+        }
+
+        int slices = slicesPerDay;
+        int days = (int) (lastDay.toEpochDay() - firstDay.toEpochDay()) + 1;
+        Slice[] partition = new Slice[days * slices];
+        for (int d = 0; d < days; d++) {
+            LocalDate day = firstDay.plusDays(d);
+            long start = day.atStartOfDay(zone).toInstant().toEpochMilli();
+            long end = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            // days are not always 24 hours long
+            long length = end - start;
+            for (int s = 0; s < slices; s++) {
+                long sliceStart = start + length * s / slices;
+                long sliceEnd = start + length * (s + 1) / slices;
+                partition[d * slices + s] = new Slice(day, sliceStart, sliceEnd);
+            }
+        }
+
+        int maxLegs = search.getMaxTransfers() + 1;
+        Map<LocalDate, Fare> fares = pool.invoke(
+                new SliceTask(connections, originId, destinationId, maxLegs, partition, 0, partition.length));
+        Map<LocalDate, Journey> cheapest = new HashMap<>();
+        fares.forEach((day, fare) -> cheapest.put(day, ItinerarySearch.toJourney(fare.legs)));
+        return new FareCalendar(cheapest);
+    }
+
+    private static final class Slice {
+        final LocalDate day;
+        final long from;
+        final long to;
+
+        Slice(LocalDate day, long from, long to) {
+            this.day = day;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private static final class Fare {
+        final List<ScheduledFlight> legs;
+        final double price;
+        final long arrival;
+
+        Fare(List<ScheduledFlight> legs) {
+            this.legs = legs;
+            this.price = legs.stream().mapToDouble(ScheduledFlight::getCurrentPrice).sum();
+            this.arrival = SingleFlightJourney.estimateArrivalTime(legs.get(legs.size() - 1));
+        }
+
+        boolean isCheaperThan(Fare other) {
+            if (price != other.price) {
+                return price < other.price;
+            }
+            if (arrival != other.arrival) {
+                return arrival < other.arrival;
+            }
+            return legs.size() < other.legs.size();
+        }
+    }
+
+    private static final class SliceTask extends RecursiveTask<Map<LocalDate, Fare>> {
+        private static final long serialVersionUID = 1L;
+
+        private final ConnectionTimetable connections;
+        private final int origin;
+        private final int destination;
+        private final int maxLegs;
+        private final Slice[] slices;
+        private final int from;
+        private final int to;
+
+        SliceTask(ConnectionTimetable connections, int origin, int destination, int maxLegs,
+                  Slice[] slices, int from, int to) {
+            this.connections = connections;
+            this.origin = origin;
+            this.destination = destination;
+            this.maxLegs = maxLegs;
+            this.slices = slices;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<LocalDate, Fare> compute() {
+            if (to - from == 1) {
+                return searchSlice(slices[from]);
+            }
+            int middle = (from + to) >>> 1;
+            SliceTask left = new SliceTask(connections, origin, destination, maxLegs, slices, from, middle);
+            SliceTask right = new SliceTask(connections, origin, destination, maxLegs, slices, middle, to);
+            left.fork();
+            Map<LocalDate, Fare> fares = right.compute();
+            left.join().forEach((day, fare) -> fares.merge(day, fare, (a, b) -> a.isCheaperThan(b) ? a : b));
+            return fares;
+        }
+
+        private Map<LocalDate, Fare> searchSlice(Slice slice) {
+            Map<LocalDate, Fare> fares = new HashMap<>();
+            Fare cheapest = null;
+            List<List<ScheduledFlight>> journeys =
+                    ParetoSearch.search(connections, origin, destination, slice.from, slice.to, maxLegs);
+            for (List<ScheduledFlight> legs : journeys) {
+                Fare fare = new Fare(legs);
+                if (cheapest == null || fare.isCheaperThan(cheapest)) {
+                    cheapest = fare;
+                }
+            }
+            if (cheapest != null) {
+                fares.put(slice.day, cheapest);
+            }
+            return fares;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package flight.reservation.search;
+
+import flight.reservation.Airport;
+import flight.reservation.flight.Schedule;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.journey.Journey;
+import flight.reservation.journey.JourneyFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds itineraries over all flights of a {@link Schedule} with the Connection Scan Algorithm: the flights
+ * are kept as one array of connections sorted by departure time, and a query scans it once from the
+ * earliest departure on, stopping as soon as no later connection can arrive earlier.
+ * <p>
+ * A transfer needs the minimum connection time of the airport between arriving and departing again.
+ * The connection array is rebuilt lazily on the first search after the schedule or a minimum connection
+ * time changed. Searches are thread-safe.
+ * <p>
+ * Besides the earliest arrival, {@link #findParetoOptimal(Airport, Airport, Date)} finds all journeys that
+ * are best in some trade-off between arrival time, price and number of legs.
+ */
+public class ItinerarySearch {
+
+    public static final Duration DEFAULT_MINIMUM_CONNECTION_TIME = Duration.ofMinutes(45);
+    public static final int DEFAULT_MAX_TRANSFERS = 3;
+
+    private final Schedule schedule;
+    private final Map<String, Long> minimumConnectionTimes = new ConcurrentHashMap<>();
+    private volatile long defaultMinimumConnectionMillis = DEFAULT_MINIMUM_CONNECTION_TIME.toMillis();
+    private volatile int maxTransfers = DEFAULT_MAX_TRANSFERS;
+    // bumped by every change of a minimum connection time
+    private final AtomicLong settingsVersion = new AtomicLong();
+    private volatile ConnectionTimetable timetable;
+
+    public ItinerarySearch(Schedule schedule) {
+        this.schedule = schedule;
+    }
+
+    /**
+     * Sets the minimum connection time of all airports without one of their own.
+     */
+    public void setDefaultMinimumConnectionTime(Duration minimumConnectionTime) {
+        defaultMinimumConnectionMillis = checkConnectionTime(minimumConnectionTime);
+        settingsVersion.incrementAndGet();
+    }
+
+    public void setMinimumConnectionTime(Airport airport, Duration minimumConnectionTime) {
+        minimumConnectionTimes.put(airport.getCode(), checkConnectionTime(minimumConnectionTime));
+        settingsVersion.incrementAndGet();
+    }
+
+    public Duration getMinimumConnectionTime(Airport airport) {
+        return Duration.ofMillis(minimumConnectionMillis(airport.getCode()));
+    }
+
+    /**
+     * Limits the number of transfers of journeys found by {@link #findParetoOptimal(Airport, Airport, Date)}.
+     */
+    public void setMaxTransfers(int maxTransfers) {
+        this.maxTransfers = checkTransfers(maxTransfers);
+    }
+
+    public int getMaxTransfers() {
+        return maxTransfers;
+    }
+
+    /**
+     * @return the journey arriving first at {@code destination}, leaving {@code origin} at or after
+     * {@code earliestDeparture}, or null if there is none
+     */
+    public Journey findEarliestArrival(Airport origin, Airport destination, Date earliestDeparture) {
+        return findEarliestArrival(origin, destination, earliestDeparture, 0);
+    }
+
+    /**
+     * Like {@link #findEarliestArrival(Airport, Airport, Date)}, using only flights with at least {@code seats}
+     * seats available.
+     */
+    public Journey findEarliestArrival(Airport origin, Airport destination, Date earliestDeparture, int seats) {
+        ConnectionTimetable connections = currentTimetable();
+        int originId = connections.airportId(origin);
+        int destinationId = connections.airportId(destination);
+        if (originId < 0 || destinationId < 0 || originId == destinationId) {
+            return null;
+        }
+
+        // ready[a]: earliest time a traveller can board a flight at a, i.e. arrival plus minimum connection time
+        long[] ready = new long[connections.airportCount()];
+        int[] reachedBy = new int[connections.airportCount()];
+        Arrays.fill(ready, Long.MAX_VALUE);
+        ready[originId] = earliestDeparture.getTime();
+        long bestArrival = Long.MAX_VALUE;
+
+        int[] from = connections.from;
+        int[] to = connections.to;
+        long[] departure = connections.departure;
+        long[] arrival = connections.arrival;
+        long[] minimumConnection = connections.minimumConnection;
+        for (int i = connections.firstDepartingAt(earliestDeparture.getTime()); i < departure.length; i++) {
+            if (departure[i] >= bestArrival) {
+                break;
+            }
+            if (ready[from[i]] > departure[i]) {
+                continue;
+            }
+            int target = to[i];
+            if (target == destinationId) {
+                if (arrival[i] < bestArrival && hasSeats(connections.flights[i], seats)) {
+                    bestArrival = arrival[i];
+                    reachedBy[target] = i;
+                }
+            } else {
+                long boarding = arrival[i] + minimumConnection[target];
+                if (boarding < ready[target] && hasSeats(connections.flights[i], seats)) {
+                    ready[target] = boarding;
+                    reachedBy[target] = i;
+                }
+            }
+        }
+        if (bestArrival == Long.MAX_VALUE) {
+            return null;
+        }
+
+        List<ScheduledFlight> legs = new ArrayList<>();
+        for (int airport = destinationId; airport != originId; ) {
+            int connection = reachedBy[airport];
+            legs.add(connections.flights[connection]);
+            airport = from[connection];
+        }
+        Collections.reverse(legs);
+        return toJourney(legs);
+    }
+
+    /**
+     * Finds the journeys that no other journey beats in arrival time, price and number of legs at once, e.g.
+     * the fastest, the cheapest and the one with the fewest stops. Journeys have at most
+     * {@link #getMaxTransfers()} transfers; prices are the current prices of the flights.
+     *
+     * @return the journeys ordered by arrival time, empty if there is none
+     */
+    public List<Journey> findParetoOptimal(Airport origin, Airport destination, Date earliestDeparture) {
+        return findParetoOptimal(origin, destination, earliestDeparture, maxTransfers);
+    }
+
+    public List<Journey> findParetoOptimal(Airport origin, Airport destination, Date earliestDeparture, int maxTransfers) {
+        checkTransfers(maxTransfers);
+        ConnectionTimetable connections = currentTimetable();
+        int originId = connections.airportId(origin);
+        int destinationId = connections.airportId(destination);
+        if (originId < 0 || destinationId < 0 || originId == destinationId) {
+            return new ArrayList<>();
+        }
+        List<Journey> journeys = new ArrayList<>();
+        for (List<ScheduledFlight> legs : ParetoSearch.search(connections, originId, destinationId,
+                earliestDeparture.getTime(), maxTransfers + 1)) {
+            journeys.add(toJourney(legs));
+        }
+        return journeys;
+    }
+
+    /**
+     * Finds the Pareto-optimal journeys whose first flight leaves between {@code from}, inclusive, and
+     * {@code to}, exclusive, using only flights with at least {@code seats} seats available.
+     *
+     * @see AvailabilityCache
+     */
+    public List<Journey> findAvailable(Airport origin, Airport destination, Date from, Date to, int seats) {
+        ConnectionTimetable connections = currentTimetable();
+        int originId = connections.airportId(origin);
+        int destinationId = connections.airportId(destination);
+        if (originId < 0 || destinationId < 0 || originId == destinationId) {
+            return new ArrayList<>();
+        }
+        List<Journey> journeys = new ArrayList<>();
+        for (List<ScheduledFlight> legs : ParetoSearch.search(connections, originId, destinationId,
+                from.getTime(), to.getTime(), maxTransfers + 1, seats, null)) {
+            journeys.add(toJourney(legs));
+        }
+        return journeys;
+    }
+
+    /**
+     * Builds the connection array now instead of on the next search, e.g. right after loading a schedule.
+     */
+    public void refresh() {
+        timetable = build();
+    }
+
+    ConnectionTimetable currentTimetable() {
+        ConnectionTimetable current = timetable;
+        if (current == null || current.scheduleVersion != schedule.getVersion()
+                || current.settingsVersion != settingsVersion.get()) {
+            current = build();
+            timetable = current;
+        }
+        return current;
+    }
+
+    private ConnectionTimetable build() {
+        // read the versions first: a change in between only causes one more rebuild
+        long version = schedule.getVersion();
+        long settings = settingsVersion.get();
+        return new ConnectionTimetable(version, settings, schedule.getScheduledFlights(), this::minimumConnectionMillis);
+    }
+
+    static Journey toJourney(List<ScheduledFlight> legs) {
+        if (legs.size() == 1) {
+            return JourneyFactory.createSingleFlightJourney(legs.get(0));
+        }
+        return JourneyFactory.createMultiFlightJourney(legs);
+    }
+
+    private long minimumConnectionMillis(String airportCode) {
+        Long millis = minimumConnectionTimes.get(airportCode);
+        return millis != null ? millis : defaultMinimumConnectionMillis;
+    }
+
+    static boolean hasSeats(ScheduledFlight flight, int seats) {
+        if (seats <= 0) {
+            return true;
+        }
+        try {
+            return flight.getAvailableCapacity() >= seats;
+        } catch (NoSuchFieldException e) {
+            return false;
+        }
+    }
+
+    private static int checkTransfers(int maxTransfers) {
+        if (maxTransfers < 0) {
+            throw new IllegalArgumentException("Maximum number of transfers must not be negative: " + maxTransfers);
+        }
+        return maxTransfers;
+    }
+
+    // a transfer must leave after the arrival, as MultiFlightJourney requires
+    private static long checkConnectionTime(Duration minimumConnectionTime) {
+        if (minimumConnectionTime.isNegative() || minimumConnectionTime.isZero()) {
+            throw new IllegalArgumentException("Minimum connection time must be positive: " + minimumConnectionTime);
+        }
+        return minimumConnectionTime.toMillis();
+    }
+}
@@ -0,0 +1,213 @@
+package flight.reservation.search;
+
+import flight.reservation.flight.ScheduledFlight;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Round-based multi-criteria search in the style of McRAPTOR. Round k extends the journeys found in round
+ * k - 1 by one more flight, so every round adds exactly one leg and journeys with fewer legs are always
+ * found first. Each airport keeps a bag of labels that are Pareto-optimal by arrival time and price; a new
+ * label is dropped if a label of the same or an earlier round at that airport is at least as good in both.
+ * <p>
+ * Labels that cannot beat a journey already found at the destination are pruned as well, and scanning the
+ * departures of an airport stops at the first one that such a journey already beats.
+ */
+final class ParetoSearch {
+
+    private final ConnectionTimetable connections;
+    private final int origin;
+    private final int destination;
+    private final List<Label>[] bags;
+    private final long latestDeparture;
+    private final int seats;
+    // connections looked at, i.e. those the result depends on; null if not needed
+    private final BitSet examined;
+    private final List<Label> arrivals = new ArrayList<>();
+
+    private ParetoSearch(ConnectionTimetable connections, int origin, int destination, long latestDeparture,
+                         int seats, BitSet examined) {
+        this.connections = connections;
+        this.origin = origin;
+        this.destination = destination;
+        this.latestDeparture = latestDeparture;
+        this.seats = seats;
+        this.examined = examined;
+        @SuppressWarnings("unchecked")
+        List<Label>[] bags = (List<Label>[]) new List<?>[connections.airportCount()];
+        this.bags = bags;
+    }
+
+    /**
+     * @return the legs of every Pareto-optimal journey with at most {@code maxLegs} flights, ordered by
+     * arrival time, price and number of legs
+     */
+    static List<List<ScheduledFlight>> search(ConnectionTimetable connections, int origin, int destination,
+                                              long earliestDeparture, int maxLegs) {
+        return search(connections, origin, destination, earliestDeparture, Long.MAX_VALUE, maxLegs);
+    }
+
+    /**
+     * Like {@link #search(ConnectionTimetable, int, int, long, int)} for journeys whose first flight leaves
+     * before {@code latestDeparture}.
+     */
+    static List<List<ScheduledFlight>> search(ConnectionTimetable connections, int origin, int destination,
+                                              long earliestDeparture, long latestDeparture, int maxLegs) {
+        return search(connections, origin, destination, earliestDeparture, latestDeparture, maxLegs, 0, null);
+    }
+
+    /**
+     * Like {@link #search(ConnectionTimetable, int, int, long, long, int)} using only flights with at least
+     * {@code seats} seats available. If {@code examined} is given, every connection whose price, seats or
+     * departure the result depends on is set in it.
+     */
+    static List<List<ScheduledFlight>> search(ConnectionTimetable connections, int origin, int destination,
+                                              long earliestDeparture, long latestDeparture, int maxLegs,
+                                              int seats, BitSet examined) {
+        return new ParetoSearch(connections, origin, destination, latestDeparture, seats, examined)
+                .run(earliestDeparture, maxLegs);
+    }
+
+    private List<List<ScheduledFlight>> run(long earliestDeparture, int maxLegs) {
+        Label start = new Label(earliestDeparture, 0, 0, -1, null);
+        bags[origin] = new ArrayList<>(Collections.singletonList(start));
+        List<Label> marked = Collections.singletonList(start);
+
+        for (int round = 1; round <= maxLegs && !marked.isEmpty(); round++) {
+            List<Label> improved = new ArrayList<>();
+            for (Label label : marked) {
+                if (!label.dominated) {
+                    extend(label, round, improved);
+                }
+            }
+            marked = improved;
+        }
+
+        arrivals.sort(Comparator.comparingLong((Label label) -> label.arrival)
+                .thenComparingDouble(label -> label.price)
+                .thenComparingInt(label -> label.legs));
+        List<List<ScheduledFlight>> journeys = new ArrayList<>(arrivals.size());
+        for (Label label : arrivals) {
+            journeys.add(legsOf(label));
+        }
+        return journeys;
+    }
+
+    private void extend(Label label, int round, List<Label> improved) {
+        int airport = label.connection < 0 ? origin : connections.to[label.connection];
+        long ready = label.connection < 0 ? label.arrival : label.arrival + connections.minimumConnection[airport];
+        // any departure at or after this time arrives later than a journey that is not more expensive
+        long cutoff = earliestArrivalNotAbove(label.price);
+
+        int end = label.connection < 0
+                ? connections.firstOutgoingAt(airport, latestDeparture)
+                : connections.outgoingStart[airport + 1];
+        for (int j = connections.firstOutgoingAt(airport, ready); j < end; j++) {
+            int connection = connections.outgoing[j];
+            if (examined != null) {
+                examined.set(connection);
+            }
+            if (connections.departure[connection] >= cutoff) {
+                break;
+            }
+            long arrival = connections.arrival[connection];
+            double price = label.price + connections.flights[connection].getCurrentPrice();
+            if (isDominatedAtDestination(arrival, price, round)) {
+                continue;
+            }
+            if (!ItinerarySearch.hasSeats(connections.flights[connection], seats)) {
+                continue;
+            }
+            int target = connections.to[connection];
+            if (target == destination) {
+                addArrival(new Label(arrival, price, round, connection, label));
+            } else if (target != origin) {
+                Label next = new Label(arrival, price, round, connection, label);
+                if (addToBag(target, next)) {
+                    improved.add(next);
+                }
+            }
+        }
+    }
+
+    private long earliestArrivalNotAbove(double price) {
+        long earliest = Long.MAX_VALUE;
+        for (Label arrival : arrivals) {
+            if (arrival.price <= price && arrival.arrival < earliest) {
+                earliest = arrival.arrival;
+            }
+        }
+        return earliest;
+    }
+
+    // journeys found earlier have at most as many legs
+    private boolean isDominatedAtDestination(long arrival, double price, int legs) {
+        for (Label found : arrivals) {
+            if (found.arrival <= arrival && found.price <= price && found.legs <= legs) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addArrival(Label label) {
+        // only a journey of the same round can be beaten, earlier ones have fewer legs
+        arrivals.removeIf(found -> found.legs == label.legs && label.arrival <= found.arrival && label.price <= found.price);
+        arrivals.add(label);
+    }
+
+    private boolean addToBag(int airport, Label label) {
+        List<Label> bag = bags[airport];
+        if (bag == null) {
+            bag = new ArrayList<>();
+            bags[airport] = bag;
+        }
+        for (Label other : bag) {
+            if (other.arrival <= label.arrival && other.price <= label.price) {
+                return false;
+            }
+        }
+        // A beaten label of an earlier round has fewer legs and is still extended in this round. Everything it
+        // could prune, the new label prunes too.
+        bag.removeIf(other -> {
+            if (label.arrival <= other.arrival && label.price <= other.price) {
+                other.dominated = other.legs == label.legs;
+                return true;
+            }
+            return false;
+        });
+        bag.add(label);
+        return true;
+    }
+
+    private List<ScheduledFlight> legsOf(Label label) {
+        List<ScheduledFlight> legs = new ArrayList<>(label.legs);
+        for (Label current = label; current.connection >= 0; current = current.previous) {
+            legs.add(connections.flights[current.connection]);
+        }
+        Collections.reverse(legs);
+        return legs;
+    }
+
+    private static final class Label {
+        final long arrival;
+        final double price;
+        final int legs;
+        // flight that reached this label, -1 at the origin
+        final int connection;
+        final Label previous;
+        boolean dominated;
+
+        Label(long arrival, double price, int legs, int connection, Label previous) {
+            this.arrival = arrival;
+            this.price = price;
+            this.legs = legs;
+            this.connection = connection;
+            this.previous = previous;
+        }
+    }
+}
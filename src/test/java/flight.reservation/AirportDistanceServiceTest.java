@@ -0,0 +1,135 @@
+package flight.reservation;
+
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.journey.AirportDistanceService;
+import flight.reservation.journey.Journey;
+import flight.reservation.journey.SingleFlightJourney;
+import flight.reservation.plane.PassengerPlane;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Airport Distance Service Tests")
+public class AirportDistanceServiceTest {
+
+    private AirportDistanceService distances;
+    private Airport berlin;
+    private Airport frankfurt;
+    private Airport newYork;
+
+    @BeforeEach
+    public void initAirports() {
+        distances = new AirportDistanceService();
+        berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin", 52.3667, 13.5033);
+        frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse", 50.0333, 8.5706);
+        newYork = new Airport("John F. Kennedy International Airport", "JFK", "Queens, New York, New York", 40.6398, -73.7789);
+    }
+
+    @Nested
+    @DisplayName("Given airports with coordinates")
+    class GivenAirportsWithCoordinates {
+
+        @Test
+        @DisplayName("then great-circle distances should be returned")
+        void thenGreatCircleDistancesShouldBeReturned() {
+            assertEquals(430.5, distances.distance(berlin, frankfurt), 0.1);
+            assertEquals(6390.3, distances.distance(berlin, newYork), 0.1);
+            assertEquals(distances.distance(berlin, newYork), distances.distance(newYork, berlin));
+            assertEquals(0, distances.distance(frankfurt, frankfurt));
+        }
+
+        @Test
+        @DisplayName("then journeys should use them for distance and arrival time")
+        void thenJourneysShouldUseThem() {
+            Date departure = Date.from(Instant.now().plusSeconds(TimeUnit.DAYS.toSeconds(3)));
+            Journey journey = new SingleFlightJourney(
+                    new ScheduledFlight(1, berlin, newYork, new PassengerPlane("A380"), departure));
+
+            assertEquals(6390, journey.getTotalDistance());
+            assertEquals(departure.getTime() + (long) (6390 / 800.0 * TimeUnit.HOURS.toMillis(1)),
+                    journey.getArrivalTime().getTime());
+        }
+
+        @Test
+        @DisplayName("then adding airports should keep the known distances")
+        void thenAddingAirportsShouldKeepTheKnownDistances() {
+            double known = distances.distance(berlin, frankfurt);
+            List<Airport> added = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                added.add(new Airport("Airport " + i, "DST" + i, "Nowhere", -60 + 3 * i, -170 + 8 * i));
+            }
+            distances.registerAll(added);
+
+            assertEquals(42, distances.size());
+            assertEquals(known, distances.distance(berlin, frankfurt));
+            Airport last = added.get(39);
+            assertEquals(AirportDistanceService.haversine(berlin.getLatitude(), berlin.getLongitude(),
+                    last.getLatitude(), last.getLongitude()), distances.distance(berlin, last));
+        }
+
+        @Test
+        @DisplayName("then an airport with the same code and new coordinates should only be remeasured once registered")
+        void thenMovedAirportsShouldBeRemeasuredOnceRegistered() {
+            double known = distances.distance(berlin, frankfurt);
+            Airport tegel = new Airport("Berlin Airport", "BER", "Berlin, Berlin", 52.5597, 13.2877);
+            Airport unlocated = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+
+            assertEquals(known, distances.distance(tegel, frankfurt));
+            distances.register(tegel);
+            assertNotEquals(known, distances.distance(berlin, frankfurt));
+            distances.register(unlocated);
+            assertEquals(distances.distance(tegel, frankfurt), distances.distance(berlin, frankfurt));
+            assertTrue(Double.isNaN(distances.distance(unlocated, frankfurt)));
+            assertEquals(2, distances.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given airports without coordinates")
+    class GivenAirportsWithoutCoordinates {
+
+        private Airport madrid;
+
+        @BeforeEach
+        void initAirport() {
+            madrid = new Airport("Madrid Barajas Airport", "MAD", "Barajas, Madrid");
+        }
+
+        @Test
+        @DisplayName("then the distance should be unknown and journeys should assume 500 km")
+        void thenTheDistanceShouldBeUnknown() {
+            assertFalse(madrid.hasCoordinates());
+            assertTrue(Double.isNaN(distances.distance(madrid, berlin)));
+            Journey journey = new SingleFlightJourney(
+                    new ScheduledFlight(1, madrid, berlin, new PassengerPlane("A380"), new Date()));
+            assertEquals(500, journey.getTotalDistance());
+        }
+
+        @Test
+        @DisplayName("then the distance should stay unknown after the code was registered with coordinates")
+        void thenTheDistanceShouldStayUnknown() {
+            Airport located = new Airport("Madrid Barajas Airport", "MAD", "Barajas, Madrid", 40.4719, -3.5626);
+
+            assertFalse(Double.isNaN(distances.distance(located, berlin)));
+            assertTrue(Double.isNaN(distances.distance(madrid, berlin)));
+            assertFalse(Double.isNaN(distances.distance(located, berlin)));
+            assertEquals(2, distances.size());
+        }
+
+        @Test
+        @DisplayName("then invalid coordinates should be rejected")
+        void thenInvalidCoordinatesShouldBeRejected() {
+            assertThrows(IllegalArgumentException.class, () -> new Airport("Nowhere", "NWH", "Nowhere", 91, 0));
+            assertThrows(IllegalArgumentException.class, () -> new Airport("Nowhere", "NWH", "Nowhere", 10, Double.NaN));
+        }
+    }
+}
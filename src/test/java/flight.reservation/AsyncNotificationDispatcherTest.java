@@ -0,0 +1,149 @@
+package flight.reservation;
+
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.observer.AsyncNotificationDispatcher;
+import flight.reservation.observer.BackpressurePolicy;
+import flight.reservation.plane.PassengerPlane;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Async Notification Dispatcher Tests")
+public class AsyncNotificationDispatcherTest {
+
+    private ScheduledFlight flight;
+    private AsyncNotificationDispatcher dispatcher;
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final CountDownLatch observerEntered = new CountDownLatch(1);
+    private final CountDownLatch releaseObserver = new CountDownLatch(1);
+
+    @BeforeEach
+    public void initFlight() {
+        Airport berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        Airport frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        flight = new ScheduledFlight(101, berlin, frankfurt, new PassengerPlane("A380"), new Date(), 100);
+        // blocks the dispatcher thread on the first notification until the test releases it
+        flight.registerObserver((scheduledFlight, message) -> {
+            observerEntered.countDown();
+            try {
+                releaseObserver.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(message);
+        });
+    }
+
+    @AfterEach
+    public void closeDispatcher() {
+        releaseObserver.countDown();
+        dispatcher.close();
+    }
+
+    private void blockDispatcherThread() throws InterruptedException {
+        flight.setCurrentPrice(110);
+        assertTrue(observerEntered.await(10, TimeUnit.SECONDS));
+    }
+
+    @Nested
+    @DisplayName("Given an asynchronous dispatcher that drops on overflow")
+    class GivenADroppingDispatcher {
+
+        @BeforeEach
+        void initDispatcher() {
+            dispatcher = new AsyncNotificationDispatcher(1, BackpressurePolicy.DROP);
+            flight.setNotificationDispatcher(dispatcher);
+        }
+
+        @Test
+        @DisplayName("then a booking should not wait for a slow observer")
+        void thenABookingShouldNotWaitForASlowObserver() throws InterruptedException {
+            blockDispatcherThread();
+            flight.addPassengers(Arrays.asList(new Passenger("Max")));
+            assertEquals(1, flight.getPassengers().size());
+            assertTrue(received.isEmpty());
+        }
+
+        @Test
+        @DisplayName("then notifications beyond the queue capacity should be dropped")
+        void thenOverflowingNotificationsShouldBeDropped() throws InterruptedException {
+            blockDispatcherThread();
+            flight.setCurrentPrice(120);
+            flight.setCurrentPrice(130);
+            assertEquals(1, dispatcher.getDroppedCount());
+            releaseObserver.countDown();
+            dispatcher.close();
+            assertEquals(Arrays.asList(
+                    "Flight 101 price changed from 100.0 to 110.0",
+                    "Flight 101 price changed from 110.0 to 120.0"), received);
+        }
+    }
+
+    @Nested
+    @DisplayName("Given an asynchronous dispatcher that coalesces on overflow")
+    class GivenACoalescingDispatcher {
+
+        @BeforeEach
+        void initDispatcher() {
+            dispatcher = new AsyncNotificationDispatcher(1, BackpressurePolicy.COALESCE);
+            flight.setNotificationDispatcher(dispatcher);
+        }
+
+        @Test
+        @DisplayName("then overflowing price changes should be merged into the queued change")
+        void thenOverflowingPriceChangesShouldBeMerged() throws InterruptedException {
+            blockDispatcherThread();
+            flight.setCurrentPrice(120);
+            flight.setCurrentPrice(130);
+            flight.setCurrentPrice(140);
+            flight.setCurrentPrice(150);
+            assertEquals(0, dispatcher.getDroppedCount());
+            assertEquals(2, dispatcher.getCoalescedCount());
+            releaseObserver.countDown();
+            dispatcher.close();
+            assertEquals(Arrays.asList(
+                    "Flight 101 price changed from 100.0 to 110.0",
+                    "Flight 101 price changed from 110.0 to 150.0"), received);
+            assertEquals(3, dispatcher.getCoalescedCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given an asynchronous dispatcher with an error handler")
+    class GivenAnErrorHandler {
+
+        private final List<RuntimeException> errors = new CopyOnWriteArrayList<>();
+
+        @BeforeEach
+        void initDispatcher() {
+            dispatcher = new AsyncNotificationDispatcher(4, BackpressurePolicy.DROP, errors::add);
+            flight.setNotificationDispatcher(dispatcher);
+        }
+
+        @Test
+        @DisplayName("then a failing observer should be reported and not stop the others")
+        void thenAFailingObserverShouldBeReported() {
+            IllegalStateException failure = new IllegalStateException("observer failed");
+            flight.registerObserver((scheduledFlight, message) -> {
+                throw failure;
+            });
+            releaseObserver.countDown();
+            flight.setCurrentPrice(110);
+            flight.setCurrentPrice(120);
+            dispatcher.close();
+            assertEquals(Arrays.asList(failure, failure), errors);
+            assertEquals(2, received.size());
+        }
+    }
+}
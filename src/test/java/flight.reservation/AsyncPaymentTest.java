@@ -0,0 +1,174 @@
+package flight.reservation;
+
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.order.FlightOrder;
+import flight.reservation.order.Order;
+import flight.reservation.payment.BatchPaymentGateway;
+import flight.reservation.payment.CreditCard;
+import flight.reservation.payment.CreditCardPaymentStrategy;
+import flight.reservation.payment.PaymentStrategy;
+import flight.reservation.payment.PaypalPaymentStrategy;
+import flight.reservation.payment.SimulatedPaymentGateway;
+import flight.reservation.plane.PassengerPlane;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Asynchronous Payment Tests")
+public class AsyncPaymentTest {
+
+    private ScheduledFlight flight;
+    private Customer customer;
+    private CreditCard creditCard;
+
+    @BeforeEach
+    public void initOrder() {
+        Airport berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        Airport frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        flight = new ScheduledFlight(1, berlin, frankfurt, new PassengerPlane("A380"), TestUtil.addDays(new Date(), 3));
+        customer = new Customer("Amanda", "amanda@ya.com");
+        creditCard = new CreditCard("4111111111111111", TestUtil.addDays(new Date(), 365), "123");
+        creditCard.setAmount(1000);
+    }
+
+    private FlightOrder createOrder(String passenger) {
+        return customer.createOrder(Collections.singletonList(passenger), Collections.singletonList(flight), 100);
+    }
+
+    @Nested
+    @DisplayName("Given a slow payment gateway")
+    class GivenASlowGateway {
+
+        private SimulatedPaymentGateway gateway;
+
+        @BeforeEach
+        void initGateway() {
+            gateway = new SimulatedPaymentGateway(Duration.ofMillis(200));
+        }
+
+        @Test
+        @DisplayName("then the order should be finalized when the payment completes")
+        void thenTheOrderShouldBeFinalizedLater() throws Exception {
+            FlightOrder order = createOrder("Max");
+            order.setPaymentStrategy(new CreditCardPaymentStrategy(creditCard, gateway));
+
+            CompletableFuture<Boolean> processed = order.processOrderAsync();
+
+            assertFalse(processed.isDone());
+            assertFalse(order.isClosed());
+            assertTrue(processed.get(5, TimeUnit.SECONDS));
+            assertTrue(order.isClosed());
+            assertEquals(900, creditCard.getAmount());
+        }
+
+        @Test
+        @DisplayName("then a payment over the timeout should leave the order open and the card untouched")
+        void thenATimedOutPaymentShouldLeaveTheOrderOpen() throws Exception {
+            FlightOrder order = createOrder("Max");
+            order.setPaymentStrategy(new CreditCardPaymentStrategy(creditCard, gateway));
+
+            CompletableFuture<Boolean> processed = order.processOrderAsync(Duration.ofMillis(20));
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> processed.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof TimeoutException);
+            Thread.sleep(400);
+            assertEquals(1, gateway.getChargeCount());
+            assertFalse(order.isClosed());
+            assertEquals(1000, creditCard.getAmount());
+        }
+
+        @Test
+        @DisplayName("then many payments should wait at the same time instead of one after the other")
+        void thenPaymentsShouldOverlap() throws Exception {
+            List<CompletableFuture<Boolean>> processed = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                FlightOrder order = createOrder("Passenger " + i);
+                order.setPaymentStrategy(new PaypalPaymentStrategy("amanda@ya.com", "amanda1985", gateway));
+                processed.add(order.processOrderAsync());
+            }
+
+            CompletableFuture.allOf(processed.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+            assertTrue(gateway.getMaxInFlightCount() > 50, "max in flight " + gateway.getMaxInFlightCount());
+            assertEquals(100, gateway.getChargeCount());
+            assertTrue(customer.getOrders().stream().allMatch(Order::isClosed));
+        }
+
+        @Test
+        @DisplayName("then concurrent payments should not overdraw the card")
+        void thenConcurrentPaymentsShouldNotOverdraw() {
+            List<PaymentStrategy> strategies = new ArrayList<>();
+            double[] amounts = new double[20];
+            for (int i = 0; i < 20; i++) {
+                strategies.add(new CreditCardPaymentStrategy(creditCard, gateway));
+                amounts[i] = 100;
+            }
+
+            boolean[] paid = BatchPaymentGateway.CONCURRENT.submit(strategies, amounts);
+
+            // the card covers ten payments, the rest are rejected by the card limit
+            int count = 0;
+            for (boolean payment : paid) {
+                count += payment ? 1 : 0;
+            }
+            assertEquals(10, count);
+            assertEquals(0, creditCard.getAmount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a card without enough money")
+    class GivenACardWithoutEnoughMoney {
+
+        @Test
+        @DisplayName("then the asynchronous order should fail like the synchronous one")
+        void thenTheOrderShouldFail() {
+            creditCard.setAmount(10);
+            FlightOrder order = createOrder("Max");
+            order.setPaymentStrategy(new CreditCardPaymentStrategy(creditCard));
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> order.processOrderAsync().get());
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertFalse(order.isClosed());
+            assertThrows(IllegalStateException.class, order::processOrder);
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a payment that is declined")
+    class GivenADeclinedPayment {
+
+        @Test
+        @DisplayName("then the asynchronous order should complete with false and stay open")
+        void thenTheOrderShouldCompleteWithFalse() throws Exception {
+            FlightOrder order = createOrder("Max");
+            order.setPaymentStrategy(new PaymentStrategy() {
+                @Override
+                public boolean pay(double amount) {
+                    return false;
+                }
+
+                @Override
+                public boolean isValid() {
+                    return true;
+                }
+            });
+
+            assertFalse(order.processOrderAsync().get(5, TimeUnit.SECONDS));
+            assertFalse(order.isClosed());
+        }
+    }
+}
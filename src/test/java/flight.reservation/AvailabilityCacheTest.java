@@ -0,0 +1,188 @@
+package flight.reservation;
+
+import flight.reservation.flight.Schedule;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.journey.Journey;
+import flight.reservation.plane.PassengerPlane;
+import flight.reservation.search.AvailabilityCache;
+import flight.reservation.search.ItinerarySearch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Availability Cache Tests")
+public class AvailabilityCacheTest {
+
+    private Schedule schedule;
+    private ItinerarySearch search;
+    private AvailabilityCache cache;
+    private LocalDate day;
+    private Airport berlin;
+    private Airport frankfurt;
+    private Airport madrid;
+    private Airport newYork;
+
+    @BeforeEach
+    public void initSchedule() {
+        schedule = new Schedule();
+        search = new ItinerarySearch(schedule);
+        cache = new AvailabilityCache(search, ZoneOffset.UTC, 100, Duration.ofMinutes(5));
+        day = LocalDate.now(ZoneOffset.UTC).plusDays(10);
+        berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        madrid = new Airport("Adolfo Suárez Madrid–Barajas Airport", "MAD", "Madrid, Spain");
+        newYork = new Airport("John F. Kennedy International Airport", "JFK", "Queens, New York, New York");
+    }
+
+    private ScheduledFlight schedule(int number, Airport from, Airport to, int dayOffset, int hour, double price) {
+        long departure = day.plusDays(dayOffset).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli()
+                + TimeUnit.HOURS.toMillis(hour);
+        // 25 seats
+        ScheduledFlight flight = new ScheduledFlight(number, from, to, new PassengerPlane("Embraer 190"), new Date(departure), price);
+        schedule.scheduleFlights(Collections.singletonList(flight));
+        return flight;
+    }
+
+    private static List<List<Integer>> flightNumbers(List<Journey> journeys) {
+        return journeys.stream()
+                .map(journey -> journey.getFlights().stream().map(ScheduledFlight::getNumber).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+
+    @Nested
+    @DisplayName("Given a cached search")
+    class GivenACachedSearch {
+
+        private ScheduledFlight direct;
+        private ScheduledFlight firstLeg;
+        private ScheduledFlight elsewhere;
+
+        @BeforeEach
+        void searchOnce() {
+            direct = schedule(1, berlin, newYork, 0, 14, 500);
+            firstLeg = schedule(2, berlin, frankfurt, 0, 8, 100);
+            schedule(3, frankfurt, newYork, 0, 11, 100);
+            elsewhere = schedule(4, madrid, frankfurt, 0, 9, 100);
+
+            assertEquals(List.of(List.of(2, 3), List.of(1)), flightNumbers(cache.search(berlin, newYork, day, 1)));
+        }
+
+        @Test
+        @DisplayName("then the same search should be answered from the cache")
+        void thenTheSameSearchShouldBeAnsweredFromTheCache() {
+            List<Journey> journeys = cache.search(berlin, newYork, day, 1);
+
+            assertEquals(List.of(List.of(2, 3), List.of(1)), flightNumbers(journeys));
+            assertEquals(1, cache.getHitCount());
+            assertEquals(1, cache.getMissCount());
+            assertEquals(0.5, cache.getHitRate());
+            assertNotSame(journeys.get(0), cache.search(berlin, newYork, day, 1).get(0));
+        }
+
+        @Test
+        @DisplayName("then a different party size should be searched separately")
+        void thenADifferentPartySizeShouldBeSearchedSeparately() {
+            firstLeg.reserveSeats(24);
+
+            assertEquals(List.of(List.of(1)), flightNumbers(cache.search(berlin, newYork, day, 2)));
+            assertEquals(0, cache.getHitCount());
+            assertEquals(2, cache.size());
+        }
+
+        @Test
+        @DisplayName("then a price change of a flight of the result should drop it")
+        void thenAPriceChangeShouldDropTheResult() {
+            direct.setCurrentPrice(150);
+
+            assertEquals(1, cache.getInvalidationCount());
+            assertEquals(List.of(List.of(2, 3), List.of(1)), flightNumbers(cache.search(berlin, newYork, day, 1)));
+            assertEquals(150, cache.search(berlin, newYork, day, 1).get(1).getPrice());
+            assertEquals(1, cache.getHitCount());
+        }
+
+        @Test
+        @DisplayName("then a flight the search did not depend on should keep the result")
+        void thenAnUnrelatedFlightShouldKeepTheResult() {
+            elsewhere.setCurrentPrice(10);
+            elsewhere.addPassengers(Collections.singletonList(new Passenger("Jane")));
+
+            cache.search(berlin, newYork, day, 1);
+            assertEquals(0, cache.getInvalidationCount());
+            assertEquals(1, cache.getHitCount());
+        }
+
+        @Test
+        @DisplayName("then a full flight should drop the result")
+        void thenAFullFlightShouldDropTheResult() {
+            for (int i = 0; i < 25; i++) {
+                firstLeg.bookPassengers(Collections.singletonList(new Passenger("Passenger " + i)));
+            }
+
+            assertEquals(List.of(List.of(1)), flightNumbers(cache.search(berlin, newYork, day, 1)));
+            assertEquals(0, cache.getHitCount());
+        }
+
+        @Test
+        @DisplayName("then changes to the schedule or to departures should drop the affected results")
+        void thenScheduleChangesShouldDropResults() {
+            cache.search(berlin, frankfurt, day.plusDays(1), 1);
+            elsewhere.setDepartureTime(new Date(day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli()));
+            assertEquals(1, cache.getInvalidationCount());
+            assertEquals(1, cache.size());
+
+            schedule(5, berlin, newYork, 0, 6, 100);
+            assertEquals(List.of(List.of(5)), flightNumbers(cache.search(berlin, newYork, day, 1)));
+            assertEquals(2, cache.getInvalidationCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a cache at its limits")
+    class GivenACacheAtItsLimits {
+
+        @BeforeEach
+        void scheduleFlights() {
+            schedule(1, berlin, newYork, 0, 14, 500);
+            schedule(2, berlin, frankfurt, 0, 8, 100);
+            schedule(3, frankfurt, newYork, 0, 11, 100);
+        }
+
+        @Test
+        @DisplayName("then the least recently used result should be evicted")
+        void thenTheLeastRecentlyUsedResultShouldBeEvicted() {
+            AvailabilityCache small = new AvailabilityCache(search, ZoneOffset.UTC, 2, Duration.ofMinutes(5));
+            small.search(berlin, newYork, day, 1);
+            small.search(berlin, frankfurt, day, 1);
+            small.search(berlin, newYork, day, 1);
+            small.search(frankfurt, newYork, day, 1);
+
+            assertEquals(2, small.size());
+            assertEquals(1, small.getEvictionCount());
+            small.search(berlin, newYork, day, 1);
+            assertEquals(2, small.getHitCount());
+        }
+
+        @Test
+        @DisplayName("then results should expire after the time to live")
+        void thenResultsShouldExpire() {
+            AvailabilityCache expiring = new AvailabilityCache(search, ZoneOffset.UTC, 2, Duration.ZERO);
+            expiring.search(berlin, newYork, day, 1);
+            expiring.search(berlin, newYork, day, 1);
+
+            assertEquals(0, expiring.getHitCount());
+            assertEquals(1, expiring.getExpirationCount());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package flight.reservation;
+
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.order.BookingService;
+import flight.reservation.order.FlightOrder;
+import flight.reservation.payment.CreditCard;
+import flight.reservation.payment.CreditCardPaymentStrategy;
+import flight.reservation.payment.PaymentGateway;
+import flight.reservation.payment.SimulatedPaymentGateway;
+import flight.reservation.plane.PassengerPlane;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@DisplayName("Booking Service Tests")
+public class BookingServiceTest {
+
+    private ScheduledFlight flight;
+    private CreditCard creditCard;
+    private PaymentGateway gateway;
+
+    @BeforeEach
+    public void initFlight() {
+        Airport berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        Airport frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        // 25 seats
+        flight = new ScheduledFlight(1, berlin, frankfurt, new PassengerPlane("Embraer 190"), TestUtil.addDays(new Date(), 3));
+        creditCard = new CreditCard("4111111111111111", TestUtil.addDays(new Date(), 365), "123");
+        creditCard.setAmount(10_000);
+        gateway = new SimulatedPaymentGateway(Duration.ofMillis(20));
+    }
+
+    private void bookConcurrently(BookingService service) throws Exception {
+        List<CompletableFuture<FlightOrder>> bookings = new ArrayList<>();
+        try (service) {
+            for (int i = 0; i < 40; i++) {
+                Customer customer = new Customer("Customer " + i, "customer" + i + "@example.com");
+                bookings.add(service.book(customer, Collections.singletonList("Passenger " + i),
+                        Collections.singletonList(flight), 100, new CreditCardPaymentStrategy(creditCard, gateway)));
+            }
+        }
+
+        int paid = 0;
+        int rejected = 0;
+        for (CompletableFuture<FlightOrder> booking : bookings) {
+            try {
+                assertTrue(booking.join().isClosed());
+                paid++;
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+                rejected++;
+            }
+        }
+        assertEquals(25, paid);
+        assertEquals(15, rejected);
+        assertEquals(0, flight.getAvailableCapacity());
+        assertEquals(25, flight.getPassengers().size());
+        assertEquals(7_500, creditCard.getAmount());
+    }
+
+    @Nested
+    @DisplayName("Given more bookings than seats")
+    class GivenMoreBookingsThanSeats {
+
+        @Test
+        @DisplayName("then platform threads should sell every seat exactly once")
+        void thenPlatformThreadsShouldSellEverySeatOnce() throws Exception {
+            BookingService service = BookingService.withPlatformThreads(8);
+            assertEquals(BookingService.ExecutionMode.PLATFORM_THREADS, service.getMode());
+            bookConcurrently(service);
+        }
+
+        @Test
+        @DisplayName("then virtual threads should sell every seat exactly once")
+        void thenVirtualThreadsShouldSellEverySeatOnce() throws Exception {
+            assumeTrue(BookingService.isVirtualThreadSupported(), "needs JDK 21 or newer");
+            BookingService service = BookingService.withVirtualThreads();
+            assertEquals(BookingService.ExecutionMode.VIRTUAL_THREADS, service.getMode());
+            bookConcurrently(service);
+        }
+
+        @Test
+        @DisplayName("then virtual threads should be reported as unsupported on older JDKs")
+        void thenVirtualThreadsShouldBeReportedUnsupported() {
+            assumeTrue(!BookingService.isVirtualThreadSupported(), "virtual threads are supported");
+            assertThrows(UnsupportedOperationException.class, BookingService::withVirtualThreads);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package flight.reservation;
+
+import flight.reservation.payment.CardLedger;
+import flight.reservation.payment.CreditCard;
+import flight.reservation.payment.CreditCardPaymentStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Card Ledger Tests")
+public class CardLedgerTest {
+
+    private CardLedger ledger;
+
+    @BeforeEach
+    public void initLedger() {
+        ledger = new CardLedger(10_000);
+    }
+
+    @Nested
+    @DisplayName("Given a reservation")
+    class GivenAReservation {
+
+        private CardLedger.Hold hold;
+
+        @BeforeEach
+        void reserve() {
+            hold = ledger.reserve(2_500);
+        }
+
+        @Test
+        @DisplayName("then the amount should be held until it is captured")
+        void thenTheAmountShouldBeHeldUntilCaptured() {
+            assertEquals(7_500, ledger.getAvailable());
+            assertEquals(2_500, ledger.getHeld());
+
+            assertTrue(hold.capture());
+
+            assertFalse(hold.capture());
+            assertFalse(hold.release());
+            assertEquals(7_500, ledger.getAvailable());
+            assertEquals(0, ledger.getHeld());
+            assertEquals(2_500, ledger.getCaptured());
+        }
+
+        @Test
+        @DisplayName("then a released amount should be available again")
+        void thenAReleasedAmountShouldBeAvailableAgain() {
+            assertTrue(hold.release());
+
+            assertFalse(hold.capture());
+            assertEquals(10_000, ledger.getAvailable());
+            assertEquals(0, ledger.getCaptured());
+        }
+
+        @Test
+        @DisplayName("then the audit trail should record every operation")
+        void thenTheAuditTrailShouldRecordEveryOperation() {
+            assertNull(ledger.reserve(8_000));
+            hold.capture();
+
+            List<CardLedger.EntryType> types = ledger.getAuditTrail().stream()
+                    .map(CardLedger.Entry::getType).collect(Collectors.toList());
+            assertEquals(List.of(CardLedger.EntryType.RESERVED, CardLedger.EntryType.DECLINED,
+                    CardLedger.EntryType.CAPTURED), types);
+            CardLedger.Entry captured = ledger.getAuditTrail().get(2);
+            assertEquals(hold.getId(), captured.getHoldId());
+            assertEquals(2_500, captured.getCents());
+            assertEquals(7_500, captured.getAvailableAfter());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given an audit trail with a small capacity")
+    class GivenASmallAuditCapacity {
+
+        @Test
+        @DisplayName("then only the latest operations should be kept")
+        void thenOnlyTheLatestOperationsShouldBeKept() {
+            ledger = new CardLedger(10_000, 3);
+            for (int i = 0; i < 10; i++) {
+                ledger.reserve(100).release();
+            }
+            ledger.setAvailable(5_000);
+
+            List<CardLedger.EntryType> types = ledger.getAuditTrail().stream()
+                    .map(CardLedger.Entry::getType).collect(Collectors.toList());
+            assertEquals(List.of(CardLedger.EntryType.RESERVED, CardLedger.EntryType.RELEASED,
+                    CardLedger.EntryType.ADJUSTED), types);
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a corporate card charged from many threads")
+    class GivenACorporateCard {
+
+        @Test
+        @DisplayName("then exactly as many payments should succeed as the balance covers")
+        void thenTheCardShouldNotBeOverdrawn() throws InterruptedException {
+            CreditCard card = new CreditCard("4111111111111111", TestUtil.addDays(new Date(), 365), "123");
+            card.setAmount(1_000);
+            CreditCardPaymentStrategy strategy = new CreditCardPaymentStrategy(card);
+            AtomicInteger paid = new AtomicInteger();
+            AtomicInteger declined = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 100; i++) {
+                        try {
+                            if (strategy.pay(1.5)) {
+                                paid.incrementAndGet();
+                            }
+                        } catch (IllegalStateException e) {
+                            declined.incrementAndGet();
+                        }
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(800, paid.get() + declined.get());
+            assertEquals(666, paid.get());
+            assertEquals(1, card.getAmount());
+            assertEquals(99_900, card.getLedger().getCaptured());
+            assertEquals(0, card.getLedger().getHeld());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package flight.reservation;
+
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.observer.CoalescingNotificationDispatcher;
+import flight.reservation.plane.PassengerPlane;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Coalescing Notification Dispatcher Tests")
+public class CoalescingNotificationDispatcherTest {
+
+    private ScheduledFlight flight;
+    private CoalescingNotificationDispatcher dispatcher;
+    private final List<String> received = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void initFlight() {
+        Airport berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        Airport frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        flight = new ScheduledFlight(101, berlin, frankfurt, new PassengerPlane("A380"), new Date(), 100);
+        flight.registerObserver((scheduledFlight, message) -> received.add(message));
+    }
+
+    @AfterEach
+    public void closeDispatcher() {
+        dispatcher.close();
+    }
+
+    @Nested
+    @DisplayName("Given a window that is longer than the test")
+    class GivenALongWindow {
+
+        @BeforeEach
+        void initDispatcher() {
+            dispatcher = new CoalescingNotificationDispatcher(1, TimeUnit.HOURS);
+            flight.setNotificationDispatcher(dispatcher);
+        }
+
+        @Test
+        @DisplayName("then repeated price changes should be delivered as one change when the window ends")
+        void thenRepeatedPriceChangesShouldBeMerged() {
+            flight.setCurrentPrice(110);
+            flight.setCurrentPrice(120);
+            flight.setCurrentPrice(130);
+            flight.addPassengers(Arrays.asList(new Passenger("Max")));
+            assertTrue(received.isEmpty());
+            assertEquals(2, dispatcher.getPendingCount());
+
+            dispatcher.close();
+            assertEquals(2, received.size());
+            assertTrue(received.contains("Flight 101 price changed from 100.0 to 130.0"));
+            assertTrue(received.contains("New passengers added to flight 101"));
+            assertEquals(2, dispatcher.getCoalescedCount());
+        }
+
+        @Test
+        @DisplayName("then a cancellation should be delivered immediately, after the pending changes")
+        void thenACancellationShouldBeDeliveredImmediately() {
+            flight.setCurrentPrice(110);
+            flight.cancelFlight();
+            assertEquals(Arrays.asList("Flight 101 price changed from 100.0 to 110.0", "Flight 101 has been cancelled"), received);
+            assertEquals(0, dispatcher.getPendingCount());
+        }
+
+        @Test
+        @DisplayName("then added and removed passengers should be delivered in the order they changed")
+        void thenPassengerChangesShouldKeepTheirOrder() {
+            Passenger max = new Passenger("Max");
+            flight.addPassengers(Arrays.asList(max));
+            flight.removePassengers(Arrays.asList(max));
+            flight.addPassengers(Arrays.asList(new Passenger("Amanda")));
+            assertEquals(Arrays.asList("New passengers added to flight 101", "Passengers removed from flight 101"), received);
+            assertEquals(1, dispatcher.getPendingCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a short window")
+    class GivenAShortWindow {
+
+        @BeforeEach
+        void initDispatcher() {
+            dispatcher = new CoalescingNotificationDispatcher(20, TimeUnit.MILLISECONDS);
+            flight.setNotificationDispatcher(dispatcher);
+        }
+
+        @Test
+        @DisplayName("then the merged change should be delivered without closing the dispatcher")
+        void thenTheMergedChangeShouldBeDeliveredAfterTheWindow() throws InterruptedException {
+            flight.setCurrentPrice(110);
+            flight.setCurrentPrice(120);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (received.isEmpty()) {
+                assertTrue(System.nanoTime() < deadline, "notification not delivered in time");
+                Thread.sleep(5);
+            }
+            assertEquals(Arrays.asList("Flight 101 price changed from 100.0 to 120.0"), received);
+            assertEquals(1, dispatcher.getDeliveredCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a dispatcher closed while flights change")
+    class GivenAConcurrentClose {
+
+        @BeforeEach
+        void initDispatcher() {
+            dispatcher = new CoalescingNotificationDispatcher(1, TimeUnit.HOURS);
+            flight.setNotificationDispatcher(dispatcher);
+        }
+
+        @Test
+        @DisplayName("then every change should be delivered, before or after closing")
+        void thenNoChangeShouldBeLost() throws InterruptedException {
+            List<Throwable> failures = new CopyOnWriteArrayList<>();
+            Thread booking = new Thread(() -> {
+                try {
+                    for (int i = 1; i <= 10_000; i++) {
+                        flight.setCurrentPrice(100 + i);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            booking.start();
+            Thread.sleep(1);
+            dispatcher.close();
+            booking.join();
+
+            assertTrue(failures.isEmpty(), failures.toString());
+            assertEquals(0, dispatcher.getPendingCount());
+            assertTrue(received.get(received.size() - 1).endsWith("to 10100.0"), received.get(received.size() - 1));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package flight.reservation;
+
+import flight.reservation.flight.ConcurrentSchedule;
+import flight.reservation.flight.Flight;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.plane.Helicopter;
+import flight.reservation.plane.PassengerDrone;
+import flight.reservation.plane.PassengerPlane;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Concurrent Schedule Tests")
+public class ConcurrentScheduleTest {
+
+    private static final int THREADS = 16;
+    private static final int ORDERS = 2000;
+
+    private ConcurrentSchedule schedule;
+    private List<Flight> flights;
+
+    @BeforeEach
+    public void initSchedule() {
+        schedule = new ConcurrentSchedule();
+        Airport berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        Airport frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        Airport madrid = new Airport("Madrid Barajas Airport", "MAD", "Barajas, Madrid");
+        flights = Arrays.asList(
+                new Flight(1, berlin, frankfurt, new PassengerPlane("Embraer 190")),
+                new Flight(2, frankfurt, madrid, new PassengerPlane("Antonov AN2")),
+                new Flight(3, madrid, berlin, new Helicopter("H1")),
+                new Flight(4, berlin, madrid, new PassengerDrone("HypaHype"))
+        );
+        Date departure = TestUtil.addDays(Date.from(Instant.now()), 3);
+        for (Flight flight : flights) {
+            schedule.scheduleFlight(flight, departure);
+        }
+    }
+
+    @Nested
+    @DisplayName("Given many customers booking concurrently on the same schedule")
+    class GivenConcurrentBookings {
+
+        @Test
+        @DisplayName("then no flight should be overbooked and every accepted passenger should be on board")
+        void thenNoFlightShouldBeOverbooked() throws Exception {
+            AtomicInteger bookedPassengers = new AtomicInteger();
+            AtomicInteger rejectedOrders = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < ORDERS; i++) {
+                int orderNumber = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int partySize = 1 + orderNumber % 3;
+                    List<String> names = new ArrayList<>();
+                    for (int p = 0; p < partySize; p++) {
+                        names.add("Passenger " + orderNumber + "-" + p);
+                    }
+                    ScheduledFlight scheduledFlight = schedule.searchScheduledFlight(flights.get(orderNumber % flights.size()).getNumber());
+                    Customer customer = new Customer("Customer " + orderNumber, "customer" + orderNumber + "@example.com");
+                    try {
+                        customer.createOrder(names, Collections.singletonList(scheduledFlight), 100 * partySize);
+                        bookedPassengers.addAndGet(partySize);
+                    } catch (IllegalStateException e) {
+                        rejectedOrders.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            // readers and writers on unrelated flights must not disturb the bookings
+            futures.add(executor.submit(() -> {
+                start.await();
+                Airport istanbul = new Airport("Istanbul Airport", "IST", "Arnavutköy, Istanbul");
+                Airport dubai = new Airport("Dubai International Airport", "DXB", "Garhoud, Dubai");
+                for (int i = 0; i < 200; i++) {
+                    Flight extra = new Flight(100 + i, istanbul, dubai, new PassengerPlane("A350"));
+                    schedule.scheduleFlight(extra, new Date());
+                    assertNotNull(schedule.searchScheduledFlight(flights.get(i % flights.size()).getNumber()));
+                    schedule.removeFlight(extra);
+                }
+                return null;
+            }));
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+
+            int onBoard = 0;
+            for (Flight flight : flights) {
+                ScheduledFlight scheduledFlight = schedule.searchScheduledFlight(flight.getNumber());
+                assertTrue(scheduledFlight.getPassengers().size() <= scheduledFlight.getCapacity(),
+                        "flight " + flight.getNumber() + " is overbooked");
+                assertTrue(scheduledFlight.getAvailableCapacity() < 3, "flight " + flight.getNumber() + " should be (nearly) full");
+                onBoard += scheduledFlight.getPassengers().size();
+            }
+            assertEquals(bookedPassengers.get(), onBoard);
+            assertTrue(rejectedOrders.get() > 0);
+            assertEquals(flights.size(), schedule.getScheduledFlights().size());
+        }
+    }
+}
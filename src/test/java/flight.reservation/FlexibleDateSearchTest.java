@@ -0,0 +1,123 @@
+package flight.reservation;
+
+import flight.reservation.flight.Schedule;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.journey.Journey;
+import flight.reservation.plane.PassengerPlane;
+import flight.reservation.search.FareCalendar;
+import flight.reservation.search.FlexibleDateSearch;
+import flight.reservation.search.ItinerarySearch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Flexible Date Search Tests")
+public class FlexibleDateSearchTest {
+
+    private Schedule schedule;
+    private ItinerarySearch search;
+    private LocalDate firstDay;
+    private Airport berlin;
+    private Airport frankfurt;
+    private Airport newYork;
+
+    @BeforeEach
+    public void initSchedule() {
+        schedule = new Schedule();
+        search = new ItinerarySearch(schedule);
+        firstDay = LocalDate.now(ZoneOffset.UTC).plusDays(10);
+        berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        newYork = new Airport("John F. Kennedy International Airport", "JFK", "Queens, New York, New York");
+    }
+
+    private void schedule(int number, Airport from, Airport to, int day, int minuteOfDay, double price) {
+        long departure = firstDay.plusDays(day).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli()
+                + TimeUnit.MINUTES.toMillis(minuteOfDay);
+        schedule.scheduleFlights(Collections.singletonList(
+                new ScheduledFlight(number, from, to, new PassengerPlane("A380"), new Date(departure), price)));
+    }
+
+    private static List<Integer> flightNumbers(Journey journey) {
+        return journey.getFlights().stream().map(ScheduledFlight::getNumber).collect(Collectors.toList());
+    }
+
+    @Nested
+    @DisplayName("Given flights on several days")
+    class GivenFlightsOnSeveralDays {
+
+        @BeforeEach
+        void scheduleFlights() {
+            schedule(1, berlin, newYork, 0, 8 * 60, 500);
+            schedule(2, berlin, frankfurt, 0, 9 * 60, 200);
+            schedule(3, frankfurt, newYork, 0, 12 * 60, 100);
+            schedule(4, berlin, newYork, 1, 8 * 60, 250);
+            // overnight connection, leaving on day 3
+            schedule(5, berlin, frankfurt, 3, 23 * 60 + 30, 50);
+            schedule(6, frankfurt, newYork, 4, 3 * 60, 150);
+            schedule(7, berlin, newYork, 4, 10 * 60, 400);
+        }
+
+        private void assertCalendar(FareCalendar calendar) {
+            assertEquals(List.of(2, 3), flightNumbers(calendar.getCheapestJourney(firstDay)));
+            assertEquals(300, calendar.getLowestFare(firstDay));
+            assertEquals(250, calendar.getLowestFare(firstDay.plusDays(1)));
+            assertNull(calendar.getCheapestJourney(firstDay.plusDays(2)));
+            assertTrue(Double.isNaN(calendar.getLowestFare(firstDay.plusDays(2))));
+            assertEquals(List.of(5, 6), flightNumbers(calendar.getCheapestJourney(firstDay.plusDays(3))));
+            assertEquals(200, calendar.getLowestFare(firstDay.plusDays(3)));
+            assertEquals(400, calendar.getLowestFare(firstDay.plusDays(4)));
+            assertEquals(firstDay.plusDays(3), calendar.getCheapestDay());
+            assertEquals(4, calendar.asMap().size());
+        }
+
+        @Test
+        @DisplayName("then the cheapest journey of each day should be found")
+        void thenTheCheapestJourneyOfEachDayShouldBeFound() {
+            FlexibleDateSearch flexible = new FlexibleDateSearch(search, ForkJoinPool.commonPool(), ZoneOffset.UTC);
+
+            assertCalendar(flexible.findLowestFares(berlin, newYork, firstDay, firstDay.plusDays(30)));
+        }
+
+        @Test
+        @DisplayName("then the result should not depend on the parallelism or the slicing")
+        void thenTheResultShouldNotDependOnTheParallelism() {
+            ForkJoinPool single = new ForkJoinPool(1);
+            ForkJoinPool many = new ForkJoinPool(4);
+            try {
+                FlexibleDateSearch sequential = new FlexibleDateSearch(search, single, ZoneOffset.UTC);
+                sequential.setSlicesPerDay(1);
+                assertCalendar(sequential.findLowestFares(berlin, newYork, firstDay, firstDay.plusDays(4)));
+
+                FlexibleDateSearch parallel = new FlexibleDateSearch(search, many, ZoneOffset.UTC);
+                parallel.setSlicesPerDay(7);
+                assertCalendar(parallel.findLowestFares(berlin, newYork, firstDay, firstDay.plusDays(4)));
+            } finally {
+                single.shutdown();
+                many.shutdown();
+            }
+        }
+
+        @Test
+        @DisplayName("then a date range ending before it starts should be rejected")
+        void thenAnInvertedDateRangeShouldBeRejected() {
+            FlexibleDateSearch flexible = new FlexibleDateSearch(search);
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> flexible.findLowestFares(berlin, newYork, firstDay, firstDay.minusDays(1)));
+            assertTrue(flexible.findLowestFares(newYork, berlin, firstDay, firstDay.plusDays(4)).isEmpty());
+        }
+    }
+}
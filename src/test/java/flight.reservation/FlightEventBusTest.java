@@ -0,0 +1,262 @@
+package flight.reservation;
+
+import flight.reservation.flight.Route;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.observer.FlightEvent;
+import flight.reservation.observer.FlightEventBus;
+import flight.reservation.observer.FlightEventHandler;
+import flight.reservation.observer.FlightEventType;
+import flight.reservation.observer.FlightNotification;
+import flight.reservation.observer.FlightObserver;
+import flight.reservation.plane.PassengerPlane;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Flight Event Bus Tests")
+public class FlightEventBusTest {
+
+    private FlightEventBus bus;
+    private ScheduledFlight berlinFrankfurt;
+    private ScheduledFlight frankfurtMadrid;
+
+    @BeforeEach
+    public void initBus() {
+        bus = new FlightEventBus(64);
+        Airport berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        Airport frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        Airport madrid = new Airport("Madrid Barajas Airport", "MAD", "Barajas, Madrid");
+        berlinFrankfurt = new ScheduledFlight(1, berlin, frankfurt, new PassengerPlane("A380"), new Date(), 100);
+        frankfurtMadrid = new ScheduledFlight(2, frankfurt, madrid, new PassengerPlane("A350"), new Date(), 100);
+    }
+
+    @AfterEach
+    public void closeBus() {
+        bus.close();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Given subscriptions by flight number, route and for all flights")
+    class GivenKeyedSubscriptions {
+
+        private final AtomicInteger byNumber = new AtomicInteger();
+        private final AtomicInteger byRoute = new AtomicInteger();
+        private final AtomicInteger all = new AtomicInteger();
+
+        @BeforeEach
+        void subscribe() {
+            bus.subscribe(1, (event, sequence) -> byNumber.incrementAndGet());
+            bus.subscribe(new Route("FRA", "MAD"), (event, sequence) -> byRoute.incrementAndGet());
+            bus.subscribeAll((event, sequence) -> all.incrementAndGet());
+        }
+
+        @Test
+        @DisplayName("then every subscriber should get the events of its key, also when the ring buffer wraps")
+        void thenSubscribersShouldGetTheEventsOfTheirKey() throws InterruptedException {
+            for (int i = 0; i < 1000; i++) {
+                bus.publish(i % 2 == 0 ? berlinFrankfurt : frankfurtMadrid, FlightEventType.PRICE_CHANGED, i, i + 1);
+            }
+            await(() -> all.get() == 1000);
+            assertEquals(500, byNumber.get());
+            assertEquals(500, byRoute.get());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given an additional consumer")
+    class GivenAnAdditionalConsumer {
+
+        @Test
+        @DisplayName("then it should read every event in sequence order and see the end of each batch")
+        void thenItShouldReadEveryEventInOrder() throws InterruptedException {
+            AtomicLong lastSequence = new AtomicLong(-1);
+            AtomicInteger outOfOrder = new AtomicInteger();
+            AtomicInteger batches = new AtomicInteger();
+            bus.addConsumer(new FlightEventHandler() {
+                @Override
+                public void onEvent(FlightEvent event, long sequence) {
+                    if (sequence != lastSequence.get() + 1 || event.getNewValue() != sequence) {
+                        outOfOrder.incrementAndGet();
+                    }
+                    lastSequence.set(sequence);
+                }
+
+                @Override
+                public void onEndOfBatch() {
+                    batches.incrementAndGet();
+                }
+            });
+            for (int i = 0; i < 5000; i++) {
+                bus.publish(berlinFrankfurt, FlightEventType.PASSENGERS_ADDED, i - 1, i);
+            }
+            await(() -> lastSequence.get() == 4999);
+            assertEquals(0, outOfOrder.get());
+            assertTrue(batches.get() > 0);
+        }
+
+        @Test
+        @DisplayName("then it should be woken by the next event after sleeping while idle")
+        void thenItShouldBeWokenAfterSleeping() throws InterruptedException {
+            AtomicInteger received = new AtomicInteger();
+            bus.addConsumer((event, sequence) -> received.incrementAndGet());
+            for (int i = 1; i <= 3; i++) {
+                // long enough for the consumer to give up polling
+                Thread.sleep(50);
+                bus.publish(berlinFrankfurt, FlightEventType.PRICE_CHANGED, 100, 100 + i);
+                int expected = i;
+                await(() -> received.get() == expected);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a bus with a maximum publish wait and a stalled consumer")
+    class GivenAStalledConsumer {
+
+        private final List<RuntimeException> errors = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<Long> sequences = new CopyOnWriteArrayList<>();
+
+        @BeforeEach
+        void initBus() {
+            bus.close();
+            bus = new FlightEventBus(2, Duration.ofMillis(20), errors::add);
+            bus.addConsumer((event, sequence) -> {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                sequences.add(sequence);
+            });
+        }
+
+        @Test
+        @DisplayName("then events beyond the buffer should be dropped without leaving a gap")
+        void thenEventsShouldBeDroppedWithoutAGap() throws InterruptedException {
+            assertEquals(0, bus.publish(berlinFrankfurt, FlightEventType.PRICE_CHANGED, 100, 110));
+            assertEquals(1, bus.publish(berlinFrankfurt, FlightEventType.PRICE_CHANGED, 110, 120));
+            assertEquals(-1, bus.publish(berlinFrankfurt, FlightEventType.PRICE_CHANGED, 120, 130));
+            assertEquals(1, bus.getDroppedCount());
+
+            release.countDown();
+            await(() -> sequences.size() == 2);
+            assertEquals(2, bus.publish(berlinFrankfurt, FlightEventType.PRICE_CHANGED, 120, 140));
+            await(() -> sequences.size() == 3);
+            assertEquals(List.of(0L, 1L, 2L), sequences);
+        }
+
+        @Test
+        @DisplayName("then a failing handler should be reported to the error handler")
+        void thenAFailingHandlerShouldBeReported() throws InterruptedException {
+            release.countDown();
+            IllegalStateException failure = new IllegalStateException("handler failed");
+            bus.subscribeAll((event, sequence) -> {
+                throw failure;
+            });
+            bus.publish(berlinFrankfurt, FlightEventType.PRICE_CHANGED, 100, 110);
+            await(() -> errors.size() == 1);
+            assertSame(failure, errors.get(0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a scheduled flight that publishes to the bus")
+    class GivenAFlightPublishingToTheBus {
+
+        @Test
+        @DisplayName("then customers should be notified once, however often they registered")
+        void thenCustomersShouldBeNotifiedOnce() throws InterruptedException {
+            Customer customer = new Customer("Alice", "alice@example.com");
+            berlinFrankfurt.registerObserver(customer);
+            berlinFrankfurt.setEventBus(bus);
+            berlinFrankfurt.registerObserver(customer);
+            frankfurtMadrid.setEventBus(bus);
+
+            berlinFrankfurt.setCurrentPrice(120);
+            frankfurtMadrid.setCurrentPrice(130);
+            berlinFrankfurt.cancelFlight();
+
+            List<String> notifications = customer.getNotifications();
+            await(() -> notifications.size() == 2);
+            Thread.sleep(20);
+            assertEquals(2, notifications.size());
+            assertTrue(notifications.get(0).endsWith("Flight 1 price changed from 100.0 to 120.0"));
+            assertTrue(notifications.get(1).endsWith("Flight 1 has been cancelled"));
+        }
+
+        @Test
+        @DisplayName("then a missing or second bus should be rejected")
+        void thenAMissingOrSecondBusShouldBeRejected() {
+            assertThrows(NullPointerException.class, () -> berlinFrankfurt.setEventBus(null));
+            berlinFrankfurt.setEventBus(bus);
+            try (FlightEventBus other = new FlightEventBus(2)) {
+                assertThrows(IllegalStateException.class, () -> berlinFrankfurt.setEventBus(other));
+            }
+        }
+
+        @Test
+        @DisplayName("then removed observers should not be notified anymore")
+        void thenRemovedObserversShouldNotBeNotified() throws InterruptedException {
+            List<String> received = new CopyOnWriteArrayList<>();
+            berlinFrankfurt.setEventBus(bus);
+            berlinFrankfurt.registerObserver((flight, message) -> received.add(message));
+            Customer customer = new Customer("Bob", "bob@example.com");
+            berlinFrankfurt.registerObserver(customer);
+            berlinFrankfurt.removeObserver(customer);
+
+            berlinFrankfurt.setCurrentPrice(150);
+            await(() -> received.size() == 1);
+            assertTrue(customer.getNotifications().isEmpty());
+        }
+
+        @Test
+        @DisplayName("then observers should get the reused notification of the slot")
+        void thenObserversShouldGetTheReusedNotification() throws InterruptedException {
+            List<FlightNotification> received = new CopyOnWriteArrayList<>();
+            List<FlightNotification> copies = new CopyOnWriteArrayList<>();
+            berlinFrankfurt.setEventBus(bus);
+            berlinFrankfurt.registerObserver(new FlightObserver() {
+                @Override
+                public void update(ScheduledFlight flight, String message) {
+                }
+
+                @Override
+                public void update(FlightNotification notification) {
+                    received.add(notification);
+                    copies.add(notification.copy());
+                }
+            });
+            // one more event than the bus has slots
+            for (int i = 1; i <= 65; i++) {
+                berlinFrankfurt.setCurrentPrice(100 + i);
+            }
+            await(() -> received.size() == 65);
+            assertSame(received.get(0), received.get(64));
+            assertEquals(101, copies.get(0).getNewValue());
+            assertEquals(165, copies.get(64).getNewValue());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package flight.reservation;
+
+import flight.reservation.flight.Schedule;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.journey.Journey;
+import flight.reservation.plane.PassengerPlane;
+import flight.reservation.search.ItinerarySearch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Itinerary Search Tests")
+public class ItinerarySearchTest {
+
+    private Schedule schedule;
+    private ItinerarySearch search;
+    private Date day;
+    private Airport berlin;
+    private Airport frankfurt;
+    private Airport madrid;
+    private Airport newYork;
+
+    @BeforeEach
+    public void initSchedule() {
+        schedule = new Schedule();
+        search = new ItinerarySearch(schedule);
+        day = TestUtil.addDays(new Date(), 7);
+        berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        madrid = new Airport("Adolfo Suárez Madrid–Barajas Airport", "MAD", "Madrid, Spain");
+        newYork = new Airport("John F. Kennedy International Airport", "JFK", "Queens, New York, New York");
+    }
+
+    private Date at(int minutes) {
+        return new Date(day.getTime() + TimeUnit.MINUTES.toMillis(minutes));
+    }
+
+    private ScheduledFlight schedule(int number, Airport from, Airport to, int departureMinute) {
+        return schedule(number, from, to, departureMinute, 100);
+    }
+
+    private ScheduledFlight schedule(int number, Airport from, Airport to, int departureMinute, double price) {
+        ScheduledFlight flight = new ScheduledFlight(number, from, to, new PassengerPlane("A380"), at(departureMinute), price);
+        schedule.scheduleFlights(Collections.singletonList(flight));
+        return flight;
+    }
+
+    private static List<Integer> flightNumbers(Journey journey) {
+        return journey.getFlights().stream().map(ScheduledFlight::getNumber).collect(Collectors.toList());
+    }
+
+    @Nested
+    @DisplayName("Given a direct flight and a faster connection")
+    class GivenADirectFlightAndAConnection {
+
+        @BeforeEach
+        void scheduleFlights() {
+            schedule(1, berlin, newYork, 600);
+            schedule(2, berlin, frankfurt, 60);
+            schedule(3, frankfurt, newYork, 180);
+            // departs 12.5 minutes after the first leg arrives
+            schedule(4, frankfurt, newYork, 110);
+        }
+
+        @Test
+        @DisplayName("then the connection should be found")
+        void thenTheConnectionShouldBeFound() {
+            Journey journey = search.findEarliestArrival(berlin, newYork, at(0));
+
+            assertEquals(List.of(2, 3), flightNumbers(journey));
+            assertEquals(List.of(frankfurt), journey.getStops());
+            assertEquals(at(60), journey.getDepartureTime());
+        }
+
+        @Test
+        @DisplayName("then only the direct flight should remain after the first leg departed")
+        void thenOnlyTheDirectFlightShouldRemain() {
+            assertEquals(List.of(1), flightNumbers(search.findEarliestArrival(berlin, newYork, at(61))));
+            assertNull(search.findEarliestArrival(berlin, newYork, at(601)));
+        }
+
+        @Test
+        @DisplayName("then the connection should need the minimum connection time at the transfer airport")
+        void thenTheConnectionShouldNeedTheMinimumConnectionTime() {
+            search.setMinimumConnectionTime(frankfurt, Duration.ofHours(2));
+            assertEquals(List.of(1), flightNumbers(search.findEarliestArrival(berlin, newYork, at(0))));
+
+            search.setMinimumConnectionTime(frankfurt, Duration.ofMinutes(5));
+            assertEquals(List.of(2, 4), flightNumbers(search.findEarliestArrival(berlin, newYork, at(0))));
+
+            assertThrows(IllegalArgumentException.class, () -> search.setMinimumConnectionTime(frankfurt, Duration.ZERO));
+        }
+
+        @Test
+        @DisplayName("then flights added later should be found")
+        void thenFlightsAddedLaterShouldBeFound() {
+            search.findEarliestArrival(berlin, newYork, at(0));
+            schedule(5, berlin, newYork, 30);
+
+            assertEquals(List.of(5), flightNumbers(search.findEarliestArrival(berlin, newYork, at(0))));
+        }
+
+        @Test
+        @DisplayName("then a connection between two instances of the same airport should be built")
+        void thenAConnectionBetweenAirportInstancesShouldBeBuilt() {
+            Airport frankfurtAgain = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+            schedule(5, berlin, frankfurt, 0);
+            schedule(6, frankfurtAgain, newYork, 100);
+
+            Journey journey = search.findEarliestArrival(berlin, newYork, at(0));
+
+            assertEquals(List.of(5, 6), flightNumbers(journey));
+            assertEquals(newYork, journey.getArrival());
+        }
+
+        @Test
+        @DisplayName("then a full leg should be avoided for a party that does not fit")
+        void thenAFullLegShouldBeAvoided() {
+            ScheduledFlight secondLeg = schedule.searchScheduledFlight(3);
+            secondLeg.reserveSeats(498);
+
+            assertEquals(List.of(2, 3), flightNumbers(search.findEarliestArrival(berlin, newYork, at(0), 2)));
+            assertEquals(List.of(1), flightNumbers(search.findEarliestArrival(berlin, newYork, at(0), 3)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a fast, a cheap and a direct option and one in between")
+    class GivenAFastACheapAndADirectOption {
+
+        @BeforeEach
+        void scheduleFlights() {
+            schedule(1, berlin, newYork, 600, 900);
+            schedule(2, berlin, frankfurt, 60, 200);
+            schedule(3, frankfurt, newYork, 180, 300);
+            schedule(4, berlin, frankfurt, 90, 250);
+            schedule(10, berlin, madrid, 60, 50);
+            schedule(11, madrid, frankfurt, 180, 50);
+            schedule(12, frankfurt, newYork, 400, 100);
+        }
+
+        private List<List<Integer>> paretoOptimal(int maxTransfers) {
+            return search.findParetoOptimal(berlin, newYork, at(0), maxTransfers).stream()
+                    .map(ItinerarySearchTest::flightNumbers).collect(Collectors.toList());
+        }
+
+        @Test
+        @DisplayName("then all four should be found, ordered by arrival")
+        void thenAllFourShouldBeFound() {
+            List<Journey> journeys = search.findParetoOptimal(berlin, newYork, at(0));
+
+            // 2, 12 arrives with 10, 11, 12 and costs more, but has one leg less
+            assertEquals(List.of(List.of(2, 3), List.of(10, 11, 12), List.of(2, 12), List.of(1)),
+                    journeys.stream().map(ItinerarySearchTest::flightNumbers).collect(Collectors.toList()));
+            assertEquals(500, journeys.get(0).getPrice());
+            assertEquals(200, journeys.get(1).getPrice());
+            assertEquals(List.of(madrid, frankfurt), journeys.get(1).getStops());
+        }
+
+        @Test
+        @DisplayName("then journeys with too many transfers should be left out")
+        void thenJourneysWithTooManyTransfersShouldBeLeftOut() {
+            assertEquals(List.of(List.of(2, 3), List.of(2, 12), List.of(1)), paretoOptimal(1));
+            assertEquals(List.of(List.of(1)), paretoOptimal(0));
+
+            search.setMaxTransfers(0);
+            assertEquals(1, search.findParetoOptimal(berlin, newYork, at(0)).size());
+            assertThrows(IllegalArgumentException.class, () -> search.setMaxTransfers(-1));
+        }
+
+        @Test
+        @DisplayName("then a journey beaten in every respect after a price change should be dropped")
+        void thenABeatenJourneyShouldBeDropped() {
+            schedule.searchScheduledFlight(12).setCurrentPrice(1000);
+
+            assertEquals(List.of(List.of(2, 3), List.of(1)), paretoOptimal(2));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given airports without a connection")
+    class GivenAirportsWithoutAConnection {
+
+        @Test
+        @DisplayName("then no journey should be found")
+        void thenNoJourneyShouldBeFound() {
+            schedule(1, berlin, frankfurt, 60);
+            schedule(2, madrid, newYork, 180);
+
+            assertNull(search.findEarliestArrival(berlin, newYork, at(0)));
+            assertNull(search.findEarliestArrival(newYork, berlin, at(0)));
+            assertNull(search.findEarliestArrival(berlin, berlin, at(0)));
+            assertTrue(search.findParetoOptimal(berlin, newYork, at(0)).isEmpty());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package flight.reservation;
+
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.order.FlightOrder;
+import flight.reservation.plane.PassengerPlane;
+import flight.reservation.screening.NoFlyScreeningService;
+import flight.reservation.screening.ScreeningResult;
+import flight.reservation.screening.WatchList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("No-Fly Screening Tests")
+public class NoFlyScreeningTest {
+
+    private NoFlyScreeningService defaultService;
+
+    @BeforeEach
+    public void rememberDefaultService() {
+        defaultService = FlightOrder.getScreeningService();
+    }
+
+    @AfterEach
+    public void restoreDefaultService() {
+        FlightOrder.setScreeningService(defaultService);
+    }
+
+    @Nested
+    @DisplayName("Given a large watch list with a Bloom filter")
+    class GivenALargeWatchList {
+
+        private WatchList watchList;
+
+        @BeforeEach
+        void initWatchList() {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < 100_000; i++) {
+                names.add("Listed Person " + i);
+            }
+            names.add("José  Álvarez");
+            watchList = WatchList.of(names, true);
+        }
+
+        @Test
+        @DisplayName("then listed names should be found regardless of case, accents and spacing")
+        void thenListedNamesShouldBeFound() {
+            assertTrue(watchList.hasBloomFilter());
+            assertTrue(watchList.contains("listed person 4711"));
+            assertTrue(watchList.contains(" Jose alvarez "));
+            assertFalse(watchList.contains("Listed Person 100000"));
+        }
+
+        @Test
+        @DisplayName("then unlisted names should not be reported")
+        void thenUnlistedNamesShouldNotBeReported() {
+            for (int i = 0; i < 10_000; i++) {
+                assertFalse(watchList.contains("Traveller " + i));
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a watch list with fuzzy matching")
+    class GivenFuzzyMatching {
+
+        private WatchList watchList;
+
+        @BeforeEach
+        void initWatchList() {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                names.add("Listed Person " + i);
+            }
+            names.add("Mohammed Al Rashid");
+            watchList = WatchList.of(names, true).withFuzzyMatching(0.85, Duration.ofSeconds(1));
+        }
+
+        @Test
+        @DisplayName("then transliterations and typos of listed names should match")
+        void thenSimilarNamesShouldMatch() {
+            assertEquals(ScreeningResult.MATCH, watchList.screen(Arrays.asList("Anna Smith", "Muhammad Al Rashid")));
+            assertEquals(ScreeningResult.MATCH, watchList.screen(Arrays.asList("Listed Persn 4711")));
+            assertFalse(watchList.contains("Muhammad Al Rashid"));
+        }
+
+        @Test
+        @DisplayName("then dissimilar names should be cleared")
+        void thenDissimilarNamesShouldBeCleared() {
+            assertEquals(ScreeningResult.CLEARED, watchList.screen(Arrays.asList("Anna Smith", "Max Mustermann", "Al")));
+        }
+
+        @Test
+        @DisplayName("then screening should fail closed when the budget is exceeded")
+        void thenScreeningShouldFailClosed() {
+            WatchList noBudget = watchList.withFuzzyMatching(0.85, Duration.ZERO);
+            assertEquals(ScreeningResult.BUDGET_EXCEEDED, noBudget.screen(Arrays.asList("Anna Smith")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a screening service loaded from a file")
+    class GivenAServiceLoadedFromAFile {
+
+        private Path file;
+        private Customer customer;
+        private ScheduledFlight flight;
+
+        @BeforeEach
+        void initService() throws IOException {
+            file = Files.createTempFile("no-fly", ".txt");
+            Files.write(file, Arrays.asList("# watch list", "Peter", ""), StandardCharsets.UTF_8);
+            FlightOrder.setScreeningService(NoFlyScreeningService.fromFile(file, true));
+            customer = new Customer("Max Mustermann", "max@example.com");
+            Airport berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+            Airport frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+            flight = new ScheduledFlight(101, berlin, frankfurt, new PassengerPlane("A380"), new Date(), 100);
+        }
+
+        @AfterEach
+        void deleteFile() throws IOException {
+            Files.deleteIfExists(file);
+        }
+
+        @Test
+        @DisplayName("then orders should be screened against the reloaded list")
+        void thenOrdersShouldBeScreenedAgainstTheReloadedList() throws IOException {
+            FlightOrder order = customer.createOrder(Arrays.asList("Amanda"), Arrays.asList(flight), 100);
+            assertTrue(order.passesScreening());
+            assertThrows(IllegalStateException.class,
+                    () -> customer.createOrder(Arrays.asList("peter"), Arrays.asList(flight), 100));
+
+            Files.write(file, Collections.singletonList("Amanda"), StandardCharsets.UTF_8);
+            FlightOrder.getScreeningService().reload(file);
+
+            assertFalse(order.passesScreening());
+            assertNotNull(customer.createOrder(Arrays.asList("Peter"), Arrays.asList(flight), 100));
+        }
+
+        @Test
+        @SuppressWarnings("deprecation")
+        @DisplayName("then the deprecated no-fly list should show the current list")
+        void thenTheDeprecatedNoFlyListShouldShowTheCurrentList() throws IOException {
+            assertEquals(Collections.singletonList("peter"), FlightOrder.getNoFlyList());
+            assertTrue(FlightOrder.getNoFlyList().contains("Peter"));
+
+            Files.write(file, Collections.singletonList("Amanda"), StandardCharsets.UTF_8);
+            FlightOrder.getScreeningService().reload(file);
+
+            assertFalse(FlightOrder.getNoFlyList().contains("Peter"));
+            assertTrue(FlightOrder.getNoFlyList().contains("Amanda"));
+            assertThrows(UnsupportedOperationException.class, () -> FlightOrder.getNoFlyList().add("Max"));
+        }
+
+        @Test
+        @DisplayName("then a failed reload should keep the current list")
+        void thenAFailedReloadShouldKeepTheCurrentList() throws IOException {
+            Files.delete(file);
+            assertThrows(IOException.class, () -> FlightOrder.getScreeningService().reload(file));
+            assertTrue(FlightOrder.getScreeningService().isListed("Peter"));
+        }
+    }
+}
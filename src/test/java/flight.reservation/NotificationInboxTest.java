@@ -0,0 +1,111 @@
+package flight.reservation;
+
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.observer.FlightEventType;
+import flight.reservation.observer.NotificationInbox;
+import flight.reservation.observer.NotificationRecord;
+import flight.reservation.plane.PassengerPlane;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Notification Inbox Tests")
+public class NotificationInboxTest {
+
+    private ScheduledFlight flight;
+
+    @BeforeEach
+    public void initFlight() {
+        Airport berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        Airport frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        flight = new ScheduledFlight(101, berlin, frankfurt, new PassengerPlane("A380"), new Date(), 100);
+    }
+
+    @Nested
+    @DisplayName("Given a customer with a small inbox")
+    class GivenACustomerWithASmallInbox {
+
+        private Customer customer;
+
+        @BeforeEach
+        void initCustomer() {
+            customer = new Customer("Alice", "alice@example.com", new NotificationInbox(3));
+            flight.registerObserver(customer);
+        }
+
+        @Test
+        @DisplayName("then the changes should be stored as records and formatted when read")
+        void thenChangesShouldBeStoredAsRecords() {
+            flight.setCurrentPrice(120);
+            NotificationRecord record = customer.getInbox().get(0);
+            assertEquals(101, record.getFlightNumber());
+            assertEquals(FlightEventType.PRICE_CHANGED, record.getType());
+            assertEquals(100.0, record.getOldValue());
+            assertEquals(120.0, record.getNewValue());
+            assertEquals("Notification for flight 101 from BER to FRA: Flight 101 price changed from 100.0 to 120.0",
+                    customer.getNotifications().get(0));
+        }
+
+        @Test
+        @DisplayName("then the oldest notifications should be evicted and pages read in arrival order")
+        void thenTheOldestNotificationsShouldBeEvicted() {
+            for (int price = 110; price <= 150; price += 10) {
+                flight.setCurrentPrice(price);
+            }
+            assertEquals(3, customer.getNotifications().size());
+            assertEquals(2, customer.getInbox().getEvictedCount());
+            List<String> page = customer.getNotifications(1, 5);
+            assertEquals(2, page.size());
+            assertTrue(page.get(0).endsWith("price changed from 130.0 to 140.0"));
+            assertTrue(page.get(1).endsWith("price changed from 140.0 to 150.0"));
+            assertTrue(customer.getNotifications(3, 5).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given an inbox with a maximum age")
+    class GivenAnInboxWithAMaximumAge {
+
+        @Test
+        @DisplayName("then records older than the maximum age should be evicted")
+        void thenOldRecordsShouldBeEvicted() throws InterruptedException {
+            NotificationInbox inbox = new NotificationInbox(10, Duration.ofMillis(1));
+            inbox.add(NotificationRecord.message(flight, "Gate changed"));
+            Thread.sleep(10);
+            assertEquals(0, inbox.size());
+            assertEquals(1, inbox.getEvictedCount());
+        }
+
+        @Test
+        @DisplayName("then an old record should be evicted even if it arrived after a recent one")
+        void thenLateOldRecordsShouldBeEvicted() throws InterruptedException {
+            NotificationInbox inbox = new NotificationInbox(10, Duration.ofMillis(200));
+            NotificationRecord late = NotificationRecord.message(flight, "Gate changed");
+            Thread.sleep(300);
+            inbox.add(NotificationRecord.message(flight, "Boarding"));
+            inbox.add(late);
+            List<NotificationRecord> page = inbox.getPage(0, 10);
+            assertEquals(1, page.size());
+            assertEquals("Boarding", page.get(0).getMessage());
+            assertEquals(1, inbox.getEvictedCount());
+        }
+
+        @Test
+        @DisplayName("then recent records should be kept")
+        void thenRecentRecordsShouldBeKept() {
+            NotificationInbox inbox = new NotificationInbox(10, Duration.ofHours(1));
+            inbox.add(NotificationRecord.message(flight, "Gate changed"));
+            inbox.add(NotificationRecord.message(flight, "Boarding"));
+            assertEquals(Arrays.asList("Gate changed", "Boarding"),
+                    Arrays.asList(inbox.get(0).getMessage(), inbox.get(1).getMessage()));
+        }
+    }
+}
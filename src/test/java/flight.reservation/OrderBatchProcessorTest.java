@@ -0,0 +1,220 @@
+package flight.reservation;
+
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.order.FlightOrder;
+import flight.reservation.order.Order;
+import flight.reservation.order.OrderBatchProcessor;
+import flight.reservation.order.OrderBatchProcessor.Outcome;
+import flight.reservation.payment.BatchPaymentGateway;
+import flight.reservation.payment.PaymentStrategy;
+import flight.reservation.persistence.OrderJournal;
+import flight.reservation.persistence.OrderRecord;
+import flight.reservation.persistence.PaymentStatus;
+import flight.reservation.plane.Helicopter;
+import flight.reservation.plane.PassengerPlane;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Order Batch Processor Tests")
+public class OrderBatchProcessorTest {
+
+    private static final Date DEPARTURE = new Date(1_900_000_000_000L);
+
+    private Airport berlin;
+    private Airport frankfurt;
+    private Customer alice;
+    private Customer bob;
+
+    @BeforeEach
+    public void initCustomers() {
+        berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        alice = new Customer("Alice", "alice@example.com");
+        bob = new Customer("Bob", "bob@example.com");
+    }
+
+    private static PaymentStrategy payment(boolean succeeds) {
+        return new PaymentStrategy() {
+            @Override
+            public boolean pay(double amount) {
+                if (!succeeds) {
+                    throw new IllegalStateException("Card limit reached");
+                }
+                return true;
+            }
+
+            @Override
+            public boolean isValid() {
+                return true;
+            }
+        };
+    }
+
+    private static FlightOrder order(Customer customer, List<ScheduledFlight> flights, boolean paymentSucceeds,
+                                     String... passengers) {
+        FlightOrder order = new FlightOrder(flights);
+        order.setCustomer(customer);
+        order.setPrice(100);
+        order.setPassengers(Arrays.stream(passengers).map(Passenger::new).collect(Collectors.toList()));
+        order.setPaymentStrategy(payment(paymentSucceeds));
+        return order;
+    }
+
+    @Nested
+    @DisplayName("Given a flight with few seats")
+    class GivenAFlightWithFewSeats {
+
+        private ScheduledFlight helicopterFlight;
+
+        @BeforeEach
+        void initFlight() {
+            helicopterFlight = new ScheduledFlight(1, berlin, frankfurt, new Helicopter("H1"), DEPARTURE);
+        }
+
+        @Test
+        @DisplayName("then every order should get its own outcome")
+        void thenEveryOrderShouldGetItsOwnOutcome() throws NoSuchFieldException {
+            List<ScheduledFlight> flights = Collections.singletonList(helicopterFlight);
+            FlightOrder paid = order(alice, flights, true, "Amanda", "Max");
+            FlightOrder listed = order(alice, flights, true, "Peter");
+            FlightOrder incomplete = order(bob, flights, true, "Tom");
+            incomplete.setPaymentStrategy(null);
+            FlightOrder unpaid = order(bob, flights, false, "Tom");
+            FlightOrder tooLate = order(bob, flights, true, "Anna", "Lena");
+
+            List<Outcome> outcomes = new OrderBatchProcessor().process(
+                    Arrays.asList(paid, listed, incomplete, unpaid, tooLate, paid));
+
+            assertEquals(Arrays.asList(Outcome.PAID, Outcome.REJECTED_BY_SCREENING, Outcome.INVALID,
+                    Outcome.PAYMENT_FAILED, Outcome.NO_SEATS, Outcome.PAID), outcomes);
+            assertTrue(paid.isClosed());
+            // like a single order, an unpaid order keeps its seats and stays open
+            assertFalse(unpaid.isClosed());
+            assertEquals(1, helicopterFlight.getAvailableCapacity());
+            assertEquals(3, helicopterFlight.getPassengers().size());
+            assertEquals(Collections.singletonList(paid), alice.getOrders());
+            assertEquals(Collections.singletonList(unpaid), bob.getOrders());
+        }
+
+        @Test
+        @DisplayName("then orders already booked by the customer should not take seats twice")
+        void thenBookedOrdersShouldNotTakeSeatsTwice() throws NoSuchFieldException {
+            FlightOrder booked = alice.createOrder(Arrays.asList("Amanda", "Max"),
+                    Collections.singletonList(helicopterFlight), 100);
+            booked.setPaymentStrategy(payment(true));
+
+            List<Outcome> outcomes = new OrderBatchProcessor().process(Collections.singletonList(booked));
+
+            assertEquals(Collections.singletonList(Outcome.PAID), outcomes);
+            assertEquals(2, helicopterFlight.getAvailableCapacity());
+            assertEquals(1, alice.getOrders().size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a flash sale")
+    class GivenAFlashSale {
+
+        private Path directory;
+        private OrderJournal journal;
+
+        @BeforeEach
+        void openJournal() throws Exception {
+            directory = Files.createTempDirectory("order-batch");
+            journal = new OrderJournal(directory, OrderJournal.Durability.SYNC);
+            Order.setJournal(journal);
+        }
+
+        @AfterEach
+        void closeJournal() throws Exception {
+            Order.setJournal(null);
+            journal.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+
+        @Test
+        @DisplayName("then the batch should fill the flights, submit the payments together and journal every order")
+        void thenTheBatchShouldBeProcessedTogether() throws Exception {
+            ScheduledFlight direct = new ScheduledFlight(1, berlin, frankfurt, new PassengerPlane("Embraer 190"), DEPARTURE);
+            ScheduledFlight back = new ScheduledFlight(2, frankfurt, berlin, new PassengerPlane("A380"), DEPARTURE);
+            List<FlightOrder> orders = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                List<ScheduledFlight> flights = i % 3 == 0 ? Arrays.asList(direct, back) : Collections.singletonList(direct);
+                orders.add(order(i % 2 == 0 ? alice : bob, flights, i % 5 != 4, "Passenger " + i));
+            }
+            int[] submissions = {0};
+            BatchPaymentGateway gateway = (strategies, amounts) -> {
+                submissions[0]++;
+                return BatchPaymentGateway.SEQUENTIAL.submit(strategies, amounts);
+            };
+
+            List<Outcome> outcomes = new OrderBatchProcessor(gateway).process(orders);
+
+            assertEquals(1, submissions[0]);
+            // the ten orders with two flights are seated first, the last five single flight orders find no seats
+            List<Integer> withoutSeats = Arrays.asList(23, 25, 26, 28, 29);
+            for (int i = 0; i < 30; i++) {
+                Outcome expected = withoutSeats.contains(i) ? Outcome.NO_SEATS
+                        : i % 5 == 4 ? Outcome.PAYMENT_FAILED : Outcome.PAID;
+                assertEquals(expected, outcomes.get(i), "order " + i);
+            }
+            assertEquals(0, direct.getAvailableCapacity());
+            assertEquals(25, direct.getPassengers().size());
+            assertEquals(10, back.getPassengers().size());
+
+            List<OrderRecord> records = new ArrayList<>();
+            journal.replay(records::add);
+            assertEquals(25, records.size());
+            assertEquals(5, records.stream().filter(record -> record.getPaymentStatus() == PaymentStatus.FAILED).count());
+            assertEquals(orders.get(0).getId(), records.get(0).getOrderId());
+        }
+
+        @Test
+        @DisplayName("then a payment throwing any exception should only fail its own order")
+        void thenAThrowingPaymentShouldOnlyFailItsOrder() throws Exception {
+            ScheduledFlight flight = new ScheduledFlight(1, berlin, frankfurt, new PassengerPlane("A380"), DEPARTURE);
+            List<FlightOrder> orders = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                orders.add(order(i == 0 ? alice : bob, Collections.singletonList(flight), true, "Passenger " + i));
+            }
+            orders.get(1).setPaymentStrategy(new PaymentStrategy() {
+                @Override
+                public boolean pay(double amount) {
+                    throw new IllegalArgumentException("Card number unreadable");
+                }
+
+                @Override
+                public boolean isValid() {
+                    return true;
+                }
+            });
+
+            List<Outcome> outcomes = new OrderBatchProcessor().process(orders);
+
+            assertEquals(Arrays.asList(Outcome.PAID, Outcome.PAYMENT_FAILED, Outcome.PAID), outcomes);
+            assertEquals(3, flight.getPassengers().size());
+            List<OrderRecord> records = new ArrayList<>();
+            journal.replay(records::add);
+            assertEquals(Arrays.asList(PaymentStatus.PAID, PaymentStatus.FAILED, PaymentStatus.PAID),
+                    records.stream().map(OrderRecord::getPaymentStatus).collect(Collectors.toList()));
+        }
+    }
+}
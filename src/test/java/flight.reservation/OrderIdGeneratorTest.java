@@ -0,0 +1,92 @@
+package flight.reservation;
+
+import flight.reservation.order.FlightOrder;
+import flight.reservation.order.Order;
+import flight.reservation.order.OrderIdGenerator;
+import flight.reservation.order.TimeOrderedIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Order Id Generator Tests")
+public class OrderIdGeneratorTest {
+
+    @AfterEach
+    public void restoreRandomIds() {
+        Order.setIdGenerator(OrderIdGenerator.RANDOM);
+    }
+
+    @Nested
+    @DisplayName("Given a time ordered generator")
+    class GivenATimeOrderedGenerator {
+
+        private final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(42);
+
+        @Test
+        @DisplayName("then ids should be version 7 UUIDs carrying the node id and the current time")
+        void thenIdsShouldCarryNodeAndTime() {
+            long before = System.currentTimeMillis();
+            UUID id = generator.nextId();
+            assertEquals(7, id.version());
+            assertEquals(2, id.variant());
+            assertEquals(42, TimeOrderedIdGenerator.getNodeId(id));
+            assertTrue(TimeOrderedIdGenerator.getTimestamp(id) >= before);
+        }
+
+        @Test
+        @DisplayName("then ids taken by concurrent threads should be unique and increasing per thread")
+        void thenConcurrentIdsShouldBeUniqueAndIncreasing() throws InterruptedException {
+            int threads = 4;
+            int perThread = 20_000;
+            List<List<UUID>> results = new ArrayList<>();
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                List<UUID> ids = new ArrayList<>(perThread);
+                results.add(ids);
+                Thread worker = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(generator.nextId());
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            Set<Long> timeAndCounter = new HashSet<>();
+            for (List<UUID> ids : results) {
+                for (int i = 0; i < ids.size(); i++) {
+                    assertTrue(timeAndCounter.add(ids.get(i).getMostSignificantBits()));
+                    if (i > 0) {
+                        assertTrue(ids.get(i - 1).getMostSignificantBits() < ids.get(i).getMostSignificantBits());
+                    }
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("then new orders should get their ids from the configured generator")
+        void thenOrdersShouldUseTheGenerator() {
+            Order.setIdGenerator(generator);
+            List<UUID> ids = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                ids.add(new FlightOrder(Collections.emptyList()).getId());
+            }
+            List<UUID> sorted = new ArrayList<>(ids);
+            Collections.sort(sorted);
+            assertEquals(sorted, ids);
+            assertEquals(42, TimeOrderedIdGenerator.getNodeId(ids.get(0)));
+        }
+    }
+}
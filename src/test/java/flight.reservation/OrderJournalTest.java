@@ -0,0 +1,343 @@
+package flight.reservation;
+
+import flight.reservation.flight.Schedule;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.order.FlightOrder;
+import flight.reservation.order.Order;
+import flight.reservation.payment.PaymentStrategy;
+import flight.reservation.persistence.OrderJournal;
+import flight.reservation.persistence.OrderRecord;
+import flight.reservation.persistence.OrderRecovery;
+import flight.reservation.persistence.PaymentStatus;
+import flight.reservation.persistence.SnapshotManager;
+import flight.reservation.plane.PassengerPlane;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Order Journal Tests")
+public class OrderJournalTest {
+
+    private static final Date DEPARTURE = new Date(1_900_000_000_000L);
+
+    private Path directory;
+    private OrderJournal journal;
+
+    @BeforeEach
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("order-journal");
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws Exception {
+        Order.setJournal(null);
+        if (journal != null) {
+            journal.close();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private static Schedule createSchedule() {
+        Airport berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin", 52.3667, 13.5033);
+        Airport frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        Airport madrid = new Airport("Madrid Barajas Airport", "MAD", "Barajas, Madrid");
+        Schedule schedule = new Schedule();
+        schedule.scheduleFlights(Arrays.asList(
+                new ScheduledFlight(1, berlin, frankfurt, new PassengerPlane("A380"), DEPARTURE),
+                new ScheduledFlight(2, frankfurt, madrid, new PassengerPlane("A350"), DEPARTURE)));
+        return schedule;
+    }
+
+    private static PaymentStrategy payment(boolean succeeds) {
+        return new PaymentStrategy() {
+            @Override
+            public boolean pay(double amount) {
+                return succeeds;
+            }
+
+            @Override
+            public boolean isValid() {
+                return true;
+            }
+        };
+    }
+
+    private static OrderRecord record(int passengers) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < passengers; i++) {
+            names.add("Passenger " + i);
+        }
+        return new OrderRecord(UUID.randomUUID(), "Alice", "alice@example.com", new int[]{1},
+                new long[]{DEPARTURE.getTime()}, names, 100, PaymentStatus.PAID, System.currentTimeMillis());
+    }
+
+    private static long countFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private int count(OrderJournal journal) throws IOException {
+        List<OrderRecord> records = new ArrayList<>();
+        journal.replay(records::add);
+        return records.size();
+    }
+
+    @Nested
+    @DisplayName("Given orders processed with a journal")
+    class GivenJournaledOrders {
+
+        @Test
+        @DisplayName("then a replay after a restart should rebuild customers, orders and passenger lists")
+        void thenAReplayShouldRebuildTheOrders() throws Exception {
+            journal = new OrderJournal(directory, OrderJournal.Durability.SYNC);
+            Order.setJournal(journal);
+            Schedule schedule = createSchedule();
+            Customer alice = new Customer("Alice", "alice@example.com");
+            FlightOrder paid = alice.createOrder(Arrays.asList("Amanda", "Max"), schedule.getScheduledFlights(), 240);
+            paid.setPaymentStrategy(payment(true));
+            assertTrue(paid.processOrder());
+            FlightOrder unpaid = alice.createOrder(Collections.singletonList("Tom"), schedule.getScheduledFlights().subList(0, 1), 80);
+            unpaid.setPaymentStrategy(payment(false));
+            assertFalse(unpaid.processOrder());
+            journal.close();
+
+            journal = new OrderJournal(directory, OrderJournal.Durability.SYNC);
+            Schedule restarted = createSchedule();
+            OrderRecovery recovery = new OrderRecovery(restarted, Collections.emptyList());
+            journal.replay(recovery::apply);
+
+            Customer restored = recovery.getCustomer("alice@example.com");
+            assertEquals("Alice", restored.getName());
+            assertEquals(2, restored.getOrders().size());
+            FlightOrder restoredPaid = recovery.getOrders().get(paid.getId());
+            assertTrue(restoredPaid.isClosed());
+            assertEquals(240, restoredPaid.getPrice());
+            assertFalse(recovery.getOrders().get(unpaid.getId()).isClosed());
+            assertEquals(3, restarted.searchScheduledFlight(1).getPassengers().size());
+            assertEquals(2, restarted.searchScheduledFlight(2).getPassengers().size());
+            assertEquals(0, recovery.getSkippedCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a journal with small segments")
+    class GivenSmallSegments {
+
+        @Test
+        @DisplayName("then records should continue in new segments and survive reopening")
+        void thenRecordsShouldSpanSegments() throws Exception {
+            journal = new OrderJournal(directory, 512, OrderJournal.Durability.ASYNC);
+            for (int i = 0; i < 50; i++) {
+                journal.append(record(i % 5));
+            }
+            journal.flush();
+            long position = journal.getPosition();
+            journal.close();
+
+            journal = new OrderJournal(directory, 512, OrderJournal.Durability.SYNC);
+            assertEquals(position, journal.getPosition());
+            journal.append(record(2));
+            assertEquals(51, count(journal));
+            List<OrderRecord> tail = new ArrayList<>();
+            journal.replay(position, tail::add);
+            assertEquals(1, tail.size());
+            assertEquals(2, tail.get(0).getPassengerNames().size());
+        }
+
+        @Test
+        @DisplayName("then a torn record at the end should be ignored and overwritten")
+        void thenATornRecordShouldBeIgnored() throws Exception {
+            journal = new OrderJournal(directory, 4096, OrderJournal.Durability.SYNC);
+            journal.append(record(1));
+            long end = journal.getPosition();
+            journal.close();
+            try (RandomAccessFile file = new RandomAccessFile(directory.resolve(String.format("%016d.journal", 0)).toFile(), "rw")) {
+                file.seek(end);
+                file.writeInt(200);
+                file.writeInt(12345);
+                file.write(new byte[]{1, 2, 3});
+            }
+
+            journal = new OrderJournal(directory, 4096, OrderJournal.Durability.SYNC);
+            assertEquals(end, journal.getPosition());
+            journal.append(record(3));
+            assertEquals(2, count(journal));
+        }
+
+        @Test
+        @DisplayName("then records behind a hole left by a crash should not be replayed")
+        void thenRecordsBehindAHoleShouldBeCleared() throws Exception {
+            journal = new OrderJournal(directory, 4096, OrderJournal.Durability.SYNC);
+            journal.append(record(1));
+            long hole = journal.getPosition();
+            journal.append(record(1));
+            journal.append(record(1));
+            journal.close();
+            // the page holding the second record's header did not reach the disk, the third record did
+            try (RandomAccessFile file = new RandomAccessFile(directory.resolve(String.format("%016d.journal", 0)).toFile(), "rw")) {
+                file.seek(hole);
+                file.writeLong(0);
+            }
+
+            journal = new OrderJournal(directory, 4096, OrderJournal.Durability.SYNC);
+            assertEquals(hole, journal.getPosition());
+            // fills the hole exactly, so a stale third record would follow it
+            journal.append(record(1));
+            assertEquals(2, count(journal));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given an asynchronous journal under steady appends")
+    class GivenSteadyAsyncAppends {
+
+        @Test
+        @DisplayName("then it should force at most once per flush interval")
+        void thenItShouldForceOncePerInterval() throws Exception {
+            journal = new OrderJournal(directory, 1024 * 1024, OrderJournal.Durability.ASYNC);
+            long start = System.nanoTime();
+            while (System.nanoTime() - start < 200_000_000L) {
+                journal.append(record(1));
+                LockSupport.parkNanos(100_000);
+            }
+            // 20 intervals, plus the force in flight and some slack for a slow scheduler
+            assertTrue(journal.getForceCount() <= 25, "forced " + journal.getForceCount() + " times");
+            journal.flush();
+            assertEquals(journal.getAppendCount(), count(journal));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a snapshot and orders processed after it")
+    class GivenASnapshot {
+
+        private Path snapshots;
+        private Schedule schedule;
+        private final List<Customer> customers = new ArrayList<>();
+
+        @BeforeEach
+        void processOrders() throws Exception {
+            snapshots = directory.resolve("snapshots");
+            journal = new OrderJournal(directory.resolve("journal"), 256, OrderJournal.Durability.SYNC);
+            Order.setJournal(journal);
+            schedule = createSchedule();
+            for (int i = 0; i < 20; i++) {
+                Customer customer = new Customer("Customer " + i, "customer" + i + "@example.com");
+                customers.add(customer);
+                FlightOrder order = customer.createOrder(Arrays.asList("A" + i, "B" + i), schedule.getScheduledFlights(), 100 + i);
+                order.setPaymentStrategy(payment(i % 4 != 0));
+                order.processOrder();
+            }
+        }
+
+        private FlightOrder orderOf(Customer customer) {
+            return (FlightOrder) customer.getOrders().get(0);
+        }
+
+        @Test
+        @DisplayName("then a restart should restore the snapshot plus the journal tail")
+        void thenARestartShouldRestoreSnapshotAndTail() throws Exception {
+            long segmentsBefore = countFiles(directory.resolve("journal"));
+            try (SnapshotManager manager = new SnapshotManager(snapshots, journal, schedule, () -> customers)) {
+                manager.snapshot().join();
+            }
+            assertTrue(countFiles(directory.resolve("journal")) < segmentsBefore);
+            Customer late = new Customer("Late", "late@example.com");
+            FlightOrder lateOrder = late.createOrder(Collections.singletonList("C"), schedule.getScheduledFlights().subList(0, 1), 50);
+            lateOrder.setPaymentStrategy(payment(true));
+            lateOrder.processOrder();
+            orderOf(customers.get(0)).setPaymentStrategy(payment(true));
+            orderOf(customers.get(0)).processOrder();
+            journal.close();
+
+            journal = new OrderJournal(directory.resolve("journal"), 256, OrderJournal.Durability.SYNC);
+            Schedule restarted = new Schedule();
+            OrderRecovery recovery = SnapshotManager.recover(snapshots, journal, restarted);
+
+            assertEquals(21, recovery.getCustomers().size());
+            assertEquals(21, recovery.getOrders().size());
+            ScheduledFlight first = restarted.searchScheduledFlight(1);
+            assertEquals(41, first.getPassengers().size());
+            assertEquals(40, restarted.searchScheduledFlight(2).getPassengers().size());
+            assertTrue(recovery.getOrders().get(orderOf(customers.get(0)).getId()).isClosed());
+            assertFalse(recovery.getOrders().get(orderOf(customers.get(4)).getId()).isClosed());
+            assertTrue(recovery.getOrders().get(lateOrder.getId()).isClosed());
+            FlightOrder restored = recovery.getOrders().get(orderOf(customers.get(1)).getId());
+            assertEquals(101, restored.getPrice());
+            assertSame(restored.getPassengers().get(0), first.getPassengers().get(2));
+            assertEquals(52.3667, first.getDeparture().getLatitude());
+            assertEquals(13.5033, first.getDeparture().getLongitude());
+            assertFalse(first.getArrival().hasCoordinates());
+        }
+
+        @Test
+        @DisplayName("then an order booked while the state is copied should be seated once after a restart")
+        void thenAnOrderBookedDuringTheSnapshotShouldBeSeatedOnce() throws Exception {
+            Customer late = new Customer("Late", "late@example.com");
+            List<FlightOrder> lateOrders = new ArrayList<>();
+            // seats the passenger once the snapshot started, before the customer is listed
+            Supplier<List<Customer>> booking = () -> {
+                lateOrders.add(late.createOrder(Collections.singletonList("C"), schedule.getScheduledFlights().subList(0, 1), 50));
+                return customers;
+            };
+            try (SnapshotManager manager = new SnapshotManager(snapshots, journal, schedule, booking)) {
+                manager.snapshot().join();
+            }
+            FlightOrder lateOrder = lateOrders.get(0);
+            lateOrder.setPaymentStrategy(payment(true));
+            lateOrder.processOrder();
+            journal.close();
+
+            journal = new OrderJournal(directory.resolve("journal"), 256, OrderJournal.Durability.SYNC);
+            Schedule restarted = new Schedule();
+            OrderRecovery recovery = SnapshotManager.recover(snapshots, journal, restarted);
+
+            assertEquals(41, restarted.searchScheduledFlight(1).getPassengers().size());
+            assertTrue(recovery.getOrders().get(lateOrder.getId()).isClosed());
+        }
+
+        @Test
+        @DisplayName("then a damaged latest snapshot should fall back to the previous one")
+        void thenADamagedSnapshotShouldFallBack() throws Exception {
+            Path latest;
+            try (SnapshotManager manager = new SnapshotManager(snapshots, journal, schedule, () -> customers)) {
+                manager.snapshot().join();
+                orderOf(customers.get(0)).setPaymentStrategy(payment(true));
+                orderOf(customers.get(0)).processOrder();
+                latest = manager.snapshot().join();
+            }
+            byte[] content = Files.readAllBytes(latest);
+            content[content.length / 2] ^= 1;
+            Files.write(latest, content);
+            journal.close();
+
+            journal = new OrderJournal(directory.resolve("journal"), 256, OrderJournal.Durability.SYNC);
+            OrderRecovery recovery = SnapshotManager.recover(snapshots, journal, new Schedule());
+            assertEquals(20, recovery.getOrders().size());
+            assertTrue(recovery.getOrders().get(orderOf(customers.get(0)).getId()).isClosed());
+            assertEquals(40, recovery.getSchedule().searchScheduledFlight(1).getPassengers().size());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package flight.reservation;
+
+import flight.reservation.payment.Paypal;
+import flight.reservation.payment.PaypalPaymentStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PayPal Authorization Tests")
+public class PaypalAuthorizationTest {
+
+    @BeforeEach
+    public void registerAccount() {
+        Paypal.register("traveller@example.com", "secret");
+    }
+
+    @AfterEach
+    public void removeAccount() {
+        Paypal.remove("traveller@example.com");
+    }
+
+    @Test
+    @DisplayName("then the deprecated database should still map passwords to emails")
+    @SuppressWarnings("deprecation")
+    void thenTheDeprecatedDatabaseShouldStillWork() {
+        assertEquals("amanda@ya.com", Paypal.DATA_BASE.get("amanda1985"));
+        assertEquals("traveller@example.com", Paypal.DATA_BASE.get("secret"));
+        Paypal.register("traveller@example.com", "new secret");
+        assertNull(Paypal.DATA_BASE.get("secret"));
+        assertEquals("traveller@example.com", Paypal.DATA_BASE.get("new secret"));
+        assertThrows(UnsupportedOperationException.class, () -> Paypal.DATA_BASE.put("guess", "mallory@example.com"));
+    }
+
+    @Test
+    @DisplayName("then the deprecated database should keep a password shared by a remaining account")
+    @SuppressWarnings("deprecation")
+    void thenASharedPasswordShouldSurviveRemovingOneAccount() {
+        Paypal.register("companion@example.com", "secret");
+        try {
+            Paypal.remove("traveller@example.com");
+            assertEquals("companion@example.com", Paypal.DATA_BASE.get("secret"));
+            assertTrue(Paypal.DATA_BASE.containsKey("secret"));
+        } finally {
+            Paypal.remove("companion@example.com");
+        }
+        assertFalse(Paypal.DATA_BASE.containsKey("secret"));
+    }
+
+    @Test
+    @DisplayName("then the accounts of the original database should still be valid")
+    void thenTheOriginalAccountsShouldBeValid() {
+        assertTrue(new PaypalPaymentStrategy("amanda@ya.com", "amanda1985").isValid());
+        assertTrue(new PaypalPaymentStrategy("john@amazon.eu", "qwerty").isValid());
+        assertFalse(new PaypalPaymentStrategy("amanda@ya.com", "qwerty").isValid());
+        assertFalse(new PaypalPaymentStrategy(null, "qwerty").isValid());
+    }
+
+    @Nested
+    @DisplayName("Given an authorized account")
+    class GivenAnAuthorizedAccount {
+
+        @BeforeEach
+        void authorize() {
+            assertTrue(Paypal.isAuthorized("traveller@example.com", "secret"));
+        }
+
+        @Test
+        @DisplayName("then payments of the account should succeed")
+        void thenPaymentsShouldSucceed() {
+            for (int i = 0; i < 5; i++) {
+                PaypalPaymentStrategy strategy = new PaypalPaymentStrategy("traveller@example.com", "secret");
+                assertTrue(strategy.isValid());
+                assertTrue(strategy.pay(100));
+            }
+        }
+
+        @Test
+        @DisplayName("then a wrong password should still be rejected")
+        void thenAWrongPasswordShouldBeRejected() {
+            assertFalse(Paypal.isAuthorized("traveller@example.com", "guess"));
+            assertThrows(IllegalStateException.class,
+                    () -> new PaypalPaymentStrategy("traveller@example.com", "guess").pay(100));
+        }
+
+        @Test
+        @DisplayName("then changing or removing the account should end the authorization")
+        void thenChangingTheAccountShouldEndTheAuthorization() {
+            Paypal.register("traveller@example.com", "new secret");
+            assertFalse(Paypal.isAuthorized("traveller@example.com", "secret"));
+            assertTrue(Paypal.isAuthorized("traveller@example.com", "new secret"));
+
+            Paypal.remove("traveller@example.com");
+            assertFalse(Paypal.isAuthorized("traveller@example.com", "new secret"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Given accounts added during payments")
+    class GivenAccountsAddedDuringPayments {
+
+        @Test
+        @DisplayName("then validations should keep working")
+        void thenValidationsShouldKeepWorking() throws InterruptedException {
+            AtomicBoolean failed = new AtomicBoolean();
+            AtomicBoolean done = new AtomicBoolean();
+            List<Thread> readers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread reader = new Thread(() -> {
+                    while (!done.get()) {
+                        if (!Paypal.isAuthorized("traveller@example.com", "secret")) {
+                            failed.set(true);
+                        }
+                    }
+                });
+                reader.start();
+                readers.add(reader);
+            }
+            for (int i = 0; i < 50; i++) {
+                Paypal.register("customer" + i + "@example.com", "password " + i);
+            }
+            done.set(true);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+
+            assertFalse(failed.get());
+            for (int i = 0; i < 50; i++) {
+                assertTrue(Paypal.isAuthorized("customer" + i + "@example.com", "password " + i));
+                Paypal.remove("customer" + i + "@example.com");
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package flight.reservation;
 
 import flight.reservation.flight.Flight;
+import flight.reservation.flight.Route;
 import flight.reservation.flight.Schedule;
 import flight.reservation.flight.ScheduledFlight;
 import flight.reservation.plane.Helicopter;
@@ -211,5 +212,76 @@ public class ScheduleTest {
                 assertEquals(null, schedule.searchScheduledFlight(flights.get(0).getNumber()));
             }
         }
+
+        @Nested
+        @DisplayName("when flights are looked up through the indexes")
+        class FlightsAreLookedUpThroughTheIndexes {
+
+            @Test
+            @DisplayName("then the route lookup should only return flights of that route")
+            void thenRouteLookupShouldReturnMatchingFlights() {
+                List<ScheduledFlight> found = schedule.searchScheduledFlights(new Route("MAD", "JFK"));
+                assertEquals(1, found.size());
+                assertEquals(flights.get(2).getNumber(), found.get(0).getNumber());
+                assertTrue(schedule.searchScheduledFlights(new Route("JFK", "MAD")).stream().allMatch(o -> o.getNumber() == flights.get(4).getNumber()));
+                assertTrue(schedule.searchScheduledFlights(new Route("BER", "CTU")).isEmpty());
+            }
+
+            @Test
+            @DisplayName("then the departure time lookup should return the flights of the interval in departure order")
+            void thenDepartureTimeLookupShouldReturnFlightsInOrder() throws ParseException {
+                SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+                Date from = TestUtil.addDays(format.parse("2020-01-01"), 2);
+                Date to = TestUtil.addDays(format.parse("2020-01-01"), 5);
+                List<ScheduledFlight> found = schedule.searchScheduledFlights(from, to);
+                assertEquals(3, found.size());
+                assertEquals(flights.get(1).getNumber(), found.get(0).getNumber());
+                assertEquals(flights.get(2).getNumber(), found.get(1).getNumber());
+                assertEquals(flights.get(3).getNumber(), found.get(2).getNumber());
+            }
+
+            @Test
+            @DisplayName("then the airport lookups should only return flights of that airport within the window")
+            void thenAirportLookupsShouldReturnFlightsWithinTheWindow() throws ParseException {
+                SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+                Date start = format.parse("2020-01-01");
+                schedule.scheduleFlight(flights.get(2), TestUtil.addDays(start, 10));
+
+                List<ScheduledFlight> departures = schedule.searchDepartures(airports.get(2), start, TestUtil.addDays(start, 30));
+                assertEquals(2, departures.size());
+                assertTrue(departures.get(0).getDepartureTime().before(departures.get(1).getDepartureTime()));
+                assertEquals(1, schedule.searchDepartures(airports.get(2), TestUtil.addDays(start, 4), TestUtil.addDays(start, 30)).size());
+                assertTrue(schedule.searchDepartures(airports.get(6), start, TestUtil.addDays(start, 30)).isEmpty());
+
+                List<ScheduledFlight> arrivals = schedule.searchArrivals(airports.get(2), start, TestUtil.addDays(start, 5));
+                assertEquals(2, arrivals.size());
+                assertEquals(flights.get(1).getNumber(), arrivals.get(0).getNumber());
+                assertEquals(flights.get(3).getNumber(), arrivals.get(1).getNumber());
+            }
+
+            @Test
+            @DisplayName("then removing one scheduled instance should keep the other instances of the flight number")
+            void thenRemovingOneInstanceShouldKeepTheOthers() throws ParseException {
+                SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+                schedule.scheduleFlight(flights.get(0), TestUtil.addDays(format.parse("2020-01-01"), 30));
+                ScheduledFlight first = schedule.searchScheduledFlight(flights.get(0).getNumber());
+                assertEquals(2, schedule.searchScheduledFlights(flights.get(0).getNumber()).size());
+
+                schedule.removeScheduledFlight(first);
+                assertEquals(6, schedule.getScheduledFlights().size());
+                assertEquals(1, schedule.searchScheduledFlights(flights.get(0).getNumber()).size());
+                assertNotSame(first, schedule.searchScheduledFlight(flights.get(0).getNumber()));
+                assertEquals(1, schedule.searchScheduledFlights(new Route("BER", "FRA")).size());
+            }
+
+            @Test
+            @DisplayName("then the indexes should be empty after the schedule is cleared")
+            void thenIndexesShouldBeEmptyAfterClear() {
+                schedule.clear();
+                assertEquals(0, schedule.getScheduledFlights().size());
+                assertNull(schedule.searchScheduledFlight(flights.get(0).getNumber()));
+                assertTrue(schedule.searchScheduledFlights(new Route("BER", "FRA")).isEmpty());
+            }
+        }
     }
 }
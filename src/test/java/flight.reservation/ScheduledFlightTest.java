@@ -0,0 +1,170 @@
+package flight.reservation;
+
+import flight.reservation.flight.ReservationResult;
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.flight.SeatReservations;
+import flight.reservation.plane.Helicopter;
+import flight.reservation.plane.PassengerPlane;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Scheduled Flight Tests")
+public class ScheduledFlightTest {
+
+    private Airport berlin;
+    private Airport frankfurt;
+    private Date departure;
+
+    @BeforeEach
+    public void initAirports() {
+        berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+        departure = TestUtil.addDays(Date.from(Instant.now()), 3);
+    }
+
+    @Nested
+    @DisplayName("Given a scheduled H1 with four seats")
+    class GivenAScheduledHelicopter {
+
+        private ScheduledFlight flight;
+
+        @BeforeEach
+        void scheduleHelicopter() {
+            flight = new ScheduledFlight(1, berlin, frankfurt, new Helicopter("H1"), departure);
+        }
+
+        @Test
+        @DisplayName("then seats should be reserved until the flight is full")
+        void thenSeatsShouldBeReservedUntilFull() throws NoSuchFieldException {
+            assertEquals(ReservationResult.RESERVED, flight.reserveSeats(3));
+            assertEquals(ReservationResult.INSUFFICIENT_CAPACITY, flight.reserveSeats(2));
+            assertEquals(1, flight.getAvailableCapacity());
+            assertEquals(ReservationResult.RESERVED, flight.reserveSeats(1));
+            assertEquals(0, flight.getAvailableCapacity());
+        }
+
+        @Test
+        @DisplayName("then released seats should be available again")
+        void thenReleasedSeatsShouldBeAvailableAgain() throws NoSuchFieldException {
+            flight.reserveSeats(4);
+            assertTrue(flight.releaseSeats(2));
+            assertEquals(2, flight.getAvailableCapacity());
+            assertFalse(flight.releaseSeats(3));
+            assertEquals(2, flight.getAvailableCapacity());
+        }
+
+        @Test
+        @DisplayName("then a failed booking should leave the passengers untouched")
+        void thenAFailedBookingShouldLeaveThePassengersUntouched() throws NoSuchFieldException {
+            flight.addPassengers(Arrays.asList(new Passenger("P0"), new Passenger("P1"), new Passenger("P2")));
+            ReservationResult result = flight.bookPassengers(Arrays.asList(new Passenger("Max"), new Passenger("Amanda")));
+            assertFalse(result.isSuccess());
+            assertEquals(3, flight.getPassengers().size());
+            assertEquals(1, flight.getAvailableCapacity());
+        }
+
+        @Test
+        @DisplayName("then removing passengers should free their seats")
+        void thenRemovingPassengersShouldFreeTheirSeats() throws NoSuchFieldException {
+            Passenger max = new Passenger("Max");
+            flight.bookPassengers(Arrays.asList(max, new Passenger("Amanda")));
+            flight.removePassengers(Arrays.asList(max, new Passenger("Unknown")));
+            assertEquals(1, flight.getPassengers().size());
+            assertEquals(3, flight.getAvailableCapacity());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a two leg journey whose second leg is almost full")
+    class GivenATwoLegJourney {
+
+        private ScheduledFlight firstLeg;
+        private ScheduledFlight secondLeg;
+
+        @BeforeEach
+        void scheduleLegs() {
+            Airport madrid = new Airport("Madrid Barajas Airport", "MAD", "Barajas, Madrid");
+            firstLeg = new ScheduledFlight(1, berlin, frankfurt, new PassengerPlane("A380"), departure);
+            secondLeg = new ScheduledFlight(2, frankfurt, madrid, new Helicopter("H1"), TestUtil.addDays(departure, 1));
+            secondLeg.addPassengers(Arrays.asList(new Passenger("P0"), new Passenger("P1"), new Passenger("P2")));
+        }
+
+        @Test
+        @DisplayName("then an order that does not fit on the second leg should not change the first leg")
+        void thenAFailedOrderShouldNotChangeTheFirstLeg() throws NoSuchFieldException {
+            Customer customer = new Customer("Max Mustermann", "amanda@ya.com");
+            assertThrows(IllegalStateException.class,
+                    () -> customer.createOrder(Arrays.asList("Amanda", "Max"), Arrays.asList(firstLeg, secondLeg), 180));
+            assertEquals(0, firstLeg.getPassengers().size());
+            assertEquals(500, firstLeg.getAvailableCapacity());
+            assertEquals(1, secondLeg.getAvailableCapacity());
+        }
+
+        @Test
+        @DisplayName("then an all-or-nothing reservation should roll back the legs it already reserved")
+        void thenAReservationShouldRollBack() throws NoSuchFieldException {
+            assertEquals(ReservationResult.INSUFFICIENT_CAPACITY, SeatReservations.reserveAll(Arrays.asList(firstLeg, secondLeg), 2));
+            assertEquals(500, firstLeg.getAvailableCapacity());
+            assertEquals(ReservationResult.RESERVED, SeatReservations.reserveAll(Arrays.asList(firstLeg, secondLeg), 1));
+            assertEquals(499, firstLeg.getAvailableCapacity());
+            assertEquals(0, secondLeg.getAvailableCapacity());
+        }
+
+        @Test
+        @DisplayName("then a flight listed twice should be rejected without reserving seats")
+        void thenARepeatedFlightShouldBeRejected() throws NoSuchFieldException {
+            assertThrows(IllegalArgumentException.class,
+                    () -> SeatReservations.reserveAll(Arrays.asList(firstLeg, secondLeg, firstLeg), 1));
+            assertEquals(500, firstLeg.getAvailableCapacity());
+            assertEquals(1, secondLeg.getAvailableCapacity());
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a scheduled A380 booked from many threads")
+    class GivenConcurrentReservations {
+
+        @Test
+        @DisplayName("then exactly the capacity should be reserved")
+        void thenExactlyTheCapacityShouldBeReserved() throws Exception {
+            ScheduledFlight flight = new ScheduledFlight(2, berlin, frankfurt, new PassengerPlane("A380"), departure);
+            AtomicInteger reserved = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 1000; i++) {
+                        if (flight.reserveSeats(1).isSuccess()) {
+                            reserved.incrementAndGet();
+                        }
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(flight.getCapacity(), reserved.get());
+            assertEquals(0, flight.getAvailableCapacity());
+        }
+    }
+}
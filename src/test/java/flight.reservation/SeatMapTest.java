@@ -0,0 +1,121 @@
+package flight.reservation;
+
+import flight.reservation.flight.ScheduledFlight;
+import flight.reservation.flight.SeatMap;
+import flight.reservation.plane.Helicopter;
+import flight.reservation.plane.PassengerPlane;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Seat Map Tests")
+public class SeatMapTest {
+
+    private Airport berlin;
+    private Airport frankfurt;
+
+    @BeforeEach
+    public void initAirports() {
+        berlin = new Airport("Berlin Airport", "BER", "Berlin, Berlin");
+        frankfurt = new Airport("Frankfurt Airport", "FRA", "Frankfurt, Hesse");
+    }
+
+    @Test
+    @DisplayName("then the seat map should be sized by the aircraft capacity")
+    void thenTheSeatMapShouldBeSizedByTheAircraft() {
+        assertEquals(500, new ScheduledFlight(1, berlin, frankfurt, new PassengerPlane("A380"), new Date()).getSeatMap().getSeatCount());
+        assertEquals(4, new ScheduledFlight(2, berlin, frankfurt, new Helicopter("H1"), new Date()).getSeatMap().getSeatCount());
+    }
+
+    @Test
+    @DisplayName("then the seat map should follow the seats sold on the flight")
+    void thenTheSeatMapShouldFollowTheSoldSeats() {
+        ScheduledFlight flight = new ScheduledFlight(2, berlin, frankfurt, new Helicopter("H1"), new Date());
+        Passenger max = new Passenger("Max");
+        assertTrue(flight.bookPassengers(Arrays.asList(max, new Passenger("Amanda"))).isSuccess());
+        assertEquals(2, flight.getSeatMap().countFreeSeats());
+        flight.reserveSeats(2);
+        assertEquals(0, flight.getSeatMap().countFreeSeats());
+        flight.removePassengers(Collections.singletonList(max));
+        assertEquals(1, flight.getSeatMap().countFreeSeats());
+        flight.releaseSeats(2);
+        assertEquals(3, flight.getSeatMap().countFreeSeats());
+        assertFalse(flight.getSeatMap().isFree(0));
+    }
+
+    @Nested
+    @DisplayName("Given the seat map of an A380")
+    class GivenAnA380SeatMap {
+
+        private SeatMap seatMap;
+
+        @BeforeEach
+        void createSeatMap() {
+            seatMap = new SeatMap(500);
+        }
+
+        @Test
+        @DisplayName("then a seat should only be assigned once")
+        void thenASeatShouldOnlyBeAssignedOnce() {
+            assertTrue(seatMap.assignSeat(63));
+            assertFalse(seatMap.assignSeat(63));
+            assertFalse(seatMap.isFree(63));
+            assertTrue(seatMap.isFree(64));
+            assertEquals(499, seatMap.countFreeSeats());
+            assertThrows(IndexOutOfBoundsException.class, () -> seatMap.assignSeat(500));
+        }
+
+        @Test
+        @DisplayName("then the first free seat should be assigned")
+        void thenTheFirstFreeSeatShouldBeAssigned() {
+            for (int seat = 0; seat < 70; seat++) {
+                seatMap.assignSeat(seat);
+            }
+            seatMap.releaseSeat(12);
+            assertEquals(12, seatMap.assignFirstFreeSeat());
+            assertEquals(70, seatMap.assignFirstFreeSeat());
+        }
+
+        @Test
+        @DisplayName("then a group should get adjacent seats, also across word boundaries")
+        void thenAGroupShouldGetAdjacentSeats() {
+            for (int seat = 0; seat < 62; seat++) {
+                seatMap.assignSeat(seat);
+            }
+            seatMap.assignSeat(66);
+            assertEquals(62, seatMap.findAdjacentFreeSeats(4));
+            assertEquals(67, seatMap.findAdjacentFreeSeats(5));
+            assertEquals(62, seatMap.assignAdjacentSeats(3));
+            assertEquals(67, seatMap.assignAdjacentSeats(2));
+            assertEquals(65, seatMap.assignFirstFreeSeat());
+            assertEquals(-1, seatMap.findAdjacentFreeSeats(500));
+        }
+
+        @Test
+        @DisplayName("then a full seat map should have no free seats")
+        void thenAFullSeatMapShouldHaveNoFreeSeats() {
+            assertEquals(0, seatMap.assignAdjacentSeats(500));
+            assertEquals(0, seatMap.countFreeSeats());
+            assertEquals(-1, seatMap.assignFirstFreeSeat());
+            assertTrue(seatMap.releaseSeat(499));
+            assertEquals(499, seatMap.findAdjacentFreeSeats(1));
+        }
+
+        @Test
+        @DisplayName("then the highest taken seat should be released first")
+        void thenTheHighestTakenSeatShouldBeReleasedFirst() {
+            seatMap.assignSeat(3);
+            seatMap.assignSeat(130);
+            assertEquals(130, seatMap.releaseLastTakenSeat());
+            assertEquals(3, seatMap.releaseLastTakenSeat());
+            assertEquals(-1, seatMap.releaseLastTakenSeat());
+        }
+    }
+}